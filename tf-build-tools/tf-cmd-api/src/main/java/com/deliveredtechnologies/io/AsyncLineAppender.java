@@ -0,0 +1,167 @@
+package com.deliveredtechnologies.io;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Appends lines (e.g. the output of a command) to a sink (e.g. a log) asynchronously.
+ * <br>
+ * Lines are added to a lock-free bounded RingBuffer and a writer thread passes them on to the sink in batches, so the
+ * thread producing the lines isn't slowed down by a slow sink (e.g. a console that's applying back-pressure). When the
+ * buffer is full, the OverflowPolicy decides what happens to a new line: BLOCK waits for room (the line is delayed),
+ * DROP_OLDEST drops the oldest buffered line to make room and SUMMARIZE drops the new line and appends a line to the
+ * sink that says how many lines were dropped. The number of dropped and delayed lines is counted.
+ * <br>
+ * The writer thread is started when the first line is appended; closing the appender writes the buffered lines and
+ * stops it. Lines must not be appended once the appender is closed.
+ */
+public class AsyncLineAppender implements Consumer<String>, AutoCloseable {
+  public static final int DEFAULT_CAPACITY = 1024;
+  private static final int MAX_BATCH_SIZE = 256;
+  private static final long WAIT_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  public enum OverflowPolicy {
+    BLOCK,
+    DROP_OLDEST,
+    SUMMARIZE;
+
+    /**
+     * Gets the OverflowPolicy named by a parameter value.
+     * @param name  the name of the policy, case insensitive and with '-' or '_' separating words (e.g. drop-oldest)
+     * @return      the OverflowPolicy
+     * @throws IllegalArgumentException if there isn't a policy with the name
+     */
+    public static OverflowPolicy forName(String name) {
+      return OverflowPolicy.valueOf(name.trim().toUpperCase().replace('-', '_'));
+    }
+  }
+
+  private final RingBuffer<String> buffer;
+  private final Consumer<List<String>> sink;
+  private final OverflowPolicy overflowPolicy;
+  private final Thread writer;
+  private final AtomicBoolean started = new AtomicBoolean();
+  private final AtomicLong droppedLines = new AtomicLong();
+  private final AtomicLong delayedLines = new AtomicLong();
+  private final AtomicLong unsummarizedLines = new AtomicLong();
+  private volatile boolean closed;
+  private volatile boolean writerWaiting;
+
+  /**
+   * Instantiates AsyncLineAppender.
+   * @param sink            the sink the lines are passed on to in batches, in the order they were appended; it's called
+   *                        by the writer thread and must not keep the batch
+   * @param capacity        the number of lines that can be buffered (rounded up to a power of two)
+   * @param overflowPolicy  what happens to a line that's appended when the buffer is full
+   */
+  public AsyncLineAppender(Consumer<List<String>> sink, int capacity, OverflowPolicy overflowPolicy) {
+    this.buffer = new RingBuffer<>(capacity);
+    this.sink = sink;
+    this.overflowPolicy = overflowPolicy;
+    this.writer = new Thread(this::write, "async-line-appender");
+    this.writer.setDaemon(true);
+  }
+
+  /**
+   * Appends a line; unless the overflow policy is BLOCK, it never waits for the sink.
+   * @param line  the line
+   * @throws IllegalStateException if the appender is closed
+   */
+  @Override
+  public void accept(String line) {
+    if (closed) throw new IllegalStateException("The appender is closed");
+    if (!started.get() && started.compareAndSet(false, true)) writer.start();
+
+    if (!buffer.offer(line)) {
+      switch (overflowPolicy) {
+        case DROP_OLDEST:
+          do {
+            if (buffer.poll() != null) droppedLines.incrementAndGet();
+          } while (!buffer.offer(line));
+          break;
+        case SUMMARIZE:
+          droppedLines.incrementAndGet();
+          unsummarizedLines.incrementAndGet();
+          break;
+        default:
+          delayedLines.incrementAndGet();
+          do {
+            LockSupport.unpark(writer);
+            LockSupport.parkNanos(this, WAIT_NANOS / 10);
+          } while (!buffer.offer(line));
+      }
+    }
+    if (writerWaiting) LockSupport.unpark(writer);
+  }
+
+  /**
+   * Writes the buffered lines to the sink and stops the writer thread.
+   * @throws InterruptedException
+   */
+  @Override
+  public void close() throws InterruptedException {
+    if (closed) return;
+    closed = true;
+    if (started.get()) {
+      LockSupport.unpark(writer);
+      writer.join();
+    }
+  }
+
+  /**
+   * Gets the number of lines that were dropped because the buffer was full (or because the sink failed).
+   * @return  the number of dropped lines
+   */
+  public long getDroppedLines() {
+    return droppedLines.get();
+  }
+
+  /**
+   * Gets the number of lines that had to wait for room in the buffer (with the BLOCK overflow policy).
+   * @return  the number of delayed lines
+   */
+  public long getDelayedLines() {
+    return delayedLines.get();
+  }
+
+  public OverflowPolicy getOverflowPolicy() {
+    return overflowPolicy;
+  }
+
+  private void write() {
+    while (true) {
+      List<String> batch = new ArrayList<>(Math.min(MAX_BATCH_SIZE, buffer.capacity()));
+      for (String line = buffer.poll(); line != null; line = batch.size() < MAX_BATCH_SIZE ? buffer.poll() : null) {
+        batch.add(line);
+      }
+      long unsummarized = unsummarizedLines.getAndSet(0);
+      if (unsummarized > 0) {
+        batch.add(String.format("[%1$d line(s) dropped; the output was produced faster than it could be written]", unsummarized));
+      }
+      if (!batch.isEmpty()) {
+        writeBatch(batch);
+        continue;
+      }
+      if (closed && buffer.isEmpty()) return;
+
+      writerWaiting = true;
+      //lines appended between the last poll and setting writerWaiting don't unpark the writer; so check again
+      if (buffer.isEmpty() && !closed) LockSupport.parkNanos(this, WAIT_NANOS);
+      writerWaiting = false;
+    }
+  }
+
+  private void writeBatch(List<String> batch) {
+    try {
+      sink.accept(batch);
+    } catch (RuntimeException e) {
+      //a failing sink (e.g. a closed stream) must not stop the lines after it from being written
+      droppedLines.addAndGet(batch.size());
+    }
+  }
+}
@@ -1,44 +1,90 @@
 package com.deliveredtechnologies.io;
 
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
 import org.apache.commons.io.IOUtils;
 import org.slf4j.Logger;
 
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Command line abstraction; executes any command via the command line (cmd.exe or bash based on OS).
+ * <br>
+ * When an output consumer is specified, the output of commands is streamed to it line by line as it's produced instead
+ * of being returned once the command exits. A pump thread reads the output into a bounded queue, which the thread that
+ * executes the command drains into the consumer; if the consumer falls behind, the pump (and then the command) waits,
+ * so the output is never buffered in memory.
+ * <br>
+ * A command executed with a timeout is stopped if it hasn't exited when the timeout has elapsed since it started.
+ * A command executed without one runs until its output ends, however long that takes (e.g. a long apply); it's then
+ * given the default timeout to exit.
  */
 public class CommandLine implements Executable {
 
-  private static int DEFAULT_TIMEOUT = 600000;
+  static int DEFAULT_TIMEOUT = 600000;
+  private static final int OUTPUT_QUEUE_CAPACITY = 1024;
+  //compared by identity, so it can't be mistaken for an empty line of output
+  private static final String END_OF_OUTPUT = new String("");
 
   private Path directory;
   private Optional<Logger> logger;
+  private Optional<Consumer<String>> outputConsumer;
 
   public CommandLine(Path directory) {
     this(directory, null);
   }
 
   public CommandLine(Path directory, Logger logger) {
+    this(directory, logger, null);
+  }
+
+  /**
+   * Instantiates CommandLine.
+   * @param directory       the directory commands are executed in
+   * @param logger          the logger commands are logged to (at debug); may be null
+   * @param outputConsumer  the consumer the output of commands is streamed to line by line; if null, the output is
+   *                        returned once the command exits
+   */
+  public CommandLine(Path directory, Logger logger, Consumer<String> outputConsumer) {
     this.logger = Optional.ofNullable(logger);
     this.directory = directory;
+    this.outputConsumer = Optional.ofNullable(outputConsumer);
   }
 
   /**
    * Runs the command specified on the command line (cmd.exe or bash based on OS).
    * @param command the command to be run on the command line
    * @param timeout the max amount of time in milliseconds the command is allowed to run before interruption
-   * @return        the output from the command line
+   * @return        the output from the command line, or an empty String if the output was streamed to the output consumer
    * @throws IOException
    * @throws InterruptedException
    */
   @Override
   public String execute(String command, int timeout) throws IOException, InterruptedException {
+    return execute(command, timeout, true);
+  }
+
+  @Override
+  public String execute(String command) throws IOException, InterruptedException {
+    return execute(command, DEFAULT_TIMEOUT, false);
+  }
+
+  private String execute(String command, int timeout, boolean hasDeadline) throws IOException, InterruptedException {
+    try (Span span = Tracer.getInstance().start("command", getSpanName(command))) {
+      return run(command, timeout, hasDeadline);
+    }
+  }
+
+  private String run(String command, int timeout, boolean hasDeadline) throws IOException, InterruptedException {
     boolean isWindows = System.getProperty("os.name").toLowerCase().startsWith("windows");
 
     Process process;
@@ -63,6 +109,10 @@ public class CommandLine implements Executable {
       process = processBuilder.start();
     }
 
+    if (outputConsumer.isPresent()) {
+      return stream(process, outputConsumer.get(), timeout, hasDeadline);
+    }
+
     String output = IOUtils.toString(new InputStreamReader(process.getInputStream()));
     String error = IOUtils.toString(new InputStreamReader(process.getErrorStream()));
     process.waitFor(timeout, TimeUnit.MILLISECONDS);
@@ -73,12 +123,85 @@ public class CommandLine implements Executable {
     return output;
   }
 
-  @Override
-  public String execute(String command) throws IOException, InterruptedException {
-    return this.execute(command, DEFAULT_TIMEOUT);
+  private String stream(Process process, Consumer<String> consumer, int timeout, boolean hasDeadline)
+      throws IOException, InterruptedException {
+    //without a deadline, the output is read until it ends and the process is then given the timeout to exit
+    long deadline = hasDeadline ? System.currentTimeMillis() + timeout : Long.MAX_VALUE;
+    BlockingQueue<String> lines = new ArrayBlockingQueue<>(OUTPUT_QUEUE_CAPACITY);
+    Thread outputPump = startPump("output", () -> {
+      try {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+          for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            lines.put(line);
+          }
+        } catch (IOException expected) {
+          //the output ends when the process is destroyed
+        }
+        lines.put(END_OF_OUTPUT);
+      } catch (InterruptedException expected) {
+        //the command was abandoned, e.g. it timed out
+      }
+    });
+    //the error output is read concurrently, so a command that writes a lot of errors can't block on a full pipe
+    StringBuffer error = new StringBuffer();
+    Thread errorPump = startPump("error", () -> {
+      try {
+        error.append(IOUtils.toString(new InputStreamReader(process.getErrorStream())));
+      } catch (IOException expected) {
+        //the error output ends when the process is destroyed
+      }
+    });
+
+    try {
+      for (String line = takeLine(lines, deadline); line != END_OF_OUTPUT; line = takeLine(lines, deadline)) {
+        if (line == null) throw new IOException(String.format("Timed out after %1$dms", timeout));
+        consumer.accept(line);
+      }
+      if (hasDeadline) {
+        errorPump.join(getRemainingMillis(deadline) + 1);
+      } else {
+        errorPump.join();
+        deadline = System.currentTimeMillis() + timeout;
+      }
+      if (!process.waitFor(getRemainingMillis(deadline), TimeUnit.MILLISECONDS)) {
+        throw new IOException(String.format("Timed out after %1$dms", timeout));
+      }
+    } finally {
+      if (process.isAlive()) process.destroyForcibly();
+      outputPump.interrupt();
+    }
+
+    if (process.exitValue() > 0) {
+      throw new IOException("Exit value was greater than zero!\n" + error);
+    }
+    return "";
+  }
+
+  private Thread startPump(String name, Runnable pump) {
+    Thread thread = new Thread(pump, String.format("%1$s-%2$s", directory.getFileName(), name));
+    thread.setDaemon(true);
+    thread.start();
+    return thread;
+  }
+
+  private static String takeLine(BlockingQueue<String> lines, long deadline) throws InterruptedException {
+    return deadline == Long.MAX_VALUE ? lines.take() : lines.poll(getRemainingMillis(deadline), TimeUnit.MILLISECONDS);
+  }
+
+  private static long getRemainingMillis(long deadline) {
+    return Math.max(0, deadline - System.currentTimeMillis());
   }
 
   public Path getDirectory() {
     return this.directory;
   }
+
+  private String getSpanName(String command) {
+    //options (e.g. -var values) are left out of the span name, so they don't end up in trace files
+    int optionsIndex = command.indexOf(" -");
+    String name = optionsIndex < 0 ? command : command.substring(0, optionsIndex);
+    return directory == null || directory.getFileName() == null
+        ? name
+        : String.format("%1$s (%2$s)", name, directory.getFileName());
+  }
 }
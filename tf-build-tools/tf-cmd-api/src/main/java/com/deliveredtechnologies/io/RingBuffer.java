@@ -0,0 +1,93 @@
+package com.deliveredtechnologies.io;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A lock-free, bounded, multi-producer multi-consumer queue backed by a ring of slots.
+ * <br>
+ * Each slot has a sequence number that says whether it's ready to be written or read for a given position, so producers
+ * and consumers only contend (by compare-and-set) on the position they claim, never on a lock. The capacity is rounded
+ * up to a power of two.
+ * @param <E> the type of the elements
+ */
+class RingBuffer<E> {
+  private final int mask;
+  private final AtomicReferenceArray<E> elements;
+  private final AtomicLongArray sequences;
+  private final AtomicLong head = new AtomicLong();
+  private final AtomicLong tail = new AtomicLong();
+
+  RingBuffer(int capacity) {
+    int size = Integer.highestOneBit(Math.max(2, capacity) - 1) << 1;
+    mask = size - 1;
+    elements = new AtomicReferenceArray<>(size);
+    sequences = new AtomicLongArray(size);
+    for (int index = 0; index < size; index++) {
+      sequences.set(index, index);
+    }
+  }
+
+  /**
+   * Adds an element to the tail of the queue, unless the queue is full.
+   * @param element the element
+   * @return        true if the element was added, false if the queue is full
+   */
+  boolean offer(E element) {
+    long position = tail.get();
+    while (true) {
+      int index = (int)(position & mask);
+      long difference = sequences.get(index) - position;
+      if (difference == 0) {
+        if (tail.compareAndSet(position, position + 1)) {
+          elements.lazySet(index, element);
+          //publishes the element to consumers; the slot can be read at position + 1
+          sequences.set(index, position + 1);
+          return true;
+        }
+        position = tail.get();
+      } else if (difference < 0) {
+        //the slot still holds the element written a lap ago
+        return false;
+      } else {
+        position = tail.get();
+      }
+    }
+  }
+
+  /**
+   * Removes the element at the head of the queue.
+   * @return  the element, or null if the queue is empty
+   */
+  E poll() {
+    long position = head.get();
+    while (true) {
+      int index = (int)(position & mask);
+      long difference = sequences.get(index) - (position + 1);
+      if (difference == 0) {
+        if (head.compareAndSet(position, position + 1)) {
+          E element = elements.get(index);
+          elements.lazySet(index, null);
+          //frees the slot for the producer a lap ahead
+          sequences.set(index, position + mask + 1);
+          return element;
+        }
+        position = head.get();
+      } else if (difference < 0) {
+        //the slot hasn't been written yet
+        return null;
+      } else {
+        position = head.get();
+      }
+    }
+  }
+
+  int capacity() {
+    return mask + 1;
+  }
+
+  boolean isEmpty() {
+    return head.get() >= tail.get();
+  }
+}
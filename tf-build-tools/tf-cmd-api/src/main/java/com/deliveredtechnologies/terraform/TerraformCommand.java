@@ -1,7 +1,7 @@
 package com.deliveredtechnologies.terraform;
 
 public enum TerraformCommand {
-  INIT("init"), PLAN("plan"), APPLY("apply"), DESTROY("destroy"), OUTPUT("output");
+  INIT("init"), PLAN("plan"), APPLY("apply"), DESTROY("destroy"), OUTPUT("output"), PROVIDERS_MIRROR("providers mirror");
 
   private String value;
 
@@ -5,6 +5,9 @@ import com.deliveredtechnologies.io.Executable;
 import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.function.Consumer;
 
 /**
  * Decorates Executable (for use with CommandLine) to put in the context of Terraform commands.
@@ -41,7 +44,36 @@ public class TerraformCommandLineDecorator implements Executable {
    * @throws IOException
    */
   public TerraformCommandLineDecorator(TerraformCommand cmd, String tfRootDir) throws IOException, TerraformException {
-    this(cmd, new CommandLine(tfRootDir == null ? TerraformUtils.getDefaultTerraformRootModuleDir() : TerraformUtils.getTerraformRootModuleDir(tfRootDir)));
+    this(cmd, tfRootDir, Paths.get(""));
+  }
+
+  /**
+   * Instantiates TerraformCommandLineDecorator using TerraformCommand.<br>
+   * The directory where commands are executed is based on {tfRootDir}, resolved relative to {basedir}.
+   * @param cmd       the Terraform command to be executed
+   * @param tfRootDir the Terraform root module directory; if null, the default root module under {basedir}
+   * @param basedir   the base directory, e.g. the Maven project's basedir
+   * @throws IOException
+   */
+  public TerraformCommandLineDecorator(TerraformCommand cmd, String tfRootDir, Path basedir) throws IOException, TerraformException {
+    this(cmd, tfRootDir, basedir, null);
+  }
+
+  /**
+   * Instantiates TerraformCommandLineDecorator using TerraformCommand.<br>
+   * The directory where commands are executed is based on {tfRootDir}, resolved relative to {basedir}.
+   * @param cmd             the Terraform command to be executed
+   * @param tfRootDir       the Terraform root module directory; if null, the default root module under {basedir}
+   * @param basedir         the base directory, e.g. the Maven project's basedir
+   * @param outputConsumer  the consumer the output of the command is streamed to line by line; if null, the output is
+   *                        returned once the command exits
+   * @throws IOException
+   */
+  public TerraformCommandLineDecorator(TerraformCommand cmd, String tfRootDir, Path basedir, Consumer<String> outputConsumer)
+      throws IOException, TerraformException {
+    this(cmd, new CommandLine(tfRootDir == null
+        ? TerraformUtils.getDefaultTerraformRootModuleDir(basedir)
+        : TerraformUtils.getTerraformRootModuleDir(basedir, tfRootDir), null, outputConsumer));
   }
 
   @Override
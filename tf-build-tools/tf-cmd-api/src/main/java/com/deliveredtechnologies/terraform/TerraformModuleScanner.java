@@ -0,0 +1,200 @@
+package com.deliveredtechnologies.terraform;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Scans Terraform (HCL) configurations for the sources of the modules they call.
+ * <br>
+ * Only the top level source attribute of each module block is collected; comments, heredocs and string
+ * templates are skipped, so a "source" or "module" that only appears inside of them is not reported.
+ */
+public class TerraformModuleScanner {
+  private TerraformModuleScanner() { }
+
+  private enum TokenType {
+    IDENTIFIER, STRING, OPEN_BRACE, CLOSE_BRACE, EQUALS, OTHER
+  }
+
+  private static class Token {
+    TokenType type;
+    String value;
+
+    Token(TokenType type, String value) {
+      this.type = type;
+      this.value = value;
+    }
+  }
+
+  /**
+   * Gets the module sources from the Terraform (*.tf) files in a Terraform module directory.
+   * @param moduleDir the Terraform module directory; subdirectories are not scanned
+   * @return          the module sources in the order they were found
+   * @throws IOException
+   */
+  public static Set<String> getModuleSources(Path moduleDir) throws IOException {
+    Set<String> sources = new LinkedHashSet<>();
+    if (!moduleDir.toFile().isDirectory()) return sources;
+
+    List<Path> tfFiles;
+    try (Stream<Path> files = Files.list(moduleDir)) {
+      tfFiles = files
+        .filter(path -> path.getFileName().toString().endsWith(".tf") && path.toFile().isFile())
+        .sorted()
+        .collect(Collectors.toList());
+    }
+    for (Path tfFile : tfFiles) {
+      sources.addAll(getModuleSources(new String(Files.readAllBytes(tfFile), StandardCharsets.UTF_8)));
+    }
+    return sources;
+  }
+
+  /**
+   * Gets the module sources from Terraform (HCL) configuration.
+   * @param hcl Terraform configuration
+   * @return    the module sources in the order they were found
+   */
+  public static Set<String> getModuleSources(String hcl) {
+    Set<String> sources = new LinkedHashSet<>();
+    List<Token> tokens = tokenize(hcl);
+    int depth = 0;
+    int moduleDepth = -1;
+    for (int i = 0; i < tokens.size(); i++) {
+      Token token = tokens.get(i);
+      switch (token.type) {
+        case OPEN_BRACE:
+          depth++;
+          break;
+        case CLOSE_BRACE:
+          depth--;
+          if (depth < moduleDepth) moduleDepth = -1;
+          break;
+        case IDENTIFIER:
+          if (depth == 0 && token.value.equals("module")
+              && isType(tokens, i + 1, TokenType.STRING) && isType(tokens, i + 2, TokenType.OPEN_BRACE)) {
+            moduleDepth = 1;
+          } else if (depth == moduleDepth && token.value.equals("source")
+              && isType(tokens, i + 1, TokenType.EQUALS) && isType(tokens, i + 2, TokenType.STRING)) {
+            sources.add(tokens.get(i + 2).value);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return sources;
+  }
+
+  private static boolean isType(List<Token> tokens, int index, TokenType type) {
+    return index < tokens.size() && tokens.get(index).type == type;
+  }
+
+  private static List<Token> tokenize(String hcl) {
+    List<Token> tokens = new ArrayList<>();
+    int length = hcl.length();
+    int pos = 0;
+    while (pos < length) {
+      char character = hcl.charAt(pos);
+      if (Character.isWhitespace(character)) {
+        pos++;
+      } else if (character == '#' || hcl.startsWith("//", pos)) {
+        pos = skipLine(hcl, pos);
+      } else if (hcl.startsWith("/*", pos)) {
+        int end = hcl.indexOf("*/", pos + 2);
+        pos = end < 0 ? length : end + 2;
+      } else if (hcl.startsWith("<<", pos)) {
+        pos = skipHeredoc(hcl, pos);
+        tokens.add(new Token(TokenType.OTHER, null));
+      } else if (character == '"') {
+        StringBuilder value = new StringBuilder();
+        pos = readString(hcl, pos, value);
+        tokens.add(new Token(TokenType.STRING, value.toString()));
+      } else if (character == '{') {
+        tokens.add(new Token(TokenType.OPEN_BRACE, null));
+        pos++;
+      } else if (character == '}') {
+        tokens.add(new Token(TokenType.CLOSE_BRACE, null));
+        pos++;
+      } else if (character == '=' && !hcl.startsWith("==", pos) && !hcl.startsWith("=>", pos)) {
+        tokens.add(new Token(TokenType.EQUALS, null));
+        pos++;
+      } else if (Character.isLetter(character) || character == '_') {
+        int start = pos;
+        while (pos < length && (Character.isLetterOrDigit(hcl.charAt(pos)) || hcl.charAt(pos) == '_' || hcl.charAt(pos) == '-')) pos++;
+        tokens.add(new Token(TokenType.IDENTIFIER, hcl.substring(start, pos)));
+      } else {
+        tokens.add(new Token(TokenType.OTHER, null));
+        pos += hcl.startsWith("==", pos) || hcl.startsWith("=>", pos) ? 2 : 1;
+      }
+    }
+    return tokens;
+  }
+
+  private static int skipLine(String hcl, int index) {
+    int end = hcl.indexOf('\n', index);
+    return end < 0 ? hcl.length() : end + 1;
+  }
+
+  private static int skipHeredoc(String hcl, int index) {
+    int start = index + (hcl.startsWith("<<-", index) ? 3 : 2);
+    int end = start;
+    while (end < hcl.length() && (Character.isLetterOrDigit(hcl.charAt(end)) || hcl.charAt(end) == '_')) end++;
+    String delimiter = hcl.substring(start, end);
+    if (delimiter.isEmpty()) return end;
+
+    int lineStart = skipLine(hcl, end);
+    while (lineStart < hcl.length()) {
+      int lineEnd = skipLine(hcl, lineStart);
+      if (hcl.substring(lineStart, lineEnd).trim().equals(delimiter)) return lineEnd;
+      lineStart = lineEnd;
+    }
+    return hcl.length();
+  }
+
+  /**
+   * Reads a quoted string starting at index; template interpolations and directives are skipped.
+   * @return  the index immediately after the closing quote
+   */
+  private static int readString(String hcl, int index, StringBuilder value) {
+    int pos = index + 1;
+    while (pos < hcl.length()) {
+      char character = hcl.charAt(pos);
+      if (character == '"' || character == '\n') {
+        return pos + 1;
+      } else if (character == '\\' && pos + 1 < hcl.length()) {
+        value.append(hcl.charAt(pos + 1));
+        pos += 2;
+      } else if ((character == '$' || character == '%') && hcl.startsWith("{", pos + 1)) {
+        pos = skipTemplate(hcl, pos + 2);
+      } else {
+        value.append(character);
+        pos++;
+      }
+    }
+    return pos;
+  }
+
+  private static int skipTemplate(String hcl, int index) {
+    int depth = 1;
+    int pos = index;
+    while (pos < hcl.length() && depth > 0) {
+      char character = hcl.charAt(pos);
+      if (character == '"') {
+        pos = readString(hcl, pos, new StringBuilder());
+        continue;
+      }
+      if (character == '{') depth++;
+      if (character == '}') depth--;
+      pos++;
+    }
+    return pos;
+  }
+}
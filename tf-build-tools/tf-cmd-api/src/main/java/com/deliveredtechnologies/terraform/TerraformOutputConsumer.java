@@ -0,0 +1,60 @@
+package com.deliveredtechnologies.terraform;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Passes the lines of Terraform's output on to a consumer (e.g. a log) as they're produced; the lines can be prefixed
+ * (e.g. with the name of the root module, so the output of root modules run concurrently can be told apart) and their
+ * progress lines can be throttled.
+ * <br>
+ * While a resource is changed, Terraform reports its progress every 10 seconds
+ * (e.g. "aws_instance.web: Still creating... [1m20s elapsed]"). With a progress interval, only the first progress line of
+ * each resource in each interval is passed on; all other lines are always passed on.
+ */
+public class TerraformOutputConsumer implements Consumer<String> {
+  //the resource address may be preceded by color codes, e.g. when -no-color isn't specified
+  private static final Pattern PROGRESS_LINE = Pattern.compile("^(?:\\u001B\\[[0-9;]*m)*(\\S+): Still [a-z]+\\.\\.\\..*");
+
+  private final Consumer<String> consumer;
+  private final String prefix;
+  private final long progressInterval;
+  private final LongSupplier clock;
+  private final Map<String, Long> progressTimes = new HashMap<>();
+
+  /**
+   * Instantiates TerraformOutputConsumer.
+   * @param consumer          the consumer the lines are passed on to
+   * @param prefix            the prefix of each line; may be null or empty
+   * @param progressInterval  the minimum time in milliseconds between the progress lines of a resource that are passed
+   *                          on; 0 passes on every progress line
+   */
+  public TerraformOutputConsumer(Consumer<String> consumer, String prefix, long progressInterval) {
+    this(consumer, prefix, progressInterval, System::currentTimeMillis);
+  }
+
+  TerraformOutputConsumer(Consumer<String> consumer, String prefix, long progressInterval, LongSupplier clock) {
+    this.consumer = consumer;
+    this.prefix = prefix == null ? "" : prefix;
+    this.progressInterval = progressInterval;
+    this.clock = clock;
+  }
+
+  @Override
+  public synchronized void accept(String line) {
+    if (progressInterval > 0) {
+      Matcher matcher = PROGRESS_LINE.matcher(line);
+      if (matcher.matches()) {
+        long now = clock.getAsLong();
+        Long lastProgressTime = progressTimes.get(matcher.group(1));
+        if (lastProgressTime != null && now - lastProgressTime < progressInterval) return;
+        progressTimes.put(matcher.group(1), now);
+      }
+    }
+    consumer.accept(prefix + line);
+  }
+}
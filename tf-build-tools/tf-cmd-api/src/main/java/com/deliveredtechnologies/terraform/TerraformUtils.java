@@ -10,6 +10,9 @@ import java.util.Arrays;
 
 /**
  * Static utilities for Terraform related default Paths and stuff.
+ * <br>
+ * Paths are resolved relative to a base directory (e.g. ${project.basedir}), so that modules built concurrently
+ * in the same JVM don't depend on the process working directory; without one, they're relative to the working directory.
  */
 public class TerraformUtils {
   private TerraformUtils() { }
@@ -20,14 +23,24 @@ public class TerraformUtils {
    * @throws IOException
    */
   public static Path getDefaultTerraformRootModuleDir() throws IOException {
-    Path tfSourcePath = Paths.get("src", "main", "tf");
+    return getDefaultTerraformRootModuleDir(Paths.get(""));
+  }
+
+  /**
+   * Gets the default Terraform root module directory `{basedir}/src/main/terraform/{root module dir}`.
+   * @param basedir the base directory, e.g. the Maven project's basedir
+   * @return        a Path corresponding to the Terraform root module directory
+   * @throws IOException
+   */
+  public static Path getDefaultTerraformRootModuleDir(Path basedir) throws IOException {
+    Path tfSourcePath = getTfSourceDir(basedir);
     if (tfSourcePath.toFile().exists() && tfSourcePath.toFile().isDirectory()) {
-      return Files.walk(Paths.get("src", "main", "tf"), 2)
+      return Files.walk(tfSourcePath, 2)
           .filter(path -> !path.toFile().isDirectory())
           .filter(path -> path.getFileName().toString().endsWith(".tf"))
           .findFirst().orElseThrow(() -> new IOException("Terraform root module not found")).getParent();
     }
-    return Paths.get(".");
+    return basedir.resolve(".");
   }
 
   /**
@@ -38,11 +51,23 @@ public class TerraformUtils {
    * @throws TerraformException
    */
   public static Path getTerraformRootModuleDir(String tfmodule) throws IOException, TerraformException {
+    return getTerraformRootModuleDir(Paths.get(""), tfmodule);
+  }
+
+  /**
+   * Resolves the Path of the tfmodule relative to a base directory.
+   * @param basedir   the base directory, e.g. the Maven project's basedir
+   * @param tfmodule  an absolute path, a path relative to basedir or a module name under {basedir}/src/main/terraform
+   * @return          the Path associated with the Terraform module
+   * @throws IOException
+   * @throws TerraformException
+   */
+  public static Path getTerraformRootModuleDir(Path basedir, String tfmodule) throws IOException, TerraformException {
     Path path;
     if (tfmodule.contains("/")) { //relative or absolute path
-      path = Paths.get(tfmodule);
+      path = basedir.resolve(tfmodule);
     } else {
-      path = Paths.get("src", "main", "tf", tfmodule);
+      path = getTfSourceDir(basedir).resolve(tfmodule);
     }
     if (!path.toFile().exists() || !Arrays.stream(path.toFile().listFiles()).anyMatch(p -> p.isFile() && p.getName().endsWith(".tf"))) {
       throw new TerraformException(String.format("%1$s does not contain any Terraform (*.terraform) files!", tfmodule));
@@ -51,11 +76,39 @@ public class TerraformUtils {
     return path;
   }
 
+  /**
+   * Gets the directory, relative to a root module, of the providers vendored into it `terraform.d/plugins`.
+   * <br>
+   * The providers are in the filesystem mirror layout written by terraform providers mirror.
+   * @return  the relative Path of the vendored providers directory
+   */
+  public static Path getVendoredProvidersDir() {
+    return Paths.get("terraform.d", "plugins");
+  }
+
   /**
    * Gets the default Terraform dependency module path `/src/main/.tfmodules`.
    * @return
    */
   public static Path getDefaultTfModulesDir() {
-    return Paths.get("src", "main", ".tfmodules");
+    return getDefaultTfModulesDir(Paths.get(""));
+  }
+
+  /**
+   * Gets the default Terraform dependency module path `{basedir}/src/main/.tfmodules`.
+   * @param basedir the base directory, e.g. the Maven project's basedir
+   * @return        the Path of the Terraform dependency modules directory
+   */
+  public static Path getDefaultTfModulesDir(Path basedir) {
+    return basedir.resolve(Paths.get("src", "main", ".tfmodules"));
+  }
+
+  /**
+   * Gets the directory of the Terraform root modules `{basedir}/src/main/tf`.
+   * @param basedir the base directory, e.g. the Maven project's basedir
+   * @return        the Path of the Terraform source directory
+   */
+  public static Path getTfSourceDir(Path basedir) {
+    return basedir.resolve(Paths.get("src", "main", "tf"));
   }
 }
@@ -28,12 +28,23 @@ public class TerraformClean implements TerraformOperation<String> {
    * @throws IOException
    */
   public TerraformClean(String tfModules, String tfRootModule) throws IOException, TerraformException {
+    this(tfModules, tfRootModule, Paths.get(""));
+  }
+
+  /**
+   * Constructor instantiates TerraformClean with directories relative to a base directory.
+   * @param tfModules     the tfModules directory; defaults to {basedir}/src/main/.tfmodules if empty
+   * @param tfRootModule  the Terraform root module directory; defaults to {basedir}/src/main/terraform/{first dir} if empty
+   * @param basedir       the base directory, e.g. the Maven project's basedir
+   * @throws IOException
+   */
+  public TerraformClean(String tfModules, String tfRootModule, Path basedir) throws IOException, TerraformException {
     this.tfModulesPath = StringUtils.isEmpty(tfModules)
-      ? TerraformUtils.getDefaultTfModulesDir()
-      : Paths.get(tfModules);
+      ? TerraformUtils.getDefaultTfModulesDir(basedir)
+      : basedir.resolve(tfModules);
     this.tfRootModulePath = (StringUtils.isEmpty(tfRootModule)
-      ? TerraformUtils.getDefaultTerraformRootModuleDir()
-      : TerraformUtils.getTerraformRootModuleDir(tfRootModule)).getParent();
+      ? TerraformUtils.getDefaultTerraformRootModuleDir(basedir)
+      : TerraformUtils.getTerraformRootModuleDir(basedir, tfRootModule)).getParent();
   }
 
   @Override
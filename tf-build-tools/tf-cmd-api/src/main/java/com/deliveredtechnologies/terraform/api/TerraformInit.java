@@ -1,13 +1,16 @@
 package com.deliveredtechnologies.terraform.api;
 
+import com.deliveredtechnologies.io.CommandLine;
 import com.deliveredtechnologies.io.Executable;
 import com.deliveredtechnologies.terraform.TerraformCommand;
 import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.Properties;
 
@@ -49,6 +52,10 @@ public class TerraformInit implements TerraformOperation<String> {
     this(LoggerFactory.getLogger(TerraformInit.class), new TerraformCommandLineDecorator(TerraformCommand.INIT, tfRootDir));
   }
 
+  public TerraformInit(String tfRootDir, Path basedir) throws IOException, TerraformException {
+    this(LoggerFactory.getLogger(TerraformInit.class), new TerraformCommandLineDecorator(TerraformCommand.INIT, tfRootDir, basedir));
+  }
+
   public TerraformInit(Logger log) throws IOException {
     this(log, new TerraformCommandLineDecorator(TerraformCommand.INIT));
   }
@@ -74,6 +81,11 @@ public class TerraformInit implements TerraformOperation<String> {
    *   verifyPlugins - skips release signature validation when installing downloaded plugins (not recommended) <br>
    *   getPlugins - skips plugin installation when false <br>
    * </p>
+   * <p>
+   *   If pluginDir isn't specified and the root module contains vendored providers (i.e. terraform.d/plugins, as
+   *   packaged by tf:package with vendorProviders), then plugins are only loaded from the vendored providers, so
+   *   init doesn't need to reach a provider registry.
+   * </p>
    * @param properties  paramter options and properties for terraform init
    * @return            the output of terraform init
    * @throws TerraformException
@@ -104,10 +116,30 @@ public class TerraformInit implements TerraformOperation<String> {
         }
       }
 
+      if (!properties.containsKey(TerraformInitParam.pluginDir.property)) {
+        getVendoredProvidersDir().ifPresent(dir -> {
+          log.info(String.format("Using the providers vendored in %1$s", dir));
+          options.append(String.format("-%1$s=%2$s ", TerraformInitParam.pluginDir, TerraformUtils.getVendoredProvidersDir()));
+        });
+      }
+
       options.append("-no-color ");
       return terraform.execute(options.toString());
     } catch (InterruptedException | IOException e) {
       throw new TerraformException(e);
     }
   }
+
+  /**
+   * Gets the vendored providers directory of the root module terraform init is executed in, if it exists.
+   * @return  the vendored providers directory, or empty if there isn't one
+   */
+  private Optional<Path> getVendoredProvidersDir() {
+    Executable commandLine = terraform instanceof TerraformCommandLineDecorator
+        ? ((TerraformCommandLineDecorator)terraform).getCommandLine()
+        : terraform;
+    if (!(commandLine instanceof CommandLine) || ((CommandLine)commandLine).getDirectory() == null) return Optional.empty();
+    Path dir = ((CommandLine)commandLine).getDirectory().resolve(TerraformUtils.getVendoredProvidersDir());
+    return dir.toFile().isDirectory() ? Optional.of(dir) : Optional.empty();
+  }
 }
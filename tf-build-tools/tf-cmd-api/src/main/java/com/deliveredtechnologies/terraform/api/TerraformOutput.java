@@ -6,6 +6,7 @@ import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
 import com.deliveredtechnologies.terraform.TerraformException;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Properties;
 
 public class TerraformOutput implements TerraformOperation<String> {
@@ -23,6 +24,10 @@ public class TerraformOutput implements TerraformOperation<String> {
     this(new TerraformCommandLineDecorator(TerraformCommand.OUTPUT, tfRootDir));
   }
 
+  public TerraformOutput(String tfRootDir, Path basedir) throws IOException, TerraformException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.OUTPUT, tfRootDir, basedir));
+  }
+
   /**
    * Executes `terraform output -json -module={tfRootDir}`.
    *
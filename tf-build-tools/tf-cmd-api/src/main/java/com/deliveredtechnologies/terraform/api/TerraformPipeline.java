@@ -0,0 +1,228 @@
+package com.deliveredtechnologies.terraform.api;
+
+import com.deliveredtechnologies.io.CommandLine;
+import com.deliveredtechnologies.io.Executable;
+import com.deliveredtechnologies.terraform.TerraformCommand;
+import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
+import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformUtils;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * API for running Terraform operations (e.g. init, plan and apply) as the stages of a single pipeline.
+ * <br>
+ * Stages form a directed acyclic graph: each stage runs as soon as the stages it depends on are complete, so
+ * independent stages (e.g. the stages of independent root modules) run concurrently. The stages of a root module
+ * share the root module directory, which is resolved once. The time each stage took is reported when the pipeline
+ * is complete, and each stage is traced as a span (see Tracer).
+ */
+public class TerraformPipeline implements TerraformOperation<String> {
+  public static final String INIT = "init";
+  public static final String PLAN = "plan";
+  public static final String APPLY = "apply";
+
+  private Logger log;
+  private Map<String, Stage> stages = new LinkedHashMap<>();
+  private Map<String, Long> timings = new LinkedHashMap<>();
+
+  enum TerraformPipelineParam {
+    stages;
+  }
+
+  public TerraformPipeline() {
+    this(LoggerFactory.getLogger(TerraformPipeline.class));
+  }
+
+  public TerraformPipeline(Logger log) {
+    this.log = log;
+  }
+
+  /**
+   * Adds a stage to the pipeline.
+   * @param name        the name of the stage
+   * @param operation   the operation run by the stage
+   * @param dependsOn   the names of the stages that must be complete before the stage runs
+   * @return            this pipeline
+   * @throws IllegalArgumentException if the name is already used or a stage it depends on hasn't been added
+   */
+  public TerraformPipeline addStage(String name, TerraformOperation<?> operation, String... dependsOn) {
+    //stages can only depend on stages added before them, so the stages always form an acyclic graph
+    for (String dependency : dependsOn) {
+      if (!stages.containsKey(dependency)) {
+        throw new IllegalArgumentException(String.format("Stage '%1$s' depends on unknown stage '%2$s'", name, dependency));
+      }
+    }
+    if (stages.putIfAbsent(name, new Stage(name, operation, Arrays.asList(dependsOn))) != null) {
+      throw new IllegalArgumentException(String.format("Stage '%1$s' is already in the pipeline", name));
+    }
+    return this;
+  }
+
+  /**
+   * Adds the init, plan and apply stages of a root module to the pipeline; init depends on dependsOn, plan depends on
+   * init and apply depends on plan.
+   * @param stagePrefix the prefix of the stage names (e.g. "network:" names the stages network:init, network:plan and
+   *                    network:apply); an empty prefix names them init, plan and apply
+   * @param tfRootDir   the Terraform root module directory; if null, the default root module under {basedir}
+   * @param basedir     the base directory, e.g. the Maven project's basedir
+   * @param dependsOn   the names of the stages that must be complete before the root module is initialized
+   * @return            this pipeline
+   * @throws IOException
+   * @throws TerraformException
+   */
+  public TerraformPipeline addRootModule(String stagePrefix, String tfRootDir, Path basedir, String... dependsOn)
+      throws IOException, TerraformException {
+    return addRootModule(stagePrefix, tfRootDir, basedir, null, dependsOn);
+  }
+
+  /**
+   * Adds the init, plan and apply stages of a root module to the pipeline, streaming their output to a consumer as it's
+   * produced; init depends on dependsOn, plan depends on init and apply depends on plan.
+   * @param stagePrefix     the prefix of the stage names (e.g. "network:" names the stages network:init, network:plan and
+   *                        network:apply); an empty prefix names them init, plan and apply
+   * @param tfRootDir       the Terraform root module directory; if null, the default root module under {basedir}
+   * @param basedir         the base directory, e.g. the Maven project's basedir
+   * @param outputConsumer  the consumer the output of the stages is streamed to line by line; if null, their output is
+   *                        part of the pipeline's output
+   * @param dependsOn       the names of the stages that must be complete before the root module is initialized
+   * @return                this pipeline
+   * @throws IOException
+   * @throws TerraformException
+   */
+  public TerraformPipeline addRootModule(String stagePrefix, String tfRootDir, Path basedir, Consumer<String> outputConsumer,
+                                         String... dependsOn) throws IOException, TerraformException {
+    Path tfRootPath = tfRootDir == null
+        ? TerraformUtils.getDefaultTerraformRootModuleDir(basedir)
+        : TerraformUtils.getTerraformRootModuleDir(basedir, tfRootDir);
+    Executable commandLine = new CommandLine(tfRootPath, log, outputConsumer);
+    addStage(stagePrefix + INIT,
+        new TerraformInit(log, new TerraformCommandLineDecorator(TerraformCommand.INIT, commandLine)), dependsOn);
+    addStage(stagePrefix + PLAN,
+        new TerraformPlan(new TerraformCommandLineDecorator(TerraformCommand.PLAN, commandLine)), stagePrefix + INIT);
+    addStage(stagePrefix + APPLY,
+        new TerraformApply(new TerraformCommandLineDecorator(TerraformCommand.APPLY, commandLine)), stagePrefix + PLAN);
+    return this;
+  }
+
+  /**
+   * Runs the stages of the pipeline.
+   * <p>
+   *   Valid Properties: <br>
+   *   stages - a comma delimited list of the stages to run (e.g. init,plan); stages that aren't listed are skipped
+   *   (the stages that depend on them still run); defaults to all stages<br>
+   *   The properties are also passed to each stage's operation.
+   * </p>
+   * <p>
+   *   If a stage fails, the stages that depend on it don't run; stages that don't depend on it are completed.
+   * </p>
+   * @param properties  property options for the pipeline and its stages
+   * @return            the output of each stage and the time each stage took
+   * @throws TerraformException
+   */
+  @Override
+  public String execute(Properties properties) throws TerraformException {
+    Set<String> stagesToRun = StringUtils.isBlank(properties.getProperty(TerraformPipelineParam.stages.toString()))
+        ? stages.keySet()
+        : Arrays.stream(properties.getProperty(TerraformPipelineParam.stages.toString()).split(","))
+          .map(String::trim).collect(Collectors.toCollection(HashSet::new));
+    timings.clear();
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, stages.size()));
+    Map<String, CompletableFuture<String>> futures = new LinkedHashMap<>();
+    long pipelineStart = System.nanoTime();
+    try {
+      for (Stage stage : stages.values()) {
+        CompletableFuture<?>[] dependencies = stage.dependsOn.stream().map(futures::get).toArray(CompletableFuture[]::new);
+        futures.put(stage.name, CompletableFuture.allOf(dependencies).thenApplyAsync(
+            ignored -> stagesToRun.contains(stage.name) ? run(stage, properties) : "", executor));
+      }
+      StringBuilder output = new StringBuilder();
+      List<Throwable> failures = new ArrayList<>();
+      for (CompletableFuture<String> future : futures.values()) {
+        try {
+          output.append(future.join());
+        } catch (CompletionException e) {
+          if (!failures.contains(e.getCause())) failures.add(e.getCause());
+        }
+      }
+      timings.put("total", System.nanoTime() - pipelineStart);
+      String report = getTimingReport();
+      log.info(report);
+      if (!failures.isEmpty()) {
+        Throwable failure = failures.get(0);
+        throw failure instanceof TerraformException
+            ? (TerraformException)failure
+            : new TerraformException(failure.getMessage(), failure);
+      }
+      return output.append(report).toString();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Gets the time each stage took the last time the pipeline was executed, and the total time of the pipeline.
+   * @return  the elapsed time in nanoseconds keyed by stage name (and "total"), in the order the stages completed
+   */
+  public Map<String, Long> getTimings() {
+    synchronized (timings) {
+      return new LinkedHashMap<>(timings);
+    }
+  }
+
+  private String run(Stage stage, Properties properties) {
+    log.info(String.format("Running stage '%1$s'", stage.name));
+    long start = System.nanoTime();
+    try (Span span = Tracer.getInstance().start("stage", stage.name)) {
+      Object response = stage.operation.execute(properties);
+      return response instanceof String ? (String)response : "";
+    } catch (TerraformException e) {
+      throw new CompletionException(e);
+    } finally {
+      synchronized (timings) {
+        timings.put(stage.name, System.nanoTime() - start);
+      }
+    }
+  }
+
+  private String getTimingReport() {
+    StringBuilder report = new StringBuilder("Pipeline stage timings:\n");
+    int width = getTimings().keySet().stream().mapToInt(String::length).max().orElse(0);
+    getTimings().forEach((name, nanos) ->
+        report.append(String.format("  %1$-" + width + "s %2$10.3fs%n", name, nanos / 1000000000.0)));
+    return report.toString();
+  }
+
+  private static class Stage {
+    private final String name;
+    private final TerraformOperation<?> operation;
+    private final List<String> dependsOn;
+
+    Stage(String name, TerraformOperation<?> operation, List<String> dependsOn) {
+      this.name = name;
+      this.operation = operation;
+      this.dependsOn = dependsOn;
+    }
+  }
+}
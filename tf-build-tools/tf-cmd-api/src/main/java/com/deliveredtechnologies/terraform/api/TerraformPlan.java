@@ -6,8 +6,10 @@ import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
 import com.deliveredtechnologies.terraform.TerraformException;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.function.Consumer;
 
 /**
  * API for terraform plan.
@@ -55,6 +57,22 @@ public class TerraformPlan implements TerraformOperation<String> {
     this(new TerraformCommandLineDecorator(TerraformCommand.PLAN, tfRootDir));
   }
 
+  public TerraformPlan(String tfRootDir, Path basedir) throws IOException, TerraformException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.PLAN, tfRootDir, basedir));
+  }
+
+  /**
+   * Instantiates TerraformPlan, streaming the output of terraform plan to a consumer as it's produced.
+   * @param tfRootDir       the Terraform root module directory; if null, the default root module under {basedir}
+   * @param basedir         the base directory, e.g. the Maven project's basedir
+   * @param outputConsumer  the consumer the output is streamed to line by line; execute then returns an empty String
+   * @throws IOException
+   * @throws TerraformException
+   */
+  public TerraformPlan(String tfRootDir, Path basedir, Consumer<String> outputConsumer) throws IOException, TerraformException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.PLAN, tfRootDir, basedir, outputConsumer));
+  }
+
   /**
    * Executes terraform plan.
    * <p>
@@ -0,0 +1,93 @@
+package com.deliveredtechnologies.terraform.api;
+
+import com.deliveredtechnologies.io.Executable;
+import com.deliveredtechnologies.terraform.TerraformCommand;
+import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
+import com.deliveredtechnologies.terraform.TerraformException;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Properties;
+
+/**
+ * API for terraform providers mirror.
+ * <br>
+ * See <a href="https://www.terraform.io/docs/commands/providers/mirror.html">https://www.terraform.io/docs/commands/providers/mirror.html</a>
+ */
+public class TerraformProvidersMirror implements TerraformOperation<String> {
+
+  private Executable terraform;
+
+  enum TerraformProvidersMirrorParam {
+    platform("platform"),
+    targetDir("targetDir"),
+    timeout("timeout");
+
+    Optional<String> name = Optional.empty();
+    String property;
+
+    TerraformProvidersMirrorParam(String name) {
+      this.property = this.toString();
+      this.name = Optional.of(name);
+    }
+
+    @Override
+    public String toString() {
+      return name.orElse(super.toString());
+    }
+  }
+
+  TerraformProvidersMirror(Executable terraform) {
+    this.terraform = terraform;
+  }
+
+  public TerraformProvidersMirror() throws IOException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.PROVIDERS_MIRROR));
+  }
+
+  public TerraformProvidersMirror(String tfRootDir) throws IOException, TerraformException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.PROVIDERS_MIRROR, tfRootDir));
+  }
+
+  public TerraformProvidersMirror(String tfRootDir, Path basedir) throws IOException, TerraformException {
+    this(new TerraformCommandLineDecorator(TerraformCommand.PROVIDERS_MIRROR, tfRootDir, basedir));
+  }
+
+  /**
+   * Executes terraform providers mirror, which downloads the providers required by the root module into a directory.
+   * <p>
+   *   Valid Properties: <br>
+   *   targetDir - the directory the providers are downloaded into (required)<br>
+   *   platform - a comma delimited list of the platforms to download the providers for (e.g. linux_amd64,darwin_amd64);
+   *   defaults to the current platform<br>
+   *   timeout - the max amount of time in milliseconds the command is allowed to run<br>
+   * </p>
+   * @param properties  parameter options and properties for terraform providers mirror
+   * @return            the output of terraform providers mirror
+   * @throws TerraformException
+   */
+  @Override
+  public String execute(Properties properties) throws TerraformException {
+    if (!properties.containsKey(TerraformProvidersMirrorParam.targetDir.property)) {
+      throw new TerraformException("terraform providers mirror requires a targetDir");
+    }
+    StringBuilder options = new StringBuilder();
+    if (properties.containsKey(TerraformProvidersMirrorParam.platform.property)) {
+      for (String platform : properties.getProperty(TerraformProvidersMirrorParam.platform.property).split(",")) {
+        options.append(String.format("-%1$s=%2$s ", TerraformProvidersMirrorParam.platform, platform.trim()));
+      }
+    }
+    options.append(String.format("\"%1$s\"", properties.getProperty(TerraformProvidersMirrorParam.targetDir.property)));
+
+    try {
+      if (properties.containsKey(TerraformProvidersMirrorParam.timeout.property)) {
+        return terraform.execute(options.toString(), Integer.parseInt(properties.getProperty(TerraformProvidersMirrorParam.timeout.property)));
+      } else {
+        return terraform.execute(options.toString());
+      }
+    } catch (InterruptedException | IOException e) {
+      throw new TerraformException(e.getMessage(), e);
+    }
+  }
+}
@@ -0,0 +1,82 @@
+package com.deliveredtechnologies.trace;
+
+/**
+ * A timed span of work (e.g. a goal, a pipeline stage, a terraform command or compressing a file) recorded by a Tracer.
+ * <br>
+ * A span starts when it's created and ends when it's closed, so it's used with try-with-resources.
+ */
+public final class Span implements AutoCloseable {
+  static final Span NOOP = new Span(null, "", "");
+
+  private final Tracer tracer;
+  private final String category;
+  private final String name;
+  private final String scope;
+  private final long threadId;
+  private final String threadName;
+  private final long start;
+  private long end = -1;
+
+  Span(Tracer tracer, String category, String name) {
+    this.tracer = tracer;
+    this.category = category;
+    this.name = name;
+    this.scope = tracer == null ? null : tracer.getScope();
+    this.threadId = Thread.currentThread().getId();
+    this.threadName = Thread.currentThread().getName();
+    this.start = System.nanoTime();
+  }
+
+  /**
+   * Ends the span and records it; closing a span more than once only records it once.
+   */
+  @Override
+  public void close() {
+    if (tracer == null) return;
+    synchronized (this) {
+      if (end >= 0) return;
+      end = System.nanoTime();
+    }
+    tracer.record(this);
+  }
+
+  public String getCategory() {
+    return category;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Gets the scope of the goal that started the span.
+   * @return  the scope passed to Tracer.beginGoal, or null if the span wasn't started by a goal (or its threads)
+   */
+  public String getScope() {
+    return scope;
+  }
+
+  public long getThreadId() {
+    return threadId;
+  }
+
+  public String getThreadName() {
+    return threadName;
+  }
+
+  /**
+   * Gets when the span started.
+   * @return  the System.nanoTime() the span started
+   */
+  public long getStart() {
+    return start;
+  }
+
+  /**
+   * Gets how long the span took.
+   * @return  the duration in nanoseconds, or 0 if the span hasn't ended
+   */
+  public synchronized long getDuration() {
+    return end < 0 ? 0 : end - start;
+  }
+}
@@ -0,0 +1,231 @@
+package com.deliveredtechnologies.trace;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.ref.WeakReference;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.stream.Collectors;
+
+/**
+ * Records the spans of a build (e.g. goals, pipeline stages, terraform commands, expanding artifacts and compressing
+ * files) across all of its threads, so that where the build time goes can be reported.
+ * <br>
+ * Tracing is disabled by default; a disabled Tracer doesn't record spans, so instrumented code only pays for reading a
+ * volatile flag. The recorded spans can be summarized as a table or written as a Chrome trace-event JSON file, which
+ * chrome://tracing, Perfetto (ui.perfetto.dev) and speedscope show as a flame chart of each thread.
+ * <br>
+ * Goals are traced between beginGoal and endGoal: the spans of a previous build are discarded when the first goal of a
+ * build begins (so a long-lived JVM, e.g. mvnd, doesn't keep them) and tracing is disabled again when the last traced
+ * goal ends. Each span is recorded with the scope (e.g. the module) of the goal that started it, which is inherited by
+ * the threads the goal starts, so the spans of concurrently built modules can be told apart.
+ */
+public final class Tracer {
+  private static final Tracer INSTANCE = new Tracer();
+
+  private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+  private final long origin = System.nanoTime();
+  private final InheritableThreadLocal<String> scope = new InheritableThreadLocal<>();
+  private volatile boolean enabled;
+  private WeakReference<Object> build = new WeakReference<>(null);
+  private int tracedGoals;
+
+  Tracer() {
+  }
+
+  /**
+   * Gets the Tracer shared by the build; spans recorded by operations in any thread (or any module of a parallel
+   * reactor build) are recorded by the same Tracer.
+   * @return  the shared Tracer
+   */
+  public static Tracer getInstance() {
+    return INSTANCE;
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  /**
+   * Enables tracing for a goal; if the goal is part of a different build than the goals traced before it, the spans
+   * recorded so far are discarded.
+   * @param build the build the goal is part of (e.g. the Maven execution request); it's compared by identity
+   * @param scope the scope of the spans started by the current thread and the threads it starts (e.g. the module's basedir)
+   */
+  public synchronized void beginGoal(Object build, String scope) {
+    if (this.build.get() != build) {
+      spans.clear();
+      this.build = new WeakReference<>(build);
+    }
+    tracedGoals++;
+    enabled = true;
+    this.scope.set(scope);
+  }
+
+  /**
+   * Ends a goal started with beginGoal; tracing is disabled when no other traced goal is running.
+   */
+  public synchronized void endGoal() {
+    scope.remove();
+    if (tracedGoals > 0) tracedGoals--;
+    if (tracedGoals == 0) enabled = false;
+  }
+
+  String getScope() {
+    return scope.get();
+  }
+
+  /**
+   * Starts a span; the span is recorded when it's closed.
+   * @param category  the kind of work (e.g. stage or compress); the summary is grouped by category
+   * @param name      the name of the work (e.g. network:plan or main.tf)
+   * @return          the started Span, or a Span that isn't recorded if tracing is disabled
+   */
+  public Span start(String category, String name) {
+    return enabled ? new Span(this, category, name) : Span.NOOP;
+  }
+
+  void record(Span span) {
+    spans.add(span);
+  }
+
+  /**
+   * Gets the spans recorded so far.
+   * @return  the recorded spans in the order they started
+   */
+  public List<Span> getSpans() {
+    List<Span> result = new ArrayList<>(spans);
+    result.sort(Comparator.comparingLong(Span::getStart));
+    return result;
+  }
+
+  /**
+   * Gets the spans recorded so far in a scope.
+   * @param scope the scope passed to beginGoal
+   * @return      the recorded spans of the scope in the order they started
+   */
+  public List<Span> getSpans(String scope) {
+    return getSpans().stream().filter(span -> Objects.equals(scope, span.getScope())).collect(Collectors.toList());
+  }
+
+  /**
+   * Discards the spans recorded so far.
+   */
+  public void clear() {
+    spans.clear();
+  }
+
+  /**
+   * Summarizes the spans recorded so far as a table of the number of spans, their total and max duration and the
+   * slowest span of each category.
+   * <br>
+   * Spans of the same category can run concurrently (e.g. files compressed by several threads), so the total of a
+   * category is the time spent on it by all threads, which can be more than the elapsed time.
+   * @return  the summary table
+   */
+  public String getSummary() {
+    return getSummary(getSpans());
+  }
+
+  /**
+   * Summarizes the spans recorded so far in a scope (see getSummary()).
+   * @param scope the scope passed to beginGoal
+   * @return      the summary table
+   */
+  public String getSummary(String scope) {
+    return getSummary(getSpans(scope));
+  }
+
+  private static String getSummary(List<Span> recordedSpans) {
+    Map<String, List<Span>> spansByCategory = new LinkedHashMap<>();
+    for (Span span : recordedSpans) {
+      spansByCategory.computeIfAbsent(span.getCategory(), category -> new ArrayList<>()).add(span);
+    }
+    int width = spansByCategory.keySet().stream().mapToInt(String::length).max().orElse(0);
+    String format = "  %1$-" + Math.max(width, "category".length());
+    StringBuilder summary = new StringBuilder("Build timings:\n");
+    summary.append(String.format(format + "s %2$8s %3$11s %4$11s  %5$s%n", "category", "count", "total", "max", "slowest"));
+    spansByCategory.forEach((category, categorySpans) -> {
+      Span slowest = categorySpans.stream().max(Comparator.comparingLong(Span::getDuration)).get();
+      long total = categorySpans.stream().mapToLong(Span::getDuration).sum();
+      summary.append(String.format(format + "s %2$8d %3$10.3fs %4$10.3fs  %5$s%n",
+          category, categorySpans.size(), toSeconds(total), toSeconds(slowest.getDuration()), slowest.getName()));
+    });
+    return summary.toString();
+  }
+
+  /**
+   * Writes the spans recorded so far as a Chrome trace-event JSON file; each span is a complete ("X") event on the
+   * thread that recorded it, with timestamps relative to when the Tracer was created.
+   * @param traceFile the file the trace is written to
+   * @throws IOException
+   */
+  public void writeChromeTrace(Path traceFile) throws IOException {
+    writeChromeTrace(traceFile, getSpans());
+  }
+
+  /**
+   * Writes the spans recorded so far in a scope as a Chrome trace-event JSON file (see writeChromeTrace(Path)).
+   * @param traceFile the file the trace is written to
+   * @param scope     the scope passed to beginGoal
+   * @throws IOException
+   */
+  public void writeChromeTrace(Path traceFile, String scope) throws IOException {
+    writeChromeTrace(traceFile, getSpans(scope));
+  }
+
+  private void writeChromeTrace(Path traceFile, List<Span> recordedSpans) throws IOException {
+    Map<Long, String> threadNames = new LinkedHashMap<>();
+    recordedSpans.forEach(span -> threadNames.putIfAbsent(span.getThreadId(), span.getThreadName()));
+
+    Files.createDirectories(traceFile.toAbsolutePath().getParent());
+    try (Writer writer = Files.newBufferedWriter(traceFile, StandardCharsets.UTF_8)) {
+      writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+      String separator = "\n";
+      for (Map.Entry<Long, String> thread : threadNames.entrySet()) {
+        writer.write(String.format(Locale.ROOT, "%1$s{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%2$d,\"args\":{\"name\":%3$s}}",
+            separator, thread.getKey(), toJson(thread.getValue())));
+        separator = ",\n";
+      }
+      for (Span span : recordedSpans) {
+        writer.write(String.format(Locale.ROOT, "%1$s{\"name\":%2$s,\"cat\":%3$s,\"ph\":\"X\",\"ts\":%4$.3f,\"dur\":%5$.3f,\"pid\":1,\"tid\":%6$d}",
+            separator, toJson(span.getName()), toJson(span.getCategory()), (span.getStart() - origin) / 1000.0,
+            span.getDuration() / 1000.0, span.getThreadId()));
+        separator = ",\n";
+      }
+      writer.write("\n]}\n");
+    }
+  }
+
+  private static double toSeconds(long nanos) {
+    return nanos / 1000000000.0;
+  }
+
+  private static String toJson(String value) {
+    StringBuilder json = new StringBuilder("\"");
+    for (char character : value.toCharArray()) {
+      if (character == '"' || character == '\\') {
+        json.append('\\').append(character);
+      } else if (character < ' ') {
+        json.append(String.format(Locale.ROOT, "\\u%1$04x", (int)character));
+      } else {
+        json.append(character);
+      }
+    }
+    return json.append('"').toString();
+  }
+}
@@ -0,0 +1,106 @@
+package com.deliveredtechnologies.io;
+
+import com.deliveredtechnologies.io.AsyncLineAppender.OverflowPolicy;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Tests for AsyncLineAppender.
+ */
+public class AsyncLineAppenderTest {
+
+  private final List<String> written = Collections.synchronizedList(new ArrayList<>());
+  private final CountDownLatch sinkEntered = new CountDownLatch(1);
+  private final CountDownLatch sinkReleased = new CountDownLatch(1);
+
+  @Test
+  public void blockWaitsForRoomAndWritesEveryLineInOrder() throws InterruptedException {
+    AsyncLineAppender appender = new AsyncLineAppender(this::slowSink, 4, OverflowPolicy.BLOCK);
+    List<String> lines = lines(10);
+
+    appendWhileTheSinkIsBusy(appender, lines);
+
+    Assert.assertEquals(prepend("first", lines), written);
+    Assert.assertEquals(0, appender.getDroppedLines());
+    Assert.assertTrue(appender.getDelayedLines() > 0);
+  }
+
+  @Test
+  public void dropOldestDropsTheOldestBufferedLinesWhenTheBufferIsFull() throws InterruptedException {
+    AsyncLineAppender appender = new AsyncLineAppender(this::slowSink, 4, OverflowPolicy.DROP_OLDEST);
+
+    appendWhileTheSinkIsBusy(appender, lines(10));
+
+    Assert.assertEquals(Arrays.asList("first", "line 6", "line 7", "line 8", "line 9"), written);
+    Assert.assertEquals(6, appender.getDroppedLines());
+    Assert.assertEquals(0, appender.getDelayedLines());
+  }
+
+  @Test
+  public void summarizeDropsNewLinesWhenTheBufferIsFullAndWritesHowManyWereDropped() throws InterruptedException {
+    AsyncLineAppender appender = new AsyncLineAppender(this::slowSink, 4, OverflowPolicy.SUMMARIZE);
+
+    appendWhileTheSinkIsBusy(appender, lines(10));
+
+    Assert.assertEquals(Arrays.asList("first", "line 0", "line 1", "line 2", "line 3",
+        "[6 line(s) dropped; the output was produced faster than it could be written]"), written);
+    Assert.assertEquals(6, appender.getDroppedLines());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void acceptThrowsIllegalStateExceptionOnceTheAppenderIsClosed() throws InterruptedException {
+    AsyncLineAppender appender = new AsyncLineAppender(written::addAll, AsyncLineAppender.DEFAULT_CAPACITY, OverflowPolicy.BLOCK);
+    appender.close();
+    appender.accept("line");
+  }
+
+  @Test
+  public void overflowPolicyIsNamedCaseInsensitivelyWithDashesOrUnderscores() {
+    Assert.assertEquals(OverflowPolicy.DROP_OLDEST, OverflowPolicy.forName("drop-oldest"));
+    Assert.assertEquals(OverflowPolicy.SUMMARIZE, OverflowPolicy.forName(" Summarize "));
+  }
+
+  /**
+   * Appends a line the sink blocks on, appends the lines while it's blocked, then releases it and closes the appender.
+   */
+  private void appendWhileTheSinkIsBusy(AsyncLineAppender appender, List<String> lines) throws InterruptedException {
+    appender.accept("first");
+    Assert.assertTrue(sinkEntered.await(10, TimeUnit.SECONDS));
+    Thread producer = new Thread(() -> lines.forEach(appender));
+    producer.start();
+    //a blocked producer can't finish until the sink is released
+    producer.join(500);
+    sinkReleased.countDown();
+    producer.join();
+    appender.close();
+  }
+
+  private void slowSink(List<String> batch) {
+    sinkEntered.countDown();
+    try {
+      sinkReleased.await(10, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    written.addAll(batch);
+  }
+
+  private static List<String> lines(int count) {
+    return IntStream.range(0, count).mapToObj(i -> "line " + i).collect(Collectors.toList());
+  }
+
+  private static List<String> prepend(String line, List<String> lines) {
+    List<String> result = new ArrayList<>(Collections.singletonList(line));
+    result.addAll(lines);
+    return result;
+  }
+}
@@ -8,6 +8,9 @@ import java.io.IOException;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * Tests for CommandLine.
@@ -38,4 +41,64 @@ public class CommandLineTest {
     Executable commandLine = new CommandLine(directory);
     String output = commandLine.execute(errorCommand);
   }
+
+  @Test
+  public void executeWithAnOutputConsumerStreamsEachLineOfTheOutputToIt() throws IOException, InterruptedException {
+    List<String> lines = new ArrayList<>();
+    Executable commandLine = new CommandLine(directory, null, lines::add);
+
+    Assert.assertEquals("", commandLine.execute("echo first; echo; echo last"));
+    Assert.assertEquals(Arrays.asList("first", "", "last"), lines);
+
+    //more lines than the queue between the pump and the consumer holds
+    lines.clear();
+    commandLine.execute("seq 1 5000");
+    Assert.assertEquals(5000, lines.size());
+    Assert.assertEquals("5000", lines.get(4999));
+  }
+
+  @Test
+  public void executeWithAnOutputConsumerThrowsTheErrorOutputIfTheCommandFails() throws InterruptedException {
+    List<String> lines = new ArrayList<>();
+    Executable commandLine = new CommandLine(directory, null, lines::add);
+
+    try {
+      commandLine.execute("echo planning; echo 'Error: invalid' >&2; exit 1");
+      Assert.fail("IOException expected");
+    } catch (IOException e) {
+      Assert.assertTrue(e.getMessage().contains("Error: invalid"));
+    }
+    Assert.assertEquals(Arrays.asList("planning"), lines);
+  }
+
+  @Test
+  public void executeWithAnOutputConsumerStopsTheCommandWhenItTimesOut() throws InterruptedException {
+    List<String> lines = new ArrayList<>();
+    Executable commandLine = new CommandLine(directory, null, lines::add);
+    long start = System.currentTimeMillis();
+
+    try {
+      commandLine.execute("echo started; sleep 10", 500);
+      Assert.fail("IOException expected");
+    } catch (IOException e) {
+      Assert.assertEquals("Timed out after 500ms", e.getMessage());
+    }
+    Assert.assertEquals(Arrays.asList("started"), lines);
+    Assert.assertTrue(System.currentTimeMillis() - start < 5000);
+  }
+
+  @Test
+  public void executeWithAnOutputConsumerAndNoTimeoutWaitsForTheOutputToEnd() throws IOException, InterruptedException {
+    List<String> lines = new ArrayList<>();
+    Executable commandLine = new CommandLine(directory, null, lines::add);
+    int defaultTimeout = CommandLine.DEFAULT_TIMEOUT;
+    CommandLine.DEFAULT_TIMEOUT = 200;
+
+    try {
+      Assert.assertEquals("", commandLine.execute("echo started; sleep 1; echo done"));
+    } finally {
+      CommandLine.DEFAULT_TIMEOUT = defaultTimeout;
+    }
+    Assert.assertEquals(Arrays.asList("started", "done"), lines);
+  }
 }
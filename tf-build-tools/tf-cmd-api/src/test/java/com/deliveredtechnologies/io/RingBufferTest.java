@@ -0,0 +1,79 @@
+package com.deliveredtechnologies.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for RingBuffer.
+ */
+public class RingBufferTest {
+
+  @Test
+  public void ringBufferIsFifoAndBoundedByItsCapacityRoundedUpToAPowerOfTwo() {
+    RingBuffer<Integer> buffer = new RingBuffer<>(3);
+    Assert.assertEquals(4, buffer.capacity());
+    Assert.assertTrue(buffer.isEmpty());
+
+    for (int lap = 0; lap < 3; lap++) {
+      for (int i = 0; i < 4; i++) {
+        Assert.assertTrue(buffer.offer(i));
+      }
+      Assert.assertFalse(buffer.offer(4));
+      for (int i = 0; i < 4; i++) {
+        Assert.assertEquals(Integer.valueOf(i), buffer.poll());
+      }
+      Assert.assertNull(buffer.poll());
+    }
+  }
+
+  @Test
+  public void ringBufferDeliversEveryElementOnceToConcurrentConsumers() throws Exception {
+    int producers = 4;
+    int elementsPerProducer = 50000;
+    RingBuffer<Integer> buffer = new RingBuffer<>(64);
+    ExecutorService executor = Executors.newFixedThreadPool(producers * 2);
+    AtomicInteger consumed = new AtomicInteger();
+    BitSet seen = new BitSet(producers * elementsPerProducer);
+    try {
+      List<CompletableFuture<Void>> futures = new ArrayList<>();
+      for (int producer = 0; producer < producers; producer++) {
+        int first = producer * elementsPerProducer;
+        futures.add(CompletableFuture.runAsync(() -> {
+          for (int element = first; element < first + elementsPerProducer; element++) {
+            while (!buffer.offer(element)) {
+              Thread.yield();
+            }
+          }
+        }, executor));
+        futures.add(CompletableFuture.runAsync(() -> {
+          while (consumed.get() < producers * elementsPerProducer) {
+            Integer element = buffer.poll();
+            if (element == null) {
+              Thread.yield();
+              continue;
+            }
+            synchronized (seen) {
+              Assert.assertFalse(seen.get(element));
+              seen.set(element);
+            }
+            consumed.incrementAndGet();
+          }
+        }, executor));
+      }
+      CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(60, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+    Assert.assertEquals(producers * elementsPerProducer, seen.cardinality());
+    Assert.assertTrue(buffer.isEmpty());
+  }
+}
@@ -0,0 +1,67 @@
+package com.deliveredtechnologies.terraform;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Set;
+
+/**
+ * Tests for TerraformModuleScanner.
+ */
+public class TerraformModuleScannerTest {
+
+  @Test
+  public void getModuleSourcesGetsTheSourcesOfModuleBlocks() {
+    String hcl = "module \"s3\" {\n"
+        + "  source = \"../../.tfmodules/s3\"\n"
+        + "  tags = { source = \"not-a-module\" }\n"
+        + "}\n"
+        + "module \"vpc\" { source=\"git::https://example.com/vpc.git?ref=v1.0\" }\n"
+        + "resource \"aws_s3_bucket\" \"bucket\" {\n"
+        + "  source = \"../not/a/module\"\n"
+        + "}\n";
+
+    Set<String> sources = TerraformModuleScanner.getModuleSources(hcl);
+
+    Assert.assertEquals(Arrays.asList("../../.tfmodules/s3", "git::https://example.com/vpc.git?ref=v1.0"), Arrays.asList(sources.toArray()));
+  }
+
+  @Test
+  public void getModuleSourcesSkipsCommentsHeredocsAndTemplates() {
+    String hcl = "# module \"commented\" { source = \"../commented\" }\n"
+        + "// module \"commented2\" { source = \"../commented2\" }\n"
+        + "/* module \"commented3\" {\n source = \"../commented3\"\n} */\n"
+        + "locals {\n"
+        + "  policy = <<-EOF\n"
+        + "    module \"heredoc\" {\n"
+        + "      source = \"../heredoc\"\n"
+        + "    }\n"
+        + "  EOF\n"
+        + "  name = \"${var.prefix == \"}\" ? \"a\" : \"b\"}-name\"\n"
+        + "}\n"
+        + "module \"real\" {\n"
+        + "  count  = var.enabled == true ? 1 : 0\n"
+        + "  source = \"./modules/real\"\n"
+        + "}\n";
+
+    Set<String> sources = TerraformModuleScanner.getModuleSources(hcl);
+
+    Assert.assertEquals(1, sources.size());
+    Assert.assertTrue(sources.contains("./modules/real"));
+  }
+
+  @Test
+  public void getModuleSourcesScansTheTerraformFilesInaDirectory() throws IOException {
+    Path moduleDir = Paths.get("src", "test", "resources", "tf_initialized", "root");
+
+    Set<String> sources = TerraformModuleScanner.getModuleSources(moduleDir);
+
+    Assert.assertEquals(1, sources.size());
+    Assert.assertTrue(sources.contains("../../tfmodules/test-module"));
+    Assert.assertTrue(TerraformModuleScanner.getModuleSources(moduleDir.resolve("missing")).isEmpty());
+  }
+}
@@ -0,0 +1,48 @@
+package com.deliveredtechnologies.terraform;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tests for TerraformOutputConsumer.
+ */
+public class TerraformOutputConsumerTest {
+
+  @Test
+  public void linesArePassedOnWithThePrefix() {
+    List<String> lines = new ArrayList<>();
+    TerraformOutputConsumer consumer = new TerraformOutputConsumer(lines::add, "[network] ", 0);
+
+    consumer.accept("aws_vpc.main: Creating...");
+    consumer.accept("aws_vpc.main: Still creating... [10s elapsed]");
+    consumer.accept("aws_vpc.main: Still creating... [20s elapsed]");
+
+    Assert.assertEquals(Arrays.asList("[network] aws_vpc.main: Creating...", "[network] aws_vpc.main: Still creating... [10s elapsed]",
+        "[network] aws_vpc.main: Still creating... [20s elapsed]"), lines);
+  }
+
+  @Test
+  public void progressLinesOfEachResourceArePassedOnOncePerInterval() {
+    List<String> lines = new ArrayList<>();
+    AtomicLong clock = new AtomicLong();
+    TerraformOutputConsumer consumer = new TerraformOutputConsumer(lines::add, null, 30000, clock::get);
+
+    consumer.accept("aws_instance.web: Still creating... [10s elapsed]");
+    consumer.accept("\u001B[0m\u001B[1maws_instance.db: Still creating... [10s elapsed]\u001B[0m\u001B[0m");
+    clock.set(10000);
+    consumer.accept("aws_instance.web: Still creating... [20s elapsed]");
+    consumer.accept("aws_instance.web: Creation complete after 25s [id=i-1234]");
+    clock.set(30000);
+    consumer.accept("\u001B[0m\u001B[1maws_instance.db: Still creating... [40s elapsed]\u001B[0m\u001B[0m");
+
+    Assert.assertEquals(Arrays.asList("aws_instance.web: Still creating... [10s elapsed]",
+        "\u001B[0m\u001B[1maws_instance.db: Still creating... [10s elapsed]\u001B[0m\u001B[0m",
+        "aws_instance.web: Creation complete after 25s [id=i-1234]",
+        "\u001B[0m\u001B[1maws_instance.db: Still creating... [40s elapsed]\u001B[0m\u001B[0m"), lines);
+  }
+}
@@ -38,4 +38,23 @@ public class TerraformUtilsTest {
       FileUtils.forceDelete(Paths.get("src", "main", "tf").toFile());
     }
   }
+
+  @Test
+  public void pathsAreResolvedRelativeToTheBasedir() throws IOException, TerraformException {
+    Path basedir = Paths.get("target", "basedir-test").toAbsolutePath();
+    try {
+      FileUtils.copyDirectory(
+          Paths.get("src", "test", "resources", "tf_initialized", "root").toFile(),
+          basedir.resolve(Paths.get("src", "main", "tf", "test")).toFile()
+      );
+      Path tfRootModulePath = basedir.resolve(Paths.get("src", "main", "tf", "test"));
+      Assert.assertEquals(basedir.resolve(Paths.get("src", "main", ".tfmodules")), TerraformUtils.getDefaultTfModulesDir(basedir));
+      Assert.assertEquals(tfRootModulePath, TerraformUtils.getDefaultTerraformRootModuleDir(basedir));
+      Assert.assertEquals(tfRootModulePath, TerraformUtils.getTerraformRootModuleDir(basedir, "test"));
+      Assert.assertEquals(tfRootModulePath, TerraformUtils.getTerraformRootModuleDir(basedir, "src/main/tf/test"));
+      Assert.assertFalse(Paths.get("src", "main", "tf").toFile().exists());
+    } finally {
+      FileUtils.forceDelete(basedir.toFile());
+    }
+  }
 }
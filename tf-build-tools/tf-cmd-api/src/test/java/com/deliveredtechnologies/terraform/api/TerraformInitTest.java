@@ -1,9 +1,11 @@
 package com.deliveredtechnologies.terraform.api;
 
+import com.deliveredtechnologies.io.CommandLine;
 import com.deliveredtechnologies.io.Executable;
 import com.deliveredtechnologies.terraform.TerraformCommand;
 import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformUtils;
 import com.deliveredtechnologies.terraform.api.TerraformInit.TerraformInitParam;
 
 import org.apache.commons.io.FileUtils;
@@ -14,6 +16,8 @@ import org.junit.Test;
 import org.mockito.Mockito;
 
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Properties;
 
@@ -69,6 +73,24 @@ public class TerraformInitTest {
     Mockito.verify(commandLine, Mockito.times(1)).execute(String.format("terraform init -plugin-dir=somepluginpath -verify-plugins=false -get-plugins=false -backend-config=\"bucket=mybucket\" -backend-config=\"key=/path/to/my/key\" -backend-config=\"region=us-east-1\" -no-color ", pluginDir));
   }
 
+  @Test
+  public void executeUsesTheVendoredProvidersAsThePluginDirIfTheyExist() throws IOException, InterruptedException, TerraformException {
+    Path rootModuleDir = Paths.get("src", "main", "tf", "test");
+    Files.createDirectories(rootModuleDir.resolve(TerraformUtils.getVendoredProvidersDir()));
+    CommandLine commandLine = Mockito.mock(CommandLine.class);
+    Mockito.when(commandLine.getDirectory()).thenReturn(rootModuleDir);
+    TerraformOperation<String> terraformInit = new TerraformInit(new TerraformCommandLineDecorator(TerraformCommand.INIT, commandLine));
+
+    terraformInit.execute(new Properties());
+    Properties properties = new Properties();
+    properties.put(TerraformInitParam.pluginDir.property, "somepluginpath");
+    terraformInit.execute(properties);
+
+    Mockito.verify(commandLine, Mockito.times(1)).execute(
+        String.format("terraform init -plugin-dir=%1$s -no-color ", TerraformUtils.getVendoredProvidersDir()));
+    Mockito.verify(commandLine, Mockito.times(1)).execute("terraform init -plugin-dir=somepluginpath -no-color ");
+  }
+
   @Test(expected = TerraformException.class)
   public void executeThrowsTerraformExceptionOnError() throws IOException, InterruptedException, TerraformException {
     String successMessage = "terraform init success!";
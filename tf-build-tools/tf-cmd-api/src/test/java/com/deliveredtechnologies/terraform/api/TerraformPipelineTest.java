@@ -0,0 +1,139 @@
+package com.deliveredtechnologies.terraform.api;
+
+import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.api.TerraformPipeline.TerraformPipelineParam;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link TerraformPipeline}.
+ */
+public class TerraformPipelineTest {
+
+  private Logger log;
+  private Properties properties;
+  private List<String> stagesRun;
+
+  /**
+   * Sets up mocks and properties.
+   */
+  @Before
+  public void setup() {
+    log = Mockito.mock(Logger.class);
+    properties = new Properties();
+    stagesRun = Collections.synchronizedList(new ArrayList<>());
+  }
+
+  @Test
+  public void pipelineRunsStagesAfterTheStagesTheyDependOnAndReportsTheirTimings() throws TerraformException {
+    TerraformPipeline pipeline = new TerraformPipeline(log)
+        .addStage("get", stage("get"))
+        .addStage("init", stage("init"), "get")
+        .addStage("plan", stage("plan"), "init")
+        .addStage("apply", stage("apply"), "plan");
+
+    String response = pipeline.execute(properties);
+
+    Assert.assertEquals(Arrays.asList("get", "init", "plan", "apply"), stagesRun);
+    Assert.assertTrue(response.startsWith("get\ninit\nplan\napply\nPipeline stage timings:"));
+    Assert.assertEquals(Arrays.asList("get", "init", "plan", "apply", "total"), new ArrayList<>(pipeline.getTimings().keySet()));
+    Mockito.verify(log, Mockito.times(1)).info(Mockito.startsWith("Pipeline stage timings:"));
+  }
+
+  @Test
+  public void pipelineRunsIndependentStagesConcurrently() throws TerraformException {
+    //each stage waits for the other to start, so they only complete if they run concurrently
+    CountDownLatch latch = new CountDownLatch(2);
+    TerraformOperation<String> concurrentStage = properties -> {
+      latch.countDown();
+      try {
+        return latch.await(10, TimeUnit.SECONDS) ? "concurrent\n" : "sequential\n";
+      } catch (InterruptedException e) {
+        throw new TerraformException(e);
+      }
+    };
+    TerraformPipeline pipeline = new TerraformPipeline(log)
+        .addStage("get", stage("get"))
+        .addStage("network:init", concurrentStage, "get")
+        .addStage("app:init", concurrentStage, "get");
+
+    Assert.assertTrue(pipeline.execute(properties).startsWith("get\nconcurrent\nconcurrent\n"));
+  }
+
+  @Test
+  public void pipelineOnlyRunsTheStagesSpecified() throws TerraformException {
+    properties.put(TerraformPipelineParam.stages.toString(), "get, plan");
+    TerraformPipeline pipeline = new TerraformPipeline(log)
+        .addStage("get", stage("get"))
+        .addStage("init", stage("init"), "get")
+        .addStage("plan", stage("plan"), "init");
+
+    pipeline.execute(properties);
+
+    Assert.assertEquals(Arrays.asList("get", "plan"), stagesRun);
+  }
+
+  @Test
+  public void failedStageStopsTheStagesThatDependOnIt() {
+    TerraformPipeline pipeline = new TerraformPipeline(log)
+        .addStage("get", stage("get"))
+        .addStage("init", properties -> {
+          throw new TerraformException("boom!");
+        }, "get")
+        .addStage("plan", stage("plan"), "init")
+        .addStage("other", stage("other"), "get");
+
+    try {
+      pipeline.execute(properties);
+      Assert.fail("TerraformException expected");
+    } catch (TerraformException e) {
+      Assert.assertEquals("boom!", e.getMessage());
+    }
+    Assert.assertFalse(stagesRun.contains("plan"));
+    Assert.assertTrue(stagesRun.contains("other"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addStageThrowsIllegalArgumentExceptionIfItDependsOnAnUnknownStage() {
+    new TerraformPipeline(log).addStage("init", stage("init"), "get");
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void addStageThrowsIllegalArgumentExceptionIfTheStageIsAlreadyInThePipeline() {
+    new TerraformPipeline(log).addStage("init", stage("init")).addStage("init", stage("init"));
+  }
+
+  @Test
+  public void addRootModuleAddsTheInitPlanAndApplyStagesOfTheRootModule() throws IOException, TerraformException {
+    properties.put(TerraformPipelineParam.stages.toString(), "deployed");
+    TerraformPipeline pipeline = new TerraformPipeline(log)
+        .addStage("get", stage("get"))
+        .addRootModule("root:", "src/test/resources/tf_initialized/root", Paths.get(""), "get")
+        .addStage("deployed", stage("deployed"), "root:apply");
+
+    pipeline.execute(properties);
+
+    Assert.assertEquals(Arrays.asList("deployed"), stagesRun);
+  }
+
+  private TerraformOperation<String> stage(String name) {
+    return properties -> {
+      stagesRun.add(name);
+      return name + "\n";
+    };
+  }
+}
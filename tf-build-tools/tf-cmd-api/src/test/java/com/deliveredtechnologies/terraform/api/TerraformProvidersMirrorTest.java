@@ -0,0 +1,62 @@
+package com.deliveredtechnologies.terraform.api;
+
+import com.deliveredtechnologies.io.Executable;
+import com.deliveredtechnologies.terraform.TerraformCommand;
+import com.deliveredtechnologies.terraform.TerraformCommandLineDecorator;
+import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.api.TerraformProvidersMirror.TerraformProvidersMirrorParam;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.util.Properties;
+
+/**
+ * Tests for {@link TerraformProvidersMirror}.
+ */
+public class TerraformProvidersMirrorTest {
+
+  private final String successResponse = "Success!";
+  private Executable commandLine;
+  private Properties properties;
+  private Executable terraform;
+
+  /**
+   * Sets up mocks and properties.
+   */
+  @Before
+  public void setup() {
+    commandLine = Mockito.mock(Executable.class);
+    properties = new Properties();
+    terraform = new TerraformCommandLineDecorator(TerraformCommand.PROVIDERS_MIRROR, commandLine);
+  }
+
+  @Test
+  public void terraformProvidersMirrorCallsProvidersMirrorCommandWithTheTargetDirAndPlatforms() throws IOException, InterruptedException, TerraformException {
+    Mockito.when(commandLine.execute(Mockito.anyString())).thenReturn(successResponse);
+    properties.put(TerraformProvidersMirrorParam.targetDir.property, "/tmp/providers");
+    properties.put(TerraformProvidersMirrorParam.platform.property, "linux_amd64, darwin_amd64");
+
+    Assert.assertEquals(successResponse, new TerraformProvidersMirror(terraform).execute(properties));
+    Mockito.verify(commandLine, Mockito.times(1))
+        .execute("terraform providers mirror -platform=linux_amd64 -platform=darwin_amd64 \"/tmp/providers\"");
+  }
+
+  @Test
+  public void terraformProvidersMirrorCallsProvidersMirrorCommandWithTimeout() throws IOException, InterruptedException, TerraformException {
+    Mockito.when(commandLine.execute(Mockito.anyString(), Mockito.anyInt())).thenReturn(successResponse);
+    properties.put(TerraformProvidersMirrorParam.targetDir.property, "providers");
+    properties.put(TerraformProvidersMirrorParam.timeout.property, "1000");
+
+    Assert.assertEquals(successResponse, new TerraformProvidersMirror(terraform).execute(properties));
+    Mockito.verify(commandLine, Mockito.times(1)).execute("terraform providers mirror \"providers\"", 1000);
+  }
+
+  @Test(expected = TerraformException.class)
+  public void terraformProvidersMirrorThrowsTerraformExceptionWithoutaTargetDir() throws TerraformException {
+    new TerraformProvidersMirror(terraform).execute(properties);
+  }
+}
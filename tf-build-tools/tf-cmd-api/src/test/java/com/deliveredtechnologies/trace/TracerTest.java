@@ -0,0 +1,124 @@
+package com.deliveredtechnologies.trace;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Tests for Tracer.
+ */
+public class TracerTest {
+
+  @Test
+  public void disabledTracerDoesNotRecordSpans() {
+    Tracer tracer = new Tracer();
+
+    try (Span span = tracer.start("stage", "plan")) {
+      Assert.assertEquals(0, span.getDuration());
+    }
+
+    Assert.assertTrue(tracer.getSpans().isEmpty());
+  }
+
+  @Test
+  public void closedSpansAreRecordedOnceAndSummarizedByCategory() throws InterruptedException {
+    Tracer tracer = new Tracer();
+    tracer.setEnabled(true);
+
+    try (Span goal = tracer.start("goal", "tf:package")) {
+      Span span = tracer.start("compress", "main.tf");
+      span.close();
+      span.close();
+      try (Span slowSpan = tracer.start("compress", "modules/network/main.tf")) {
+        Thread.sleep(20);
+      }
+    }
+
+    List<Span> spans = tracer.getSpans();
+    Assert.assertEquals(3, spans.size());
+    Assert.assertEquals("tf:package", spans.get(0).getName());
+    Assert.assertTrue(spans.get(0).getDuration() >= spans.get(2).getDuration());
+    String[] summary = tracer.getSummary().split("\\R");
+    Assert.assertEquals("Build timings:", summary[0]);
+    Assert.assertTrue(summary[2].matches("\\s+goal\\s+1\\s.*tf:package"));
+    Assert.assertTrue(summary[3].matches("\\s+compress\\s+2\\s.*modules/network/main.tf"));
+  }
+
+  @Test
+  public void writeChromeTraceWritesTheSpansAsCompleteEventsOfTheirThreads() throws IOException {
+    Tracer tracer = new Tracer();
+    tracer.setEnabled(true);
+    tracer.start("expand", "network \"v1\"").close();
+    Path traceFile = Paths.get("target", "trace-test", "tf-trace.json");
+
+    try {
+      tracer.writeChromeTrace(traceFile);
+
+      String trace = new String(Files.readAllBytes(traceFile), StandardCharsets.UTF_8);
+      Assert.assertTrue(trace.startsWith("{\"displayTimeUnit\":\"ms\",\"traceEvents\":["));
+      Assert.assertTrue(trace.contains(String.format("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%1$d,",
+          Thread.currentThread().getId())));
+      Assert.assertTrue(trace.contains("{\"name\":\"network \\\"v1\\\"\",\"cat\":\"expand\",\"ph\":\"X\",\"ts\":"));
+      Assert.assertTrue(trace.endsWith("]}\n"));
+    } finally {
+      FileUtils.deleteQuietly(traceFile.getParent().toFile());
+    }
+  }
+
+  @Test
+  public void goalsAreTracedUntilTheLastGoalEndsAndANewBuildDiscardsThePreviousBuildsSpans() {
+    Tracer tracer = new Tracer();
+    Object build = new Object();
+
+    tracer.beginGoal(build, "network");
+    tracer.beginGoal(build, "app");
+    tracer.start("goal", "tf:plan").close();
+    tracer.endGoal();
+    Assert.assertTrue(tracer.isEnabled());
+    tracer.endGoal();
+    Assert.assertFalse(tracer.isEnabled());
+    Assert.assertEquals(1, tracer.getSpans().size());
+
+    tracer.beginGoal(build, "network");
+    tracer.endGoal();
+    Assert.assertEquals(1, tracer.getSpans().size());
+    tracer.beginGoal(new Object(), "network");
+    tracer.endGoal();
+    Assert.assertTrue(tracer.getSpans().isEmpty());
+  }
+
+  @Test
+  public void spansAreRecordedWithTheScopeOfTheGoalThatStartedThemOrItsThreads() throws InterruptedException {
+    Tracer tracer = new Tracer();
+    Object build = new Object();
+    tracer.beginGoal(build, "network");
+    Thread thread = new Thread(() -> tracer.start("compress", "main.tf").close());
+
+    try {
+      tracer.start("goal", "tf:package").close();
+      thread.start();
+      thread.join();
+    } finally {
+      tracer.endGoal();
+    }
+    tracer.beginGoal(build, "app");
+    try {
+      tracer.start("goal", "tf:plan").close();
+    } finally {
+      tracer.endGoal();
+    }
+
+    Assert.assertEquals(2, tracer.getSpans("network").size());
+    Assert.assertEquals("main.tf", tracer.getSpans("network").get(1).getName());
+    Assert.assertEquals(1, tracer.getSpans("app").size());
+    Assert.assertTrue(tracer.getSummary("app").contains("tf:plan"));
+    Assert.assertFalse(tracer.getSummary("app").contains("tf:package"));
+  }
+}
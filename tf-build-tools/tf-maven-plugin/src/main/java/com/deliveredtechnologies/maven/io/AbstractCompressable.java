@@ -0,0 +1,174 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Base class for compressed files that collects the entries to be written.
+ * <br>
+ * Files and directories added with addToCompressedFile are walked recursively when the file is compressed.
+ * Entries are written sorted by name with a fixed timestamp, normalized permissions and a fixed compression level,
+ * so that compressing the same contents always creates the same bytes.
+ * <br>
+ * The SHA-256, SHA-1 and MD5 of the compressed file are computed as it's written and saved to sidecar files
+ * (e.g. {filename}.sha256); optionally, a manifest of the SHA-256 of each entry is added as the last entry.
+ */
+public abstract class AbstractCompressable implements Compressable {
+  protected static final LocalDateTime ENTRY_DATE_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+  protected static final int COMPRESSION_LEVEL = 6;
+  protected static final int DIRECTORY_MODE = 040755;
+  protected static final int EXECUTABLE_FILE_MODE = 0100755;
+  protected static final int FILE_MODE = 0100644;
+  public static final String MANIFEST_NAME = "META-INF/SHA256SUMS";
+  private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+
+  protected final String filename;
+  private final Set<Path> filesToCompress = new LinkedHashSet<>();
+  private final Map<String, CompressableEntry> entries = new LinkedHashMap<>();
+  private boolean manifest;
+  private ChecksumOutputStream checksumOutputStream;
+
+  protected AbstractCompressable(String filename) {
+    this.filename = filename;
+  }
+
+  @Override
+  public boolean addToCompressedFile(Path artifactToAdd) {
+    return filesToCompress.add(artifactToAdd);
+  }
+
+  @Override
+  public boolean addEntry(String name, Path file) {
+    return addEntry(CompressableEntry.of(name, file));
+  }
+
+  @Override
+  public boolean addEntry(String name, byte[] contents) {
+    return addEntry(CompressableEntry.of(name, contents));
+  }
+
+  private boolean addEntry(CompressableEntry entry) {
+    return entries.putIfAbsent(entry.getName(), entry) == null;
+  }
+
+  /**
+   * Sets whether a manifest of the SHA-256 of each file entry ({@value #MANIFEST_NAME}, in the format of sha256sum)
+   * is added as the last entry of the compressed file.
+   * @param manifest  true if the manifest is added
+   */
+  public void setManifest(boolean manifest) {
+    this.manifest = manifest;
+  }
+
+  public String getFilename() {
+    return filename;
+  }
+
+  protected boolean hasManifest() {
+    return manifest;
+  }
+
+  /**
+   * Gets the checksums of the compressed file, which are computed as it's written.
+   * @return  the hex encoded SHA-256, SHA-1 and MD5 keyed by algorithm, or empty if the file hasn't been compressed
+   */
+  public Map<String, String> getChecksums() {
+    return checksumOutputStream == null ? new LinkedHashMap<>() : checksumOutputStream.getChecksums();
+  }
+
+  /**
+   * Opens the compressed file for writing; the checksums of the bytes written are computed as they're written.
+   * @return  the OutputStream; the compressed file is complete once it's closed
+   * @throws IOException
+   */
+  protected OutputStream newOutputStream() throws IOException {
+    checksumOutputStream = new ChecksumOutputStream(
+        new BufferedOutputStream(new FileOutputStream(filename), OUTPUT_BUFFER_SIZE), Checksums.ALGORITHMS);
+    return checksumOutputStream;
+  }
+
+  /**
+   * Writes the checksums of the compressed file to their sidecar files, once the compressed file is closed.
+   * @throws IOException
+   */
+  protected void writeChecksums() throws IOException {
+    Checksums.writeSidecarFiles(Paths.get(filename), getChecksums());
+  }
+
+  /**
+   * Creates the manifest entry's contents.
+   * @param entryHashes the hex encoded SHA-256 of each file entry keyed by entry name, in entry order
+   * @return            the manifest, in the format of sha256sum
+   */
+  protected static byte[] createManifest(Map<String, String> entryHashes) {
+    StringBuilder contents = new StringBuilder();
+    entryHashes.forEach((name, hash) -> contents.append(hash).append("  ").append(name).append('\n'));
+    return contents.toString().getBytes(StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Gets the entries to be written to the compressed file.
+   * @return  the entries of the files added (walked recursively) and the entries added directly, sorted by name
+   */
+  protected List<CompressableEntry> getEntries() {
+    Map<String, CompressableEntry> result = new TreeMap<>();
+    for (Path srcPath : filesToCompress) {
+      addEntries(result, getEntryName(srcPath), srcPath);
+    }
+    entries.values().forEach(entry -> result.putIfAbsent(entry.getName(), entry));
+    //the manifest is always written last, describing the entries before it
+    if (manifest) result.remove(MANIFEST_NAME);
+    return new ArrayList<>(result.values());
+  }
+
+  /**
+   * Gets the normalized Unix mode of an entry.
+   * @param entry the entry
+   * @return      0755 for directories and executable files, otherwise 0644 (with the file type bits)
+   */
+  protected static int getMode(CompressableEntry entry) {
+    return entry.isDirectory() ? DIRECTORY_MODE : (entry.isExecutable() ? EXECUTABLE_FILE_MODE : FILE_MODE);
+  }
+
+  /**
+   * Gets the name of the entry for a file or directory added with addToCompressedFile.
+   * @param srcPath the file or directory added
+   * @return        the name of the entry; children of a directory are named relative to it
+   */
+  protected String getEntryName(Path srcPath) {
+    return srcPath.toAbsolutePath().getFileName().toString();
+  }
+
+  private void addEntries(Map<String, CompressableEntry> result, String name, Path source) {
+    CompressableEntry entry = CompressableEntry.of(name, source);
+    result.putIfAbsent(entry.getName(), entry);
+    if (entry.isDirectory()) {
+      for (String childFilename : source.toFile().list()) {
+        addEntries(result, String.format("%1$s/%2$s", name, childFilename), source.resolve(childFilename));
+      }
+    }
+  }
+
+  /**
+   * Normalizes a path to an entry name that uses '/' as the separator.
+   * @param path  the relative path
+   * @return      the entry name
+   */
+  protected static String toEntryName(Path path) {
+    return path.toString().replace(File.separatorChar, '/');
+  }
+}
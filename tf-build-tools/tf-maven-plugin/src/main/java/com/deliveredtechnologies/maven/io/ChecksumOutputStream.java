@@ -0,0 +1,52 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An OutputStream that computes checksums (e.g. SHA-256, SHA-1 and MD5) of the bytes written through it, so that
+ * a file's checksums are known once it's written, without reading it again.
+ */
+public class ChecksumOutputStream extends FilterOutputStream {
+  private final Map<String, MessageDigest> digests = new LinkedHashMap<>();
+  private Map<String, String> checksums;
+
+  /**
+   * Instantiates ChecksumOutputStream.
+   * @param out         the OutputStream the bytes are written to
+   * @param algorithms  the MessageDigest algorithms of the checksums, e.g. SHA-256
+   */
+  public ChecksumOutputStream(OutputStream out, List<String> algorithms) {
+    super(out);
+    algorithms.forEach(algorithm -> digests.put(algorithm, Checksums.newDigest(algorithm)));
+  }
+
+  @Override
+  public void write(int value) throws IOException {
+    out.write(value);
+    digests.values().forEach(digest -> digest.update((byte)value));
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    out.write(bytes, offset, length);
+    digests.values().forEach(digest -> digest.update(bytes, offset, length));
+  }
+
+  /**
+   * Gets the checksums of the bytes written; nothing should be written after the checksums are computed.
+   * @return  the hex encoded checksums keyed by algorithm
+   */
+  public Map<String, String> getChecksums() {
+    if (checksums == null) {
+      checksums = new LinkedHashMap<>();
+      digests.forEach((algorithm, digest) -> checksums.put(algorithm, Checksums.toHex(digest.digest())));
+    }
+    return checksums;
+  }
+}
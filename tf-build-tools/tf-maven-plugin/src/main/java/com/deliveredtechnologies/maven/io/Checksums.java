@@ -0,0 +1,111 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Static utilities for the checksums of packages and their entries.
+ */
+public class Checksums {
+  public static final String SHA256 = "SHA-256";
+  public static final String SHA1 = "SHA-1";
+  public static final String MD5 = "MD5";
+  public static final List<String> ALGORITHMS = Arrays.asList(SHA256, SHA1, MD5);
+
+  private static final Map<String, String> EXTENSIONS = new LinkedHashMap<>();
+  private static final int BUFFER_SIZE = 8192;
+
+  static {
+    EXTENSIONS.put(SHA256, "sha256");
+    EXTENSIONS.put(SHA1, "sha1");
+    EXTENSIONS.put(MD5, "md5");
+  }
+
+  private Checksums() { }
+
+  /**
+   * Creates a MessageDigest for an algorithm that every Java platform supports (i.e. SHA-256, SHA-1 or MD5).
+   * @param algorithm the algorithm
+   * @return          the MessageDigest
+   */
+  public static MessageDigest newDigest(String algorithm) {
+    try {
+      return MessageDigest.getInstance(algorithm);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalArgumentException("Unsupported checksum algorithm " + algorithm, e);
+    }
+  }
+
+  /**
+   * Computes the SHA-256 of a stream, reading it to its end.
+   * @param inputStream the stream
+   * @return            the hex encoded SHA-256
+   * @throws IOException
+   */
+  public static String sha256(InputStream inputStream) throws IOException {
+    return checksum(inputStream, SHA256);
+  }
+
+  /**
+   * Computes a checksum of a stream, reading it to its end.
+   * @param inputStream the stream
+   * @param algorithm   the algorithm of the checksum, e.g. SHA-1
+   * @return            the hex encoded checksum
+   * @throws IOException
+   */
+  public static String checksum(InputStream inputStream, String algorithm) throws IOException {
+    MessageDigest digest = newDigest(algorithm);
+    byte[] buffer = new byte[BUFFER_SIZE];
+    int count;
+    while ((count = inputStream.read(buffer)) >= 0) {
+      digest.update(buffer, 0, count);
+    }
+    return toHex(digest.digest());
+  }
+
+  /**
+   * Hex encodes a digest.
+   * @param bytes the digest
+   * @return      the lowercase hex encoding
+   */
+  public static String toHex(byte[] bytes) {
+    StringBuilder hex = new StringBuilder(bytes.length * 2);
+    for (byte value : bytes) {
+      hex.append(Character.forDigit((value >> 4) & 0xf, 16)).append(Character.forDigit(value & 0xf, 16));
+    }
+    return hex.toString();
+  }
+
+  /**
+   * Gets the sidecar file of a checksum, e.g. {file}.sha256.
+   * @param file      the file the checksum is of
+   * @param algorithm the algorithm of the checksum
+   * @return          the Path of the sidecar file
+   */
+  public static Path getSidecarFile(Path file, String algorithm) {
+    return Paths.get(String.format("%1$s.%2$s", file, EXTENSIONS.getOrDefault(algorithm, algorithm.toLowerCase().replace("-", ""))));
+  }
+
+  /**
+   * Writes each checksum of a file to its sidecar file (e.g. {file}.sha256), in the format of sha256sum, sha1sum and md5sum.
+   * @param file      the file the checksums are of
+   * @param checksums the hex encoded checksums keyed by algorithm
+   * @throws IOException
+   */
+  public static void writeSidecarFiles(Path file, Map<String, String> checksums) throws IOException {
+    for (Map.Entry<String, String> checksum : checksums.entrySet()) {
+      Files.write(getSidecarFile(file, checksum.getKey()),
+          String.format("%1$s  %2$s%n", checksum.getValue(), file.getFileName()).getBytes(StandardCharsets.UTF_8));
+    }
+  }
+}
@@ -14,6 +14,22 @@ public interface Compressable {
    */
   public boolean addToCompressedFile(Path artifactToAdd);
 
+  /**
+   * Adds a single entry to the compressed file from a file; if the file is a directory, only a directory entry is added.
+   * @param name  the name of the entry in the compressed file, using '/' as the separator
+   * @param file  the file whose contents are added
+   * @return      true if successfully added, otherwise false (e.g. an entry with the same name was already added)
+   */
+  public boolean addEntry(String name, Path file);
+
+  /**
+   * Adds a single entry to the compressed file from bytes in memory.
+   * @param name      the name of the entry in the compressed file, using '/' as the separator
+   * @param contents  the contents of the entry
+   * @return          true if successfully added, otherwise false (e.g. an entry with the same name was already added)
+   */
+  public boolean addEntry(String name, byte[] contents);
+
   /**
    * Creates the compressed file.
    * @return  the Path pointing to the compressed file just created
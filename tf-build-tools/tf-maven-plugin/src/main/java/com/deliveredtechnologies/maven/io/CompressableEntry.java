@@ -0,0 +1,79 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * An entry to be written to a compressed file; its contents are either a file (or directory) or bytes in memory.
+ */
+public class CompressableEntry {
+  private final String name;
+  private final Optional<Path> file;
+  private final byte[] contents;
+
+  private CompressableEntry(String name, Path file, byte[] contents) {
+    this.name = name;
+    this.file = Optional.ofNullable(file);
+    this.contents = contents;
+  }
+
+  /**
+   * Creates an entry whose contents are read from a file; if the file is a directory, the entry is a directory entry.
+   * @param name  the name of the entry, using '/' as the separator
+   * @param file  the file or directory
+   * @return      the CompressableEntry
+   */
+  public static CompressableEntry of(String name, Path file) {
+    boolean isDirectory = file.toFile().isDirectory();
+    return new CompressableEntry(isDirectory && !name.endsWith("/") ? name + "/" : name, file, null);
+  }
+
+  /**
+   * Creates an entry whose contents are in memory.
+   * @param name      the name of the entry, using '/' as the separator
+   * @param contents  the contents of the entry
+   * @return          the CompressableEntry
+   */
+  public static CompressableEntry of(String name, byte[] contents) {
+    return new CompressableEntry(name, null, contents);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Optional<Path> getFile() {
+    return file;
+  }
+
+  public boolean isDirectory() {
+    return name.endsWith("/");
+  }
+
+  public boolean isExecutable() {
+    return file.map(path -> !isDirectory() && path.toFile().canExecute()).orElse(false);
+  }
+
+  public long getSize() {
+    if (isDirectory()) return 0;
+    return file.map(path -> path.toFile().length()).orElseGet(() -> (long)contents.length);
+  }
+
+  public long getLastModified() {
+    return file.map(path -> path.toFile().lastModified()).orElse(System.currentTimeMillis());
+  }
+
+  /**
+   * Opens the contents of the entry.
+   * @return  an InputStream of the contents; it's empty for a directory
+   * @throws IOException
+   */
+  public InputStream openStream() throws IOException {
+    if (isDirectory()) return new ByteArrayInputStream(new byte[0]);
+    return file.isPresent() ? Files.newInputStream(file.get()) : new ByteArrayInputStream(contents);
+  }
+}
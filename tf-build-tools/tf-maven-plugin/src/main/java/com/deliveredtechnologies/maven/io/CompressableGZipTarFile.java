@@ -1,30 +1,45 @@
 package com.deliveredtechnologies.maven.io;
 
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveOutputStream;
+import org.apache.commons.compress.archivers.tar.TarConstants;
 import org.apache.commons.io.IOUtils;
 
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Set;
-import java.util.zip.GZIPOutputStream;
 
 /**
- * Creates a Gzipped Tar File.
+ * Creates a Gzipped Tar File, or a tar file compressed with another CompressionCodec (e.g. tar.zst).
+ * <br>
+ * With more than one thread, the tar is gzipped in blocks that are compressed in parallel (see ParallelGZipOutputStream).
+ * <br>
+ * Optionally, files with identical contents (e.g. the same file in different versions of a module) are only written
+ * once; each duplicate is written as a hard link entry to the first file with the same contents. Only files that have
+ * the same size as another file are hashed to find duplicates.
  */
-public class CompressableGZipTarFile implements Compressable {
+public class CompressableGZipTarFile extends AbstractCompressable {
   private static int BUFFER_SIZE = 4096;
+  private static final Date ENTRY_TIME = Date.from(ENTRY_DATE_TIME.toInstant(ZoneOffset.UTC));
 
-  private Set<Path> filesToCompress = new HashSet<>();
-  private String filename;
   private Optional<Path> relativizeFrom = Optional.empty();
+  private int threads = 1;
+  private CompressionCodec codec = new GZipCodec();
+  private boolean deduplicate;
+  private int linkedEntryCount;
 
   /**
    * Instantiates CompressableGZipTarFile with a target filename using complete paths for all tar file entries.
@@ -40,43 +55,147 @@ public class CompressableGZipTarFile implements Compressable {
    * @param relativizeFrom  Path to relativize tar entries from
    */
   public CompressableGZipTarFile(String filename, Path relativizeFrom) {
-    this.filename = filename;
+    super(filename);
     this.relativizeFrom = Optional.ofNullable(relativizeFrom);
   }
 
+  /**
+   * Instantiates CompressableGZipTarFile with a target filename, a path to relativize entries from and the number of
+   * threads used to gzip the tar.
+   * @param filename        target/destination tar.gz filename
+   * @param relativizeFrom  Path to relativize tar entries from
+   * @param threads         the number of threads used to gzip the tar; 1 gzips it sequentially
+   */
+  public CompressableGZipTarFile(String filename, Path relativizeFrom, int threads) {
+    this(filename, relativizeFrom);
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * Instantiates CompressableGZipTarFile with a target filename, a path to relativize entries from, the number of
+   * threads used to compress the tar and the codec used to compress it.
+   * @param filename        target/destination tar filename, e.g. {name}.tar.zst for the zstd codec
+   * @param relativizeFrom  Path to relativize tar entries from
+   * @param threads         the number of threads used to compress the tar
+   * @param codec           the CompressionCodec used to compress the tar
+   */
+  public CompressableGZipTarFile(String filename, Path relativizeFrom, int threads, CompressionCodec codec) {
+    this(filename, relativizeFrom, threads);
+    this.codec = codec;
+  }
+
+  /**
+   * Sets whether files with identical contents are written once, with the duplicates written as hard link entries.
+   * @param deduplicate true if duplicate files are written as hard links
+   */
+  public void setDeduplicate(boolean deduplicate) {
+    this.deduplicate = deduplicate;
+  }
+
+  /**
+   * Gets the number of duplicate files written as hard link entries the last time the tar was created.
+   * @return  the number of hard link entries
+   */
+  public int getLinkedEntryCount() {
+    return linkedEntryCount;
+  }
+
   @Override
-  public boolean addToCompressedFile(Path artifactToAdd) {
-    return filesToCompress.add(artifactToAdd);
+  protected String getEntryName(Path srcPath) {
+    return toEntryName(relativizeFrom.map(path -> path.relativize(srcPath)).orElse(srcPath));
   }
 
   @Override
   public Path compress() throws IOException {
-    try (FileOutputStream fileOutputStream = new FileOutputStream(filename)) {
-      try (TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(new GZIPOutputStream(fileOutputStream))) {
-        tarArchiveOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
-        tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
-        for (Path srcPath : filesToCompress) {
-          compressFile(tarArchiveOutputStream, srcPath.getFileName().toString(), srcPath);
+    Map<String, String> entryHashes = new LinkedHashMap<>();
+    List<CompressableEntry> entries = getEntries();
+    Map<String, String> linkNames = deduplicate ? getLinkNames(entries) : new HashMap<>();
+    linkedEntryCount = 0;
+    try (TarArchiveOutputStream tarArchiveOutputStream = new TarArchiveOutputStream(codec.compress(newOutputStream(), threads))) {
+      tarArchiveOutputStream.setBigNumberMode(TarArchiveOutputStream.BIGNUMBER_STAR);
+      tarArchiveOutputStream.setLongFileMode(TarArchiveOutputStream.LONGFILE_GNU);
+      for (CompressableEntry entry : entries) {
+        String linkName = linkNames.get(entry.getName());
+        if (linkName != null) {
+          linkEntry(tarArchiveOutputStream, entry, linkName);
+          entryHashes.put(entry.getName(), entryHashes.get(linkName));
+          linkedEntryCount++;
+          continue;
         }
+        compressEntry(tarArchiveOutputStream, entry).ifPresent(hash -> entryHashes.put(entry.getName(), hash));
+      }
+      if (hasManifest()) {
+        compressEntry(tarArchiveOutputStream, CompressableEntry.of(MANIFEST_NAME, createManifest(entryHashes)));
       }
     }
+    writeChecksums();
     return Paths.get(filename);
   }
 
-  private void compressFile(TarArchiveOutputStream tarArchiveOutputStream, String filename, Path source) throws IOException {
-    File srcFile = source.toFile();
-    tarArchiveOutputStream.putArchiveEntry(new TarArchiveEntry(srcFile, relativizeFrom.map(path -> path.relativize(source)).orElse(source).toString()));
-    if (srcFile.isDirectory()) {
-      tarArchiveOutputStream.closeArchiveEntry();
-      for (File childFile : srcFile.listFiles()) {
-        String childFilename = childFile.getName();
-        compressFile(tarArchiveOutputStream, String.format("%1$s/%2$s", filename, childFilename), source.resolve(childFilename));
+  /**
+   * Finds the files whose contents are identical to a file before them (by entry name).
+   * @param entries the entries, sorted by name
+   * @return        the name of the first file with the same contents, keyed by the name of each duplicate file
+   * @throws IOException
+   */
+  private static Map<String, String> getLinkNames(List<CompressableEntry> entries) throws IOException {
+    //only files with the same size can be identical, so files with a unique size are never read to hash them;
+    //hard links share their mode, so files are only linked to files with the same mode
+    Map<String, List<CompressableEntry>> entriesBySize = new LinkedHashMap<>();
+    for (CompressableEntry entry : entries) {
+      if (entry.isDirectory() || entry.getSize() == 0) continue;
+      entriesBySize.computeIfAbsent(String.format("%1$d:%2$o", entry.getSize(), getMode(entry)), key -> new ArrayList<>()).add(entry);
+    }
+    Map<String, String> linkNames = new HashMap<>();
+    for (List<CompressableEntry> sameSizeEntries : entriesBySize.values()) {
+      if (sameSizeEntries.size() < 2) continue;
+      Map<String, String> namesByHash = new HashMap<>();
+      for (CompressableEntry entry : sameSizeEntries) {
+        String hash;
+        try (InputStream inputStream = entry.openStream()) {
+          hash = Checksums.sha256(inputStream);
+        }
+        String linkName = namesByHash.putIfAbsent(hash, entry.getName());
+        if (linkName != null) linkNames.put(entry.getName(), linkName);
       }
-      return;
     }
-    BufferedInputStream bis = new BufferedInputStream(new FileInputStream(srcFile));
-    IOUtils.copy(bis, tarArchiveOutputStream);
+    return linkNames;
+  }
+
+  private void linkEntry(TarArchiveOutputStream tarArchiveOutputStream, CompressableEntry entry, String linkName) throws IOException {
+    TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getName(), TarConstants.LF_LINK);
+    tarEntry.setLinkName(linkName);
+    setAttributes(tarEntry, entry);
+    tarArchiveOutputStream.putArchiveEntry(tarEntry);
     tarArchiveOutputStream.closeArchiveEntry();
-    bis.close();
+  }
+
+  private Optional<String> compressEntry(TarArchiveOutputStream tarArchiveOutputStream, CompressableEntry entry) throws IOException {
+    try (Span span = Tracer.getInstance().start("compress", entry.getName())) {
+      TarArchiveEntry tarEntry = new TarArchiveEntry(entry.getName());
+      tarEntry.setSize(entry.getSize());
+      setAttributes(tarEntry, entry);
+      tarArchiveOutputStream.putArchiveEntry(tarEntry);
+      Optional<String> hash = Optional.empty();
+      if (!entry.isDirectory()) {
+        MessageDigest digest = Checksums.newDigest(Checksums.SHA256);
+        try (InputStream inputStream = new DigestInputStream(entry.openStream(), digest)) {
+          IOUtils.copy(inputStream, tarArchiveOutputStream, BUFFER_SIZE);
+        }
+        hash = Optional.of(Checksums.toHex(digest.digest()));
+      }
+      tarArchiveOutputStream.closeArchiveEntry();
+      return hash;
+    }
+  }
+
+  private static void setAttributes(TarArchiveEntry tarEntry, CompressableEntry entry) {
+    tarEntry.setModTime(ENTRY_TIME);
+    //keep executable files (e.g. vendored providers) executable when the tar is expanded
+    tarEntry.setMode(getMode(entry));
+    tarEntry.setUserId(0);
+    tarEntry.setGroupId(0);
+    tarEntry.setUserName("");
+    tarEntry.setGroupName("");
   }
 }
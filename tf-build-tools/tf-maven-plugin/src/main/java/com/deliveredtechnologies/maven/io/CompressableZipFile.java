@@ -1,66 +1,344 @@
 package com.deliveredtechnologies.maven.io;
 
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.commons.compress.archivers.zip.ZipArchiveEntry;
+import org.apache.commons.compress.archivers.zip.ZipArchiveOutputStream;
+import org.apache.commons.compress.archivers.zip.ZipFile;
+import org.apache.commons.io.IOUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.HashSet;
-import java.util.Set;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 import java.util.zip.ZipEntry;
-import java.util.zip.ZipOutputStream;
 
 /**
  * Creates a ZIP file.
+ * <br>
+ * Entries are deflated concurrently (with more than one thread) and written to the ZIP file as raw entries in
+ * name order, so the ZIP file is the same no matter how many threads are used. Entries are buffered in memory while
+ * they wait to be written, unless they are large; large entries are deflated to temporary files.
+ * <br>
+ * Entries the CompressionCodec doesn't compress (e.g. files that are already compressed, or every entry for the store
+ * codec) are stored instead of deflated.
+ * <br>
+ * If incremental, an index of the entries ({zip filename}.index) is written next to the ZIP file, recording the name,
+ * size, last modified time and SHA-256 of each entry's source. When the ZIP file is created again, the compressed
+ * bytes of entries whose sources are unchanged are copied from the previous ZIP file instead of being deflated again.
+ * Since entries are always deflated the same way, the ZIP file is the same as if every entry had been deflated.
  */
-public class CompressableZipFile implements Compressable {
+public class CompressableZipFile extends AbstractCompressable {
   private static int BUFFER_SIZE = 4096;
+  static final int MAX_BUFFERED_ENTRY_SIZE = 1024 * 1024;
+  static final String INDEX_EXTENSION = ".index";
+  //ZIP timestamps are local (DOS) date/times, so the same local date/time is used in every time zone
+  private static final long ENTRY_TIME = ENTRY_DATE_TIME.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
 
-  private Set<Path> filesToCompress = new HashSet<>();
-  private String filename;
+  private int threads;
+  private boolean incremental;
+  private CompressionCodec codec = new GZipCodec();
+  private int reusedEntryCount;
 
   public CompressableZipFile(String filename) {
-    this.filename = filename;
+    this(filename, 1);
   }
 
-  @Override
-  public boolean addToCompressedFile(Path artifactToAdd) {
-    return filesToCompress.add(artifactToAdd);
+  /**
+   * Instantiates CompressableZipFile with a target filename and the number of threads used to deflate entries.
+   * @param filename  target/destination zip filename
+   * @param threads   the number of threads used to deflate entries; 1 deflates entries sequentially
+   */
+  public CompressableZipFile(String filename, int threads) {
+    this(filename, threads, false);
+  }
+
+  /**
+   * Instantiates CompressableZipFile with a target filename, the number of threads used to deflate entries and
+   * whether the ZIP file is created incrementally.
+   * @param filename    target/destination zip filename
+   * @param threads     the number of threads used to deflate entries; 1 deflates entries sequentially
+   * @param incremental if true, the compressed bytes of unchanged entries are copied from the previous ZIP file
+   */
+  public CompressableZipFile(String filename, int threads, boolean incremental) {
+    super(filename);
+    this.threads = Math.max(1, threads);
+    this.incremental = incremental;
+  }
+
+  /**
+   * Instantiates CompressableZipFile with a target filename, the number of threads used to deflate entries, whether
+   * the ZIP file is created incrementally and the codec that determines which entries are deflated.
+   * @param filename    target/destination zip filename
+   * @param threads     the number of threads used to deflate entries; 1 deflates entries sequentially
+   * @param incremental if true, the compressed bytes of unchanged entries are copied from the previous ZIP file
+   * @param codec       the CompressionCodec; entries it doesn't compress are stored
+   */
+  public CompressableZipFile(String filename, int threads, boolean incremental, CompressionCodec codec) {
+    this(filename, threads, incremental);
+    this.codec = codec;
+  }
+
+  /**
+   * Gets the number of entries copied from the previous ZIP file the last time the ZIP file was created.
+   * @return  the number of entries that were not deflated again
+   */
+  public int getReusedEntryCount() {
+    return reusedEntryCount;
   }
 
   @Override
   public Path compress() throws IOException {
-    try (FileOutputStream fileOutputStream = new FileOutputStream(filename)) {
-      try (ZipOutputStream zipOutputStream = new ZipOutputStream(fileOutputStream)) {
-        for (Path srcPath : filesToCompress) {
-          compressFile(zipOutputStream, srcPath.toAbsolutePath().getFileName().toString(), srcPath);
+    Path zipPath = Paths.get(filename);
+    Path indexPath = Paths.get(filename + INDEX_EXTENSION);
+    Path previousZipPath = Paths.get(filename + ".previous");
+    Map<String, IndexEntry> previousIndex = incremental && zipPath.toFile().isFile() ? readIndex(indexPath) : new HashMap<>();
+    //the index only describes the previous ZIP file; it's written again after the ZIP file is created
+    Files.deleteIfExists(indexPath);
+    if (!previousIndex.isEmpty()) Files.move(zipPath, previousZipPath, StandardCopyOption.REPLACE_EXISTING);
+
+    reusedEntryCount = 0;
+    Map<String, IndexEntry> index = new LinkedHashMap<>();
+    try {
+      writeZip(previousIndex.isEmpty() ? null : previousZipPath, previousIndex, index);
+      writeChecksums();
+      if (incremental) writeIndex(indexPath, index);
+    } catch (Throwable e) {
+      //a failed package doesn't lose the previous ZIP file (and its index); it replaces the partially written ZIP file
+      if (!previousIndex.isEmpty()) {
+        try {
+          Files.move(previousZipPath, zipPath, StandardCopyOption.REPLACE_EXISTING);
+          writeIndex(indexPath, previousIndex);
+        } catch (IOException restoreException) {
+          e.addSuppressed(restoreException);
         }
       }
+      throw e;
     }
-    return Paths.get(filename);
-  }
-
-  private void compressFile(ZipOutputStream zipOut, String filename, Path source) throws IOException {
-    File srcFile = source.toFile();
-    if (srcFile.isDirectory()) {
-      String endChar = filename.endsWith("/") ? "" : "/";
-      zipOut.putNextEntry(new ZipEntry(filename + endChar));
-      zipOut.closeEntry();
-      for (String childFilename : srcFile.list()) {
-        Path childPath = source.resolve(childFilename);
-        compressFile(zipOut, String.format("%1$s/%2$s", filename, childFilename), childPath);
+    Files.deleteIfExists(previousZipPath);
+    return zipPath;
+  }
+
+  private void writeZip(Path previousZipPath, Map<String, IndexEntry> previousIndex, Map<String, IndexEntry> index) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    Deque<Future<DeflatedEntry>> pendingEntries = new ArrayDeque<>();
+    try (ZipFile previousZip = previousZipPath == null ? null : new ZipFile(previousZipPath.toFile());
+         ZipArchiveOutputStream zipOutputStream = new ZipArchiveOutputStream(newOutputStream())) {
+      for (CompressableEntry entry : getEntries()) {
+        pendingEntries.add(executor.submit(() -> {
+          try (Span span = Tracer.getInstance().start("compress", entry.getName())) {
+            return reuseOrDeflate(entry, previousZip, previousIndex.get(entry.getName()));
+          }
+        }));
+        //bound the number of deflated entries waiting to be written
+        while (pendingEntries.size() > threads * 2) {
+          writeEntry(zipOutputStream, previousZip, pendingEntries.poll(), index);
+        }
+      }
+      while (!pendingEntries.isEmpty()) {
+        writeEntry(zipOutputStream, previousZip, pendingEntries.poll(), index);
+      }
+      if (hasManifest()) {
+        Map<String, String> entryHashes = new LinkedHashMap<>();
+        index.values().forEach(indexEntry -> entryHashes.put(indexEntry.name, indexEntry.hash));
+        DeflatedEntry manifestEntry = deflate(CompressableEntry.of(MANIFEST_NAME, createManifest(entryHashes)));
+        try (InputStream inputStream = manifestEntry.openStream(null)) {
+          zipOutputStream.addRawArchiveEntry(manifestEntry.zipEntry, inputStream);
+        }
+      }
+    } finally {
+      executor.shutdownNow();
+      for (Future<DeflatedEntry> pendingEntry : pendingEntries) {
+        pendingEntry.cancel(true);
       }
-      return;
     }
-    try (FileInputStream fileInputStream = new FileInputStream(source.toFile())) {
-      ZipEntry zipEntry = new ZipEntry(filename);
-      zipOut.putNextEntry(zipEntry);
-      byte[] bytes = new byte[BUFFER_SIZE];
-      int length;
-      while ((length = fileInputStream.read(bytes)) >= 0) {
-        zipOut.write(bytes, 0, length);
+  }
+
+  private DeflatedEntry reuseOrDeflate(CompressableEntry entry, ZipFile previousZip, IndexEntry indexEntry) throws IOException {
+    if (entry.isDirectory() || indexEntry == null || previousZip == null) return deflate(entry);
+
+    ZipArchiveEntry previousEntry = previousZip.getEntry(entry.getName());
+    if (previousEntry == null || previousEntry.getSize() != indexEntry.size || entry.getSize() != indexEntry.size
+        || previousEntry.getMethod() != getMethod(entry)) {
+      return deflate(entry);
+    }
+    //a file with the same size and last modified time is assumed to be unchanged; otherwise its contents are compared
+    long lastModified = getLastModified(entry);
+    if (lastModified == 0 || lastModified != indexEntry.lastModified) {
+      String hash;
+      try (InputStream inputStream = entry.openStream()) {
+        hash = Checksums.sha256(inputStream);
       }
+      if (!hash.equals(indexEntry.hash)) return deflate(entry);
+    }
+    ZipArchiveEntry zipEntry = createZipEntry(entry);
+    zipEntry.setMethod(previousEntry.getMethod());
+    zipEntry.setSize(previousEntry.getSize());
+    zipEntry.setCompressedSize(previousEntry.getCompressedSize());
+    zipEntry.setCrc(previousEntry.getCrc());
+    return new DeflatedEntry(zipEntry, new IndexEntry(entry.getName(), indexEntry.size, lastModified, indexEntry.hash), previousEntry);
+  }
+
+  private int getMethod(CompressableEntry entry) {
+    return codec.isCompressed(entry.getName()) ? ZipEntry.DEFLATED : ZipEntry.STORED;
+  }
+
+  private DeflatedEntry deflate(CompressableEntry entry) throws IOException {
+    ZipArchiveEntry zipEntry = createZipEntry(entry);
+    if (entry.isDirectory()) {
+      zipEntry.setMethod(ZipEntry.STORED);
+      zipEntry.setSize(0);
+      zipEntry.setCompressedSize(0);
+      zipEntry.setCrc(0);
+      return new DeflatedEntry(zipEntry, new byte[0], null, null);
+    }
+
+    Path tempFile = entry.getSize() > MAX_BUFFERED_ENTRY_SIZE ? Files.createTempFile("zip-entry", ".deflated") : null;
+    ByteArrayOutputStream buffer = tempFile == null ? new ByteArrayOutputStream() : null;
+    CRC32 crc = new CRC32();
+    MessageDigest digest = Checksums.newDigest(Checksums.SHA256);
+    int method = getMethod(entry);
+    Deflater deflater = method == ZipEntry.DEFLATED ? new Deflater(COMPRESSION_LEVEL, true) : null;
+    long size;
+    try (InputStream inputStream = new DigestInputStream(new CheckedInputStream(entry.openStream(), crc), digest);
+         OutputStream outputStream = tempFile == null ? buffer : Files.newOutputStream(tempFile);
+         OutputStream entryOutputStream = deflater != null ? new DeflaterOutputStream(outputStream, deflater, BUFFER_SIZE) : outputStream) {
+      size = IOUtils.copyLarge(inputStream, entryOutputStream, new byte[BUFFER_SIZE]);
+    } catch (IOException e) {
+      if (tempFile != null) Files.deleteIfExists(tempFile);
+      throw e;
+    } finally {
+      if (deflater != null) deflater.end();
+    }
+    zipEntry.setMethod(method);
+    zipEntry.setSize(size);
+    zipEntry.setCompressedSize(tempFile == null ? buffer.size() : Files.size(tempFile));
+    zipEntry.setCrc(crc.getValue());
+    IndexEntry indexEntry = new IndexEntry(entry.getName(), size, getLastModified(entry), Checksums.toHex(digest.digest()));
+    return new DeflatedEntry(zipEntry, tempFile == null ? buffer.toByteArray() : null, tempFile, indexEntry);
+  }
+
+  private static ZipArchiveEntry createZipEntry(CompressableEntry entry) {
+    ZipArchiveEntry zipEntry = new ZipArchiveEntry(entry.getName());
+    zipEntry.setTime(ENTRY_TIME);
+    zipEntry.setUnixMode(getMode(entry));
+    return zipEntry;
+  }
+
+  private static long getLastModified(CompressableEntry entry) {
+    //entries from bytes in memory have no last modified time, so their contents are always compared
+    return entry.getFile().isPresent() ? entry.getLastModified() : 0;
+  }
+
+  private void writeEntry(ZipArchiveOutputStream zipOutputStream, ZipFile previousZip, Future<DeflatedEntry> pendingEntry,
+                          Map<String, IndexEntry> index) throws IOException {
+    DeflatedEntry deflatedEntry;
+    try {
+      deflatedEntry = pendingEntry.get();
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException
+        ? (IOException)e.getCause()
+        : new IOException("Unable to create " + filename, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while creating " + filename, e);
+    }
+    try (InputStream inputStream = deflatedEntry.openStream(previousZip)) {
+      zipOutputStream.addRawArchiveEntry(deflatedEntry.zipEntry, inputStream);
+    } finally {
+      if (deflatedEntry.tempFile != null) Files.deleteIfExists(deflatedEntry.tempFile);
+    }
+    if (deflatedEntry.previousEntry != null) reusedEntryCount++;
+    if (deflatedEntry.indexEntry != null) index.put(deflatedEntry.indexEntry.name, deflatedEntry.indexEntry);
+  }
+
+  private static Map<String, IndexEntry> readIndex(Path indexPath) throws IOException {
+    Map<String, IndexEntry> index = new HashMap<>();
+    if (!indexPath.toFile().isFile()) return index;
+    for (String line : Files.readAllLines(indexPath, StandardCharsets.UTF_8)) {
+      String[] fields = line.split("\t");
+      if (fields.length != 4) continue;
+      try {
+        index.put(fields[0], new IndexEntry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3]));
+      } catch (NumberFormatException e) {
+        //an unreadable entry is deflated again
+      }
+    }
+    return index;
+  }
+
+  private static void writeIndex(Path indexPath, Map<String, IndexEntry> index) throws IOException {
+    List<String> lines = index.values().stream()
+        .filter(indexEntry -> indexEntry.name.indexOf('\t') < 0 && indexEntry.name.indexOf('\n') < 0)
+        .map(indexEntry -> String.format("%1$s\t%2$d\t%3$d\t%4$s", indexEntry.name, indexEntry.size, indexEntry.lastModified, indexEntry.hash))
+        .collect(Collectors.toList());
+    Files.write(indexPath, lines, StandardCharsets.UTF_8);
+  }
+
+  private static class IndexEntry {
+    private final String name;
+    private final long size;
+    private final long lastModified;
+    private final String hash;
+
+    IndexEntry(String name, long size, long lastModified, String hash) {
+      this.name = name;
+      this.size = size;
+      this.lastModified = lastModified;
+      this.hash = hash;
+    }
+  }
+
+  private static class DeflatedEntry {
+    private final ZipArchiveEntry zipEntry;
+    private final byte[] contents;
+    private final Path tempFile;
+    private final IndexEntry indexEntry;
+    private final ZipArchiveEntry previousEntry;
+
+    DeflatedEntry(ZipArchiveEntry zipEntry, byte[] contents, Path tempFile, IndexEntry indexEntry) {
+      this.zipEntry = zipEntry;
+      this.contents = contents;
+      this.tempFile = tempFile;
+      this.indexEntry = indexEntry;
+      this.previousEntry = null;
+    }
+
+    DeflatedEntry(ZipArchiveEntry zipEntry, IndexEntry indexEntry, ZipArchiveEntry previousEntry) {
+      this.zipEntry = zipEntry;
+      this.contents = null;
+      this.tempFile = null;
+      this.indexEntry = indexEntry;
+      this.previousEntry = previousEntry;
+    }
+
+    InputStream openStream(ZipFile previousZip) throws IOException {
+      if (previousEntry != null) return previousZip.getRawInputStream(previousEntry);
+      return tempFile == null ? new ByteArrayInputStream(contents) : Files.newInputStream(tempFile);
     }
   }
 }
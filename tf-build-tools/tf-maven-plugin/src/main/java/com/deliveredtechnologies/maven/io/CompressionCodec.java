@@ -0,0 +1,108 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * A compression codec used to create and expand packages.
+ * <br>
+ * Codecs compress the whole stream of a tar file (e.g. tar.gz or tar.zst); zip files deflate each entry unless
+ * the codec doesn't compress it, in which case the entry is stored.
+ * <br>
+ * Codecs are loaded with ServiceLoader, so codecs other than the built in gzip, zstd and store codecs can be added by
+ * listing them in META-INF/services/com.deliveredtechnologies.maven.io.CompressionCodec.
+ */
+public interface CompressionCodec {
+  /**
+   * Extensions of files that are already compressed, so compressing them again only wastes time.
+   */
+  List<String> INCOMPRESSIBLE_EXTENSIONS = Arrays.asList(
+      ".zip", ".jar", ".gz", ".tgz", ".zst", ".bz2", ".xz", ".7z",
+      ".png", ".jpg", ".jpeg", ".gif", ".webp", ".mp3", ".mp4", ".woff", ".woff2");
+
+  /**
+   * Gets the name of the codec, e.g. gzip.
+   * @return  the name of the codec
+   */
+  String getName();
+
+  /**
+   * Gets the extension of tar files compressed with the codec, e.g. tar.gz.
+   * @return  the tar file extension, without a leading '.'
+   */
+  String getTarExtension();
+
+  /**
+   * Gets a description of tar files compressed with the codec, e.g. gzipped tar.
+   * @return  the description
+   */
+  String getTarDescription();
+
+  /**
+   * Wraps an OutputStream so that what's written to it is compressed.
+   * @param out     the OutputStream the compressed bytes are written to
+   * @param threads the number of threads that may be used to compress
+   * @return        the compressing OutputStream; closing it closes out
+   * @throws IOException
+   */
+  OutputStream compress(OutputStream out, int threads) throws IOException;
+
+  /**
+   * Wraps an InputStream of compressed bytes so that what's read from it is decompressed.
+   * @param in  the InputStream of compressed bytes
+   * @return    the decompressing InputStream; closing it closes in
+   * @throws IOException
+   */
+  InputStream decompress(InputStream in) throws IOException;
+
+  /**
+   * Determines if an entry should be compressed; entries that aren't compressed are stored as-is in zip files.
+   * @param entryName the name of the entry
+   * @return          false if the entry is already compressed (by its extension), otherwise true
+   */
+  default boolean isCompressed(String entryName) {
+    String name = entryName.toLowerCase(Locale.ROOT);
+    return INCOMPRESSIBLE_EXTENSIONS.stream().noneMatch(name::endsWith);
+  }
+
+  /**
+   * Gets a codec by its name.
+   * @param name  the name of the codec, e.g. gzip, zstd or store
+   * @return      the codec
+   * @throws IllegalArgumentException if there is no codec with the name
+   */
+  static CompressionCodec forName(String name) {
+    return getCodecs()
+      .filter(codec -> codec.getName().equalsIgnoreCase(name))
+      .findFirst()
+      .orElseThrow(() -> new IllegalArgumentException("Unknown compression codec " + name));
+  }
+
+  /**
+   * Gets the codec of a tar file by its filename, e.g. gzip for a tar.gz or tgz file.
+   * @param filename  the filename of the tar file
+   * @return          the codec, or empty if the filename isn't a tar file compressed with a known codec
+   */
+  static Optional<CompressionCodec> forTarFilename(String filename) {
+    if (filename.endsWith(".tgz")) return Optional.of(forName(GZipCodec.NAME));
+    return getCodecs()
+      .filter(codec -> filename.endsWith("." + codec.getTarExtension()))
+      .findFirst();
+  }
+
+  /**
+   * Gets the available codecs.
+   * @return  a Stream of the codecs loaded with ServiceLoader
+   */
+  static Stream<CompressionCodec> getCodecs() {
+    return StreamSupport.stream(ServiceLoader.load(CompressionCodec.class, CompressionCodec.class.getClassLoader()).spliterator(), false);
+  }
+}
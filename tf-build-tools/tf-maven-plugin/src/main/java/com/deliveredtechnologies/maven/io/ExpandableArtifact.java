@@ -0,0 +1,145 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.logging.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Base class for expanding a compressed artifact into a directory named for the artifact.
+ */
+public abstract class ExpandableArtifact implements Expandable {
+
+  private static final String[] EXTENSIONS = {".tar.gz", ".tgz", ".tar.zst", ".tar", ".zip"};
+
+  protected final Path artifactFile;
+  protected final Path artifactDir;
+  protected final Log log;
+  private final boolean deleteOnExpand;
+
+  /**
+   * Instantiates ExpandableArtifact.
+   * @param artifactFile    the compressed artifact
+   * @param artifactDir     the directory the artifact is expanded into
+   * @param deleteOnExpand  if true, the compressed artifact is deleted once it's expanded
+   * @param log             Maven Log
+   */
+  protected ExpandableArtifact(Path artifactFile, Path artifactDir, boolean deleteOnExpand, Log log) {
+    this.artifactFile = artifactFile;
+    this.artifactDir = artifactDir;
+    this.deleteOnExpand = deleteOnExpand;
+    this.log = log;
+  }
+
+  @Override
+  public Optional<Path> expand() {
+    log.info("Expanding " + artifactFile);
+
+    try {
+      //create the directory as the name of the artifact
+      Files.createDirectories(artifactDir);
+      expandTo(artifactDir);
+    } catch (IOException e) {
+      log.error("Error expanding " + artifactFile.getFileName(), e);
+      return Optional.empty();
+    }
+
+    if (deleteOnExpand && !artifactFile.toFile().delete()) {
+      log.warn("Unable to delete " + artifactFile.toAbsolutePath());
+    }
+    return Optional.of(artifactDir);
+  }
+
+  /**
+   * Extracts the contents of the compressed artifact into a directory.
+   * @param directory the existing directory to extract into
+   * @throws IOException
+   */
+  protected abstract void expandTo(Path directory) throws IOException;
+
+  /**
+   * Resolves an archive entry against the directory the artifact is expanded into.
+   * @param entryName the name of the archive entry
+   * @return          the Path the entry is extracted to
+   * @throws IOException if the entry would be extracted outside of the directory
+   */
+  protected Path resolveEntry(String entryName) throws IOException {
+    Path entryPath = artifactDir.resolve(entryName).normalize();
+    if (!entryPath.startsWith(artifactDir.normalize())) {
+      throw new IOException(String.format("%1$s is outside of %2$s", entryName, artifactDir));
+    }
+    return entryPath;
+  }
+
+  /**
+   * Gets the extension of a compressed artifact.
+   * @param filename  the filename of the artifact
+   * @return          the extension without a leading '.' (e.g. tar.gz), or empty if the artifact can't be expanded
+   */
+  public static Optional<String> getExtension(String filename) {
+    return Arrays.stream(EXTENSIONS).filter(filename::endsWith).findFirst().map(extension -> extension.substring(1));
+  }
+
+  /**
+   * Determines if a file is a compressed artifact that can be expanded (i.e. zip, tar.gz, tgz, tar.zst or tar).
+   * @param filename  the filename of the artifact
+   * @return          true if the file can be expanded
+   */
+  public static boolean isExpandable(String filename) {
+    return Arrays.stream(EXTENSIONS).anyMatch(filename::endsWith);
+  }
+
+  /**
+   * Determines if a file is a gzipped tar (i.e. tar.gz or tgz).
+   * @param filename  the filename of the artifact
+   * @return          true if the file is a gzipped tar
+   */
+  public static boolean isGZipTar(String filename) {
+    return filename.endsWith(".tar.gz") || filename.endsWith(".tgz");
+  }
+
+  /**
+   * Determines if a file is a tar, compressed or not (i.e. tar.gz, tgz, tar.zst or tar).
+   * @param filename  the filename of the artifact
+   * @return          true if the file is a tar
+   */
+  public static boolean isTar(String filename) {
+    return isGZipTar(filename) || filename.endsWith(".tar.zst") || filename.endsWith(".tar");
+  }
+
+  /**
+   * Gets the name of the directory an artifact is expanded into from the artifact's filename.
+   * <br>
+   * The name is version agnostic, e.g. tf-module-my-module1-0.12-rc.zip is expanded into my-module1.
+   * @param filename  the filename of the artifact, e.g. {artifact}-{version}-{qualifier}.zip, .tar.gz or .tar.zst
+   * @return          the name of the artifact without prefixes, versions or qualifiers
+   */
+  public static String getArtifactName(String filename) {
+    //split path for Windows or Linux
+    String[] filenamePathSplit = filename.split(File.separator.equals("/") ? "\\/" : "\\\\");
+    //split the filename by hyphens, e.g. {artifact}-{version}-{qualifier}.zip
+    String[] filenameSplitByHyphen = filenamePathSplit[filenamePathSplit.length - 1].split("-");
+
+    //get just the name of the unprefixed Maven artifact (e.g. s3-bucket or lambda or module1, etc.)
+    //a supported convention for TerraformCommandLineDecorator Maven artifact prefixes is terraform-module-{artifact}-{version}-{qualifier}
+    return Arrays.stream(filenameSplitByHyphen)
+        .filter(s -> !s.startsWith("SNAPSHOT"))
+        .filter(s -> !s.equals("rc"))
+        .filter(s -> !s.equals("tf"))
+        .filter(s -> !s.equals("module"))
+        //the segment with the extension is the version or qualifier (e.g. 1.0.tar.gz or rc.zip)
+        .filter(s -> {
+          if (s.contains(".")) {
+            String[] splitByDot = s.split("\\.");
+            return !StringUtils.isNumeric(splitByDot[0]) && !isExpandable(s);
+          }
+          return true;
+        })
+        .reduce("", (s1, s2) -> s1 + (s1.length() > 0 ? "-" : "") + s2);
+  }
+}
@@ -0,0 +1,195 @@
+package com.deliveredtechnologies.maven.io;
+
+import com.deliveredtechnologies.maven.logs.Slf4jMavenAdapter;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
+import org.apache.maven.plugin.logging.Log;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Class abstraction for expanding a gzipped tar file (e.g. a fatTar), or a tar file compressed with another CompressionCodec.
+ * <br>
+ * The codec is identified by the file's extension (e.g. tar.zst), unless it's specified; gzip is the default.
+ * <br>
+ * Expansion is pipelined: the calling thread decompresses the tar and reads the tar entries, while the entries
+ * are written to disk by a pool of writer threads. The number of entries buffered for writing is bounded, and entries
+ * larger than {@value #MAX_BUFFERED_ENTRY_SIZE} bytes are streamed to disk by the calling thread instead of buffered.
+ * <br>
+ * Hard link entries (e.g. the duplicate files of a deduplicated fatTar) are expanded as copies of the files they link
+ * to, once the other entries are written.
+ */
+public class ExpandableGZipTarArtifact extends ExpandableArtifact {
+
+  static final int MAX_BUFFERED_ENTRY_SIZE = 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+  private static final int OWNER_EXECUTE = 0100;
+
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private Optional<CompressionCodec> codec = Optional.empty();
+
+  /**
+   * Instantiates ExpandableGZipTarArtifact, which expands the tar.gz file into a directory named for the artifact
+   * next to the tar.gz file; the tar.gz file is deleted once it's expanded.
+   * @param tarFile the tar.gz file
+   * @param log     Maven Log
+   */
+  public ExpandableGZipTarArtifact(Path tarFile, Log log) {
+    super(tarFile, tarFile.resolveSibling(getArtifactName(tarFile.getFileName().toString())), true, log);
+  }
+
+  /**
+   * Instantiates ExpandableGZipTarArtifact, which expands the compressed tar file into a directory named for the
+   * artifact next to the tar file using the specified codec; the tar file is deleted once it's expanded.
+   * @param tarFile the compressed tar file
+   * @param log     Maven Log
+   * @param codec   the CompressionCodec the tar file was compressed with; if null, it's identified by the file's extension
+   */
+  public ExpandableGZipTarArtifact(Path tarFile, Log log, CompressionCodec codec) {
+    this(tarFile, log);
+    this.codec = Optional.ofNullable(codec);
+  }
+
+  public ExpandableGZipTarArtifact(Path tarFile) {
+    this(tarFile, new Slf4jMavenAdapter(LoggerFactory.getLogger(ExpandableGZipTarArtifact.class)));
+  }
+
+  /**
+   * Instantiates ExpandableGZipTarArtifact, which expands the tar.gz file into the specified directory; the tar.gz file is left as-is.
+   * @param tarFile     the tar.gz file, e.g. an artifact in the local Maven repository
+   * @param artifactDir the directory the tar.gz file is expanded into
+   * @param log         Maven Log
+   */
+  public ExpandableGZipTarArtifact(Path tarFile, Path artifactDir, Log log) {
+    super(tarFile, artifactDir, false, log);
+  }
+
+  /**
+   * Instantiates ExpandableGZipTarArtifact, which expands the tar.gz file into the specified directory; the tar.gz file is left as-is.
+   * @param tarFile     the tar.gz file, e.g. an artifact in the local Maven repository
+   * @param artifactDir the directory the tar.gz file is expanded into
+   * @param log         Maven Log
+   * @param threads     the number of threads used to write the expanded entries
+   */
+  public ExpandableGZipTarArtifact(Path tarFile, Path artifactDir, Log log, int threads) {
+    this(tarFile, artifactDir, log);
+    this.threads = Math.max(1, threads);
+  }
+
+  /**
+   * Instantiates ExpandableGZipTarArtifact, which expands the compressed tar file into the specified directory using
+   * the specified codec; the tar file is left as-is.
+   * @param tarFile     the compressed tar file, e.g. an artifact in the local Maven repository
+   * @param artifactDir the directory the tar file is expanded into
+   * @param log         Maven Log
+   * @param threads     the number of threads used to write the expanded entries
+   * @param codec       the CompressionCodec the tar file was compressed with
+   */
+  public ExpandableGZipTarArtifact(Path tarFile, Path artifactDir, Log log, int threads, CompressionCodec codec) {
+    this(tarFile, artifactDir, log, threads);
+    this.codec = Optional.ofNullable(codec);
+  }
+
+  @Override
+  protected void expandTo(Path directory) throws IOException {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    //bounds the number of entries held in memory waiting to be written
+    Semaphore bufferedEntries = new Semaphore(threads * 2);
+    List<Future<Void>> writes = new ArrayList<>();
+    Map<Path, TarArchiveEntry> links = new LinkedHashMap<>();
+    CompressionCodec tarCodec = codec.orElseGet(() -> CompressionCodec.forTarFilename(artifactFile.getFileName().toString())
+        .orElseGet(GZipCodec::new));
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(tarCodec.decompress(
+        new BufferedInputStream(Files.newInputStream(artifactFile), BUFFER_SIZE)))) {
+      TarArchiveEntry entry;
+      while ((entry = tar.getNextTarEntry()) != null) {
+        Path entryPath = resolveEntry(entry.getName());
+        if (entry.isDirectory()) {
+          Files.createDirectories(entryPath);
+          continue;
+        }
+        if (entry.isLink()) {
+          Files.createDirectories(entryPath.getParent());
+          links.put(entryPath, entry);
+          continue;
+        }
+        if (!entry.isFile()) {
+          log.warn("Skipping unsupported tar entry " + entry.getName());
+          continue;
+        }
+        //parent directories are created in entry order by this thread, so writers never race to create them
+        Files.createDirectories(entryPath.getParent());
+        boolean isExecutable = (entry.getMode() & OWNER_EXECUTE) != 0;
+
+        if (entry.getSize() > MAX_BUFFERED_ENTRY_SIZE) {
+          Files.copy(tar, entryPath, StandardCopyOption.REPLACE_EXISTING);
+          setExecutable(entryPath, isExecutable);
+          continue;
+        }
+        byte[] contents = IOUtils.toByteArray(tar, entry.getSize());
+        bufferedEntries.acquire();
+        writes.add(executor.submit(() -> {
+          try {
+            Files.write(entryPath, contents);
+            setExecutable(entryPath, isExecutable);
+            return null;
+          } finally {
+            bufferedEntries.release();
+          }
+        }));
+      }
+      for (Future<Void> write : writes) {
+        write.get();
+      }
+      for (Map.Entry<Path, TarArchiveEntry> link : links.entrySet()) {
+        expandLink(link.getKey(), link.getValue());
+      }
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof IOException ? (IOException)e.getCause() : new IOException(e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while expanding " + artifactFile, e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Expands a hard link entry as a copy of the file it links to, so that changing one file doesn't change the other.
+   * @param entryPath the path the entry is expanded to
+   * @param entry     the hard link entry
+   * @throws IOException
+   */
+  private void expandLink(Path entryPath, TarArchiveEntry entry) throws IOException {
+    Path linkPath = resolveEntry(entry.getLinkName());
+    if (!linkPath.toFile().isFile()) {
+      throw new IOException(String.format("Tar entry %1$s links to %2$s, which is not a file in %3$s",
+          entry.getName(), entry.getLinkName(), artifactFile));
+    }
+    Files.copy(linkPath, entryPath, StandardCopyOption.REPLACE_EXISTING);
+    setExecutable(entryPath, (entry.getMode() & OWNER_EXECUTE) != 0);
+  }
+
+  private void setExecutable(Path path, boolean isExecutable) {
+    if (isExecutable && !path.toFile().setExecutable(true)) {
+      log.warn("Unable to make " + path + " executable");
+    }
+  }
+}
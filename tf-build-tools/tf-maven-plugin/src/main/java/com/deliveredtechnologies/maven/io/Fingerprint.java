@@ -0,0 +1,124 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A fingerprint (SHA-256) of the inputs of a goal, which is saved when the goal runs so that the goal can be skipped
+ * the next time if its inputs are unchanged.
+ * <br>
+ * Files are fingerprinted by their contents and their paths relative to the directory they're in, not by their
+ * timestamps or absolute paths. So, a fingerprint restored into target/ on another machine or in another workspace
+ * (e.g. by the Maven build cache extension on a CI agent) still matches the same inputs.
+ */
+public class Fingerprint {
+  private final MessageDigest digest = Checksums.newDigest(Checksums.SHA256);
+  private final List<PathMatcher> excludedNames;
+  private String hash;
+
+  /**
+   * Instantiates Fingerprint.
+   * @param excludedNames the names (or glob patterns of the names) of files and directories that aren't fingerprinted
+   *                      when a directory is added (e.g. .terraform, which is an output of terraform init)
+   */
+  public Fingerprint(String... excludedNames) {
+    this.excludedNames = Arrays.stream(excludedNames)
+      .map(name -> FileSystems.getDefault().getPathMatcher(String.format("glob:%1$s", name)))
+      .collect(Collectors.toList());
+  }
+
+  /**
+   * Adds a named value (e.g. a parameter) to the fingerprint.
+   * @param name  the name of the value
+   * @param value the value; null and empty values are fingerprinted the same
+   * @return      this Fingerprint
+   */
+  public Fingerprint add(String name, String value) {
+    update(name);
+    update(value == null ? "" : value);
+    return this;
+  }
+
+  /**
+   * Adds a file, or the files in a directory (recursively), to the fingerprint.
+   * @param name  the name of the input
+   * @param path  the file or directory; a path that doesn't exist is fingerprinted as missing
+   * @return      this Fingerprint
+   * @throws IOException
+   */
+  public Fingerprint add(String name, Path path) throws IOException {
+    update(name);
+    if (!path.toFile().exists()) {
+      update("missing");
+      return this;
+    }
+    List<Path> files;
+    try (Stream<Path> paths = Files.walk(path)) {
+      files = paths
+        .filter(file -> file.toFile().isFile())
+        .filter(file -> !isExcluded(path.relativize(file)))
+        .sorted()
+        .collect(Collectors.toList());
+    }
+    for (Path file : files) {
+      update(AbstractCompressable.toEntryName(path.relativize(file)));
+      try (InputStream inputStream = Files.newInputStream(file)) {
+        update(Checksums.sha256(inputStream));
+      }
+    }
+    return this;
+  }
+
+  /**
+   * Gets the fingerprint; no more inputs can be added once it's computed.
+   * @return  the hex encoded SHA-256 of the inputs
+   */
+  public String getHash() {
+    if (hash == null) hash = Checksums.toHex(digest.digest());
+    return hash;
+  }
+
+  /**
+   * Determines if the fingerprint matches a fingerprint saved when the goal last ran.
+   * @param fingerprintFile the saved fingerprint
+   * @return                true if the saved fingerprint exists and is the same
+   * @throws IOException
+   */
+  public boolean matches(Path fingerprintFile) throws IOException {
+    return fingerprintFile.toFile().isFile()
+      && new String(Files.readAllBytes(fingerprintFile), StandardCharsets.UTF_8).trim().equals(getHash());
+  }
+
+  /**
+   * Saves the fingerprint.
+   * @param fingerprintFile the file the fingerprint is saved to
+   * @throws IOException
+   */
+  public void save(Path fingerprintFile) throws IOException {
+    Files.createDirectories(fingerprintFile.toAbsolutePath().getParent());
+    Files.write(fingerprintFile, String.format("%1$s%n", getHash()).getBytes(StandardCharsets.UTF_8));
+  }
+
+  private boolean isExcluded(Path relativePath) {
+    for (Path name : relativePath) {
+      if (excludedNames.stream().anyMatch(matcher -> matcher.matches(name))) return true;
+    }
+    return false;
+  }
+
+  private void update(String value) {
+    //values are NUL terminated, so adjacent values can't run together into the same bytes
+    digest.update(value.getBytes(StandardCharsets.UTF_8));
+    digest.update((byte)0);
+  }
+}
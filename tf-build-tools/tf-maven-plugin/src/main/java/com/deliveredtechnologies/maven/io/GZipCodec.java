@@ -0,0 +1,43 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.compress.compressors.gzip.GzipCompressorInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The gzip codec; gzip streams are compressed in blocks on multiple threads (see ParallelGZipOutputStream).
+ * <br>
+ * A single thread still writes the block format, so packages are the same no matter how many threads are used.
+ */
+public class GZipCodec implements CompressionCodec {
+  public static final String NAME = "gzip";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getTarExtension() {
+    return "tar.gz";
+  }
+
+  @Override
+  public String getTarDescription() {
+    return "gzipped tar";
+  }
+
+  @Override
+  public OutputStream compress(OutputStream out, int threads) throws IOException {
+    return new ParallelGZipOutputStream(out, Math.max(1, threads), ParallelGZipOutputStream.DEFAULT_BLOCK_SIZE,
+        AbstractCompressable.COMPRESSION_LEVEL);
+  }
+
+  @Override
+  public InputStream decompress(InputStream in) throws IOException {
+    //concatenated gzip members are expanded as one stream
+    return new GzipCompressorInputStream(in, true);
+  }
+}
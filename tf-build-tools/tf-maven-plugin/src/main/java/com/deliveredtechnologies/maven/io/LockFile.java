@@ -0,0 +1,93 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * An exclusive lock held on a lock file, which coordinates threads in this JVM and other processes.
+ * <br>
+ * FileChannel locks are held on behalf of the whole JVM, so threads are first serialized on an in-JVM lock
+ * for the same file; then the FileChannel lock is acquired to exclude other processes.
+ * The lock file is left in place when the lock is released; the in-JVM lock is discarded once no thread holds or
+ * waits for it, so a long-lived JVM (e.g. mvnd) doesn't keep a lock for every lock file it has used.
+ */
+public class LockFile implements Closeable {
+
+  static final ConcurrentMap<Path, ThreadLock> LOCKS = new ConcurrentHashMap<>();
+
+  private final Path lockPath;
+  private final ThreadLock threadLock;
+  private final FileChannel channel;
+  private final FileLock fileLock;
+
+  private LockFile(Path lockPath, ThreadLock threadLock, FileChannel channel, FileLock fileLock) {
+    this.lockPath = lockPath;
+    this.threadLock = threadLock;
+    this.channel = channel;
+    this.fileLock = fileLock;
+  }
+
+  /**
+   * Acquires the lock, waiting until it's released by any other thread or process that holds it.
+   * @param lockFile  the lock file; it's created if it doesn't exist
+   * @return          the acquired LockFile, which releases the lock when it's closed
+   * @throws IOException
+   */
+  public static LockFile acquire(Path lockFile) throws IOException {
+    Path lockPath = lockFile.toAbsolutePath().normalize();
+    //the users are counted atomically with the lookup, so a lock isn't discarded while a thread is about to wait for it
+    ThreadLock threadLock = LOCKS.compute(lockPath, (path, lock) -> (lock == null ? new ThreadLock() : lock).addUser());
+    threadLock.lock();
+    try {
+      FileChannel channel = FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+      try {
+        return new LockFile(lockPath, threadLock, channel, channel.lock());
+      } catch (IOException | RuntimeException e) {
+        channel.close();
+        throw e;
+      }
+    } catch (IOException | RuntimeException e) {
+      release(lockPath, threadLock);
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      fileLock.release();
+      channel.close();
+    } finally {
+      release(lockPath, threadLock);
+    }
+  }
+
+  private static void release(Path lockPath, ThreadLock threadLock) {
+    threadLock.unlock();
+    LOCKS.computeIfPresent(lockPath, (path, lock) -> lock.removeUser() ? lock : null);
+  }
+
+  /**
+   * The in-JVM lock for a lock file, with the number of threads that hold it or wait for it; the number is only
+   * changed in the LOCKS map's (atomic) compute functions.
+   */
+  static final class ThreadLock extends ReentrantLock {
+    private int users;
+
+    private ThreadLock addUser() {
+      users++;
+      return this;
+    }
+
+    private boolean removeUser() {
+      return --users > 0;
+    }
+  }
+}
@@ -0,0 +1,176 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * An OutputStream that writes a single member gzip stream, compressing blocks of the input in parallel (like pigz).
+ * <br>
+ * Each block is deflated independently on a thread pool as raw deflate data ending on a byte boundary (a sync flush),
+ * using the last 32KB of the previous block as its dictionary, so compression is close to that of GZIPOutputStream.
+ * The compressed blocks are written in order, and the CRC-32 of the input is computed as it's written.
+ */
+public class ParallelGZipOutputStream extends FilterOutputStream {
+
+  static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+  private static final int DICTIONARY_SIZE = 32 * 1024;
+  private static final byte[] HEADER = {0x1f, (byte)0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte)0xff};
+
+  private final ExecutorService executor;
+  private final int maxPendingBlocks;
+  private final int level;
+  private final Deque<Future<byte[]>> pendingBlocks = new ArrayDeque<>();
+  private final CRC32 crc = new CRC32();
+  private byte[] block;
+  private int blockLength;
+  private byte[] previousBlock;
+  private long uncompressedSize;
+  private boolean closed;
+
+  /**
+   * Instantiates ParallelGZipOutputStream with the default block size and compression level.
+   * @param out     the OutputStream the gzip stream is written to
+   * @param threads the number of threads used to compress blocks
+   * @throws IOException
+   */
+  public ParallelGZipOutputStream(OutputStream out, int threads) throws IOException {
+    this(out, threads, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Instantiates ParallelGZipOutputStream.
+   * @param out       the OutputStream the gzip stream is written to
+   * @param threads   the number of threads used to compress blocks
+   * @param blockSize the number of uncompressed bytes in each block
+   * @param level     the Deflater compression level
+   * @throws IOException
+   */
+  public ParallelGZipOutputStream(OutputStream out, int threads, int blockSize, int level) throws IOException {
+    super(out);
+    this.executor = Executors.newFixedThreadPool(Math.max(1, threads));
+    this.maxPendingBlocks = Math.max(1, threads) * 2;
+    this.level = level;
+    this.block = new byte[blockSize];
+    out.write(HEADER);
+  }
+
+  @Override
+  public void write(int value) throws IOException {
+    write(new byte[] {(byte)value}, 0, 1);
+  }
+
+  @Override
+  public void write(byte[] bytes, int offset, int length) throws IOException {
+    if (closed) throw new IOException("Stream closed");
+    crc.update(bytes, offset, length);
+    uncompressedSize += length;
+    while (length > 0) {
+      int count = Math.min(length, block.length - blockLength);
+      System.arraycopy(bytes, offset, block, blockLength, count);
+      blockLength += count;
+      offset += count;
+      length -= count;
+      if (blockLength == block.length) submitBlock(false);
+    }
+  }
+
+  /**
+   * Writes the blocks that have been compressed so far; the current (partial) block is not flushed.
+   * @throws IOException
+   */
+  @Override
+  public void flush() throws IOException {
+    while (!pendingBlocks.isEmpty() && pendingBlocks.peek().isDone()) {
+      writeBlock(pendingBlocks.poll());
+    }
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (closed) return;
+    closed = true;
+    try {
+      submitBlock(true);
+      while (!pendingBlocks.isEmpty()) {
+        writeBlock(pendingBlocks.poll());
+      }
+      writeInt((int)crc.getValue());
+      writeInt((int)uncompressedSize);
+      out.flush();
+    } finally {
+      executor.shutdownNow();
+      out.close();
+    }
+  }
+
+  private void submitBlock(boolean isLast) throws IOException {
+    byte[] input = block;
+    int inputLength = blockLength;
+    byte[] dictionary = previousBlock;
+    pendingBlocks.add(executor.submit(() -> deflate(input, inputLength, dictionary, isLast)));
+    previousBlock = Arrays.copyOfRange(input, Math.max(0, inputLength - DICTIONARY_SIZE), inputLength);
+    block = new byte[block.length];
+    blockLength = 0;
+
+    //bound the number of blocks in memory
+    while (pendingBlocks.size() > maxPendingBlocks) {
+      writeBlock(pendingBlocks.poll());
+    }
+  }
+
+  private byte[] deflate(byte[] input, int inputLength, byte[] dictionary, boolean isLast) {
+    Deflater deflater = new Deflater(level, true);
+    try {
+      if (dictionary != null && dictionary.length > 0) deflater.setDictionary(dictionary);
+      deflater.setInput(input, 0, inputLength);
+      ByteArrayOutputStream compressed = new ByteArrayOutputStream(inputLength / 2 + 64);
+      byte[] buffer = new byte[64 * 1024];
+      if (isLast) {
+        deflater.finish();
+        while (!deflater.finished()) {
+          compressed.write(buffer, 0, deflater.deflate(buffer));
+        }
+      } else {
+        //a sync flush ends the block on a byte boundary, so the next block can be appended to it
+        int count;
+        do {
+          count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+          compressed.write(buffer, 0, count);
+        } while (count == buffer.length);
+      }
+      return compressed.toByteArray();
+    } finally {
+      deflater.end();
+    }
+  }
+
+  private void writeBlock(Future<byte[]> pendingBlock) throws IOException {
+    try {
+      out.write(pendingBlock.get());
+    } catch (ExecutionException e) {
+      throw new IOException("Unable to compress block", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while compressing block", e);
+    }
+  }
+
+  private void writeInt(int value) throws IOException {
+    out.write(value & 0xff);
+    out.write((value >> 8) & 0xff);
+    out.write((value >> 16) & 0xff);
+    out.write((value >> 24) & 0xff);
+  }
+}
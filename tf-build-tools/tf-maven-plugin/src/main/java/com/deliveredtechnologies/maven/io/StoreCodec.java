@@ -0,0 +1,41 @@
+package com.deliveredtechnologies.maven.io;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The store codec, which doesn't compress; tar files are left uncompressed and zip entries are stored.
+ */
+public class StoreCodec implements CompressionCodec {
+  public static final String NAME = "store";
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getTarExtension() {
+    return "tar";
+  }
+
+  @Override
+  public String getTarDescription() {
+    return "tar";
+  }
+
+  @Override
+  public OutputStream compress(OutputStream out, int threads) {
+    return out;
+  }
+
+  @Override
+  public InputStream decompress(InputStream in) {
+    return in;
+  }
+
+  @Override
+  public boolean isCompressed(String entryName) {
+    return false;
+  }
+}
@@ -0,0 +1,44 @@
+package com.deliveredtechnologies.maven.io;
+
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * The Zstandard codec, which compresses and decompresses faster than gzip at a similar ratio.
+ * <br>
+ * Compression always uses zstd's multithreaded mode (with at least one worker), whose output doesn't depend on the
+ * number of workers, so packages are the same no matter how many threads are used.
+ */
+public class ZstdCodec implements CompressionCodec {
+  public static final String NAME = "zstd";
+  private static final int LEVEL = 3;
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  public String getTarExtension() {
+    return "tar.zst";
+  }
+
+  @Override
+  public String getTarDescription() {
+    return "zstd compressed tar";
+  }
+
+  @Override
+  public OutputStream compress(OutputStream out, int threads) throws IOException {
+    return new ZstdOutputStream(out, LEVEL).setWorkers(Math.max(1, threads));
+  }
+
+  @Override
+  public InputStream decompress(InputStream in) throws IOException {
+    return new ZstdInputStream(in);
+  }
+}
@@ -3,9 +3,15 @@ package com.deliveredtechnologies.maven.logs;
 import org.apache.maven.plugin.logging.Log;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
+import org.slf4j.helpers.FormattingTuple;
+import org.slf4j.helpers.MessageFormatter;
 
 /**
  * Adapts Maven Log to SLF4J Logger.
+ * <br>
+ * Trace is logged at debug, since Maven doesn't have a trace level, and markers are ignored. Messages are formatted
+ * with SLF4J's {} anchors (a Throwable after the last argument is logged as the exception), and only if their level is
+ * enabled; so logging at a disabled level with up to two arguments doesn't allocate.
  */
 public class MavenSlf4jAdapter implements Logger {
 
@@ -22,63 +28,62 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public boolean isTraceEnabled() {
-    return false;
+    return log.isDebugEnabled();
   }
 
-
   @Override
   public boolean isTraceEnabled(Marker marker) {
-    return false;
+    return log.isDebugEnabled();
   }
 
   @Override
   public void trace(String msg) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    log.debug(msg);
   }
 
   @Override
   public void trace(String format, Object arg) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.format(format, arg));
   }
 
   @Override
   public void trace(String format, Object arg1, Object arg2) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.format(format, arg1, arg2));
   }
 
   @Override
   public void trace(String format, Object... arguments) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.arrayFormat(format, arguments));
   }
 
   @Override
   public void trace(String msg, Throwable exception) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    log.debug(msg, exception);
   }
 
   @Override
   public void trace(Marker marker, String msg) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    this.trace(msg);
   }
 
   @Override
   public void trace(Marker marker, String format, Object arg) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    this.trace(format, arg);
   }
 
   @Override
   public void trace(Marker marker, String format, Object arg1, Object arg2) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    this.trace(format, arg1, arg2);
   }
 
   @Override
-  public void trace(Marker marker, String format, Object... argArray) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+  public void trace(Marker marker, String format, Object... arguments) {
+    this.trace(format, arguments);
   }
 
   @Override
   public void trace(Marker marker, String msg, Throwable exception) {
-    throw new RuntimeException("MavenSlf4jAdapter trace() method is not valid");
+    this.trace(msg, exception);
   }
 
   @Override
@@ -98,17 +103,17 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void debug(String format, Object arg) {
-    this.debug(format, new Object[] {arg});
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.format(format, arg));
   }
 
   @Override
   public void debug(String format, Object arg1, Object arg2) {
-    this.debug(format, new Object[] {arg1, arg2});
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.format(format, arg1, arg2));
   }
 
   @Override
   public void debug(String format, Object... arguments) {
-    log.debug(String.format(format, arguments));
+    if (log.isDebugEnabled()) writeDebug(MessageFormatter.arrayFormat(format, arguments));
   }
 
   @Override
@@ -118,7 +123,7 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void debug(Marker marker, String msg) {
-    log.debug(msg);
+    this.debug(msg);
   }
 
   @Override
@@ -158,17 +163,17 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void info(String format, Object arg) {
-    this.info(format, new Object[] {arg});
+    if (log.isInfoEnabled()) writeInfo(MessageFormatter.format(format, arg));
   }
 
   @Override
   public void info(String format, Object arg1, Object arg2) {
-    this.info(format, new Object[] {arg1, arg2});
+    if (log.isInfoEnabled()) writeInfo(MessageFormatter.format(format, arg1, arg2));
   }
 
   @Override
   public void info(String format, Object... arguments) {
-    log.info(String.format(format, arguments));
+    if (log.isInfoEnabled()) writeInfo(MessageFormatter.arrayFormat(format, arguments));
   }
 
   @Override
@@ -198,7 +203,7 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void info(Marker marker, String msg, Throwable exception) {
-    this.info(marker, msg, exception);
+    this.info(msg, exception);
   }
 
   @Override
@@ -218,22 +223,22 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void warn(String format, Object arg) {
-    this.warn(format, new Object[] {arg});
+    if (log.isWarnEnabled()) writeWarn(MessageFormatter.format(format, arg));
   }
 
   @Override
-  public void warn(String format, Object... arguments) {
-    log.warn(String.format(format, arguments));
+  public void warn(String format, Object arg1, Object arg2) {
+    if (log.isWarnEnabled()) writeWarn(MessageFormatter.format(format, arg1, arg2));
   }
 
   @Override
-  public void warn(String format, Object arg1, Object arg2) {
-    this.warn(format, new Object[] {arg1, arg2});
+  public void warn(String format, Object... arguments) {
+    if (log.isWarnEnabled()) writeWarn(MessageFormatter.arrayFormat(format, arguments));
   }
 
   @Override
   public void warn(String msg, Throwable exception) {
-    this.warn(msg, exception);
+    log.warn(msg, exception);
   }
 
   @Override
@@ -278,17 +283,17 @@ public class MavenSlf4jAdapter implements Logger {
 
   @Override
   public void error(String format, Object arg) {
-    this.error(format, new Object[] {arg});
+    if (log.isErrorEnabled()) writeError(MessageFormatter.format(format, arg));
   }
 
   @Override
   public void error(String format, Object arg1, Object arg2) {
-    this.error(format, new Object[] {arg1, arg2});
+    if (log.isErrorEnabled()) writeError(MessageFormatter.format(format, arg1, arg2));
   }
 
   @Override
   public void error(String format, Object... arguments) {
-    log.error(String.format(format, arguments));
+    if (log.isErrorEnabled()) writeError(MessageFormatter.arrayFormat(format, arguments));
   }
 
   @Override
@@ -320,4 +325,36 @@ public class MavenSlf4jAdapter implements Logger {
   public void error(Marker marker, String msg, Throwable exception) {
     this.error(msg, exception);
   }
+
+  private void writeDebug(FormattingTuple message) {
+    if (message.getThrowable() == null) {
+      log.debug(message.getMessage());
+    } else {
+      log.debug(message.getMessage(), message.getThrowable());
+    }
+  }
+
+  private void writeInfo(FormattingTuple message) {
+    if (message.getThrowable() == null) {
+      log.info(message.getMessage());
+    } else {
+      log.info(message.getMessage(), message.getThrowable());
+    }
+  }
+
+  private void writeWarn(FormattingTuple message) {
+    if (message.getThrowable() == null) {
+      log.warn(message.getMessage());
+    } else {
+      log.warn(message.getMessage(), message.getThrowable());
+    }
+  }
+
+  private void writeError(FormattingTuple message) {
+    if (message.getThrowable() == null) {
+      log.error(message.getMessage());
+    } else {
+      log.error(message.getMessage(), message.getThrowable());
+    }
+  }
 }
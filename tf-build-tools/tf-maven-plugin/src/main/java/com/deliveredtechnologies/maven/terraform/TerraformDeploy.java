@@ -1,96 +1,392 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.Checksums;
+import com.deliveredtechnologies.maven.io.ExpandableArtifact;
 import com.deliveredtechnologies.terraform.TerraformException;
 import com.deliveredtechnologies.terraform.api.TerraformOperation;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.ArtifactRepositoryPolicy;
+import org.apache.maven.artifact.repository.Authentication;
+import org.apache.maven.artifact.repository.MavenArtifactRepository;
+import org.apache.maven.artifact.repository.layout.DefaultRepositoryLayout;
+import org.apache.maven.artifact.repository.metadata.Metadata;
+import org.apache.maven.artifact.repository.metadata.SnapshotVersion;
+import org.apache.maven.artifact.repository.metadata.io.xpp3.MetadataXpp3Reader;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.io.xpp3.MavenXpp3Writer;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.shared.invoker.DefaultInvocationRequest;
-import org.apache.maven.shared.invoker.DefaultInvoker;
-import org.apache.maven.shared.invoker.InvocationRequest;
-import org.apache.maven.shared.invoker.Invoker;
-import org.apache.maven.shared.invoker.MavenInvocationException;
+import org.apache.maven.project.artifact.ProjectArtifactMetadata;
+import org.apache.maven.repository.Proxy;
+import org.apache.maven.repository.RepositorySystem;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.shared.artifact.deploy.ArtifactDeployer;
+import org.apache.maven.shared.artifact.deploy.ArtifactDeployerException;
+import org.codehaus.plexus.util.xml.pull.XmlPullParserException;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.stream.Collectors;
 
 /**
  * API for deploying a Terraform config to a Maven repo.
+ * <br>
+ * The package is deployed in-process using the Maven session's repository system, so no other Maven build is forked.
  */
 public class TerraformDeploy implements TerraformOperation<String> {
 
   private static String PACKAGING = "zip";
+  static final String DEFAULT_REPOSITORY_ID = "remote-repository";
+  private static final int TIMEOUT = 30000;
 
   private Log log;
   private MavenProject project;
+  private MavenSession session;
+  private ArtifactDeployer deployer;
+  private RepositorySystem repositorySystem;
 
   enum TerraformDeployParam {
-    file, pomFile, url, packaging, generatePom, artifactId, groupId, version;
+    file, pomFile, url, packaging, generatePom, artifactId, groupId, version, repositoryId, attachments;
   }
 
-  public TerraformDeploy(Log log, MavenProject project) {
-    this.log = log;
-    this.project = project;
+  /**
+   * Instantiates TerraformDeploy.
+   * @param log       Maven Log
+   * @param project   the Maven project being deployed
+   * @param session   the Maven session; its repository system session is used to deploy
+   * @param deployer  the ArtifactDeployer
+   */
+  public TerraformDeploy(Log log, MavenProject project, MavenSession session, ArtifactDeployer deployer) {
+    this(log, project, session, deployer, null);
   }
 
-  @Override
-  public String execute(Properties properties) throws TerraformException {
-    deployFileToMavenRepo(new DefaultInvoker(), new DefaultInvocationRequest(), System.getProperties());
-    return "Successfully deployed";
+  /**
+   * Instantiates TerraformDeploy.
+   * @param log               Maven Log
+   * @param project           the Maven project being deployed
+   * @param session           the Maven session; its repository system session is used to deploy
+   * @param deployer          the ArtifactDeployer
+   * @param repositorySystem  the RepositorySystem that injects the repo's credentials and proxy from settings.xml, which
+   *                          are used to read the deployed checksums and metadata; if null, they're read anonymously
+   */
+  public TerraformDeploy(Log log, MavenProject project, MavenSession session, ArtifactDeployer deployer, RepositorySystem repositorySystem) {
+    this.log = log;
+    this.project = project;
+    this.session = session;
+    this.deployer = deployer;
+    this.repositorySystem = repositorySystem;
   }
 
   /**
    * Deploys a file w/POM to the Maven repo at the specified URL.
    * <p>
    *   Properties accepted:<br>
-   *   file - the file to be deployed to the Maven repo<br>
-   *   url - the url of the Maven repo<br>
-   *   pomFile - the POM file to be associated with the file<br>
+   *   file - the file to be deployed to the Maven repo; defaults to target/{artifactId}-{version}.zip<br>
+   *   url - the url of the Maven repo; defaults to the local Maven repo (i.e. file://~/.m2/repository)<br>
+   *   repositoryId - the id of the Maven repo, which is used to find its credentials in settings.xml; defaults to remote-repository<br>
+   *   pomFile - the POM file to be associated with the file; defaults to .flattened-pom.xml<br>
+   *   generatePom - if set, then a POM is generated from the project's coordinates instead<br>
+   *   packaging - the packaging (i.e. the type and extension) of the file; defaults to the file's extension (e.g. zip or tar.gz)<br>
+   *   attachments - comma separated {classifier}:{file} pairs of other files deployed with the file (e.g. fat:target/my-module-1.0-fat.tar.gz)<br>
    * </p>
-   * @param invoker             Maven Invoker
-   * @param request             Maven InvocationRequest
-   * @param properties          Properties to be applied
+   * <p>
+   *   The file, its attachments, its POM and the SHA-256 of each file written by tf:package (i.e. {file}.sha256) are
+   *   deployed in a single request; the repository system uploads them one after another and adds their SHA-1 and MD5
+   *   checksums. The repo's metadata is only updated once all of the files are uploaded, so either all of them are
+   *   deployed or the deployed version is unchanged. The files aren't deployed concurrently in separate requests, since
+   *   each request would update the metadata and give a SNAPSHOT's files different versions.
+   * </p>
+   * <p>
+   *   Deploys are skipped if the same artifacts are already deployed: the SHA-1 of each file is compared with the
+   *   deployed copy (for file:// repos) or with the deployed SHA-1 checksum file; SNAPSHOTs are compared with the
+   *   latest deployed SNAPSHOT. The files are only skipped together, so a SNAPSHOT's files always have the same version.
+   *   The checksums and metadata are read with the repo's credentials (i.e. the server in settings.xml with the
+   *   repositoryId) and through its proxy, like the deploy.
+   * </p>
+   * @param properties  Properties to be applied
+   * @return            a message including the file deployed
    * @throws TerraformException
    */
-  final Properties deployFileToMavenRepo(Invoker invoker, InvocationRequest request, Properties properties) throws TerraformException {
-    Properties deployFileProps = new Properties();
-
-    deployFileProps.put(TerraformDeployParam.url.toString(), properties.getProperty(TerraformDeployParam.url.toString(), String.format("file://%1$s", Paths.get(System.getenv("HOME"), ".m2", "repository"))));
-
-    if (!properties.containsKey(TerraformDeployParam.file.toString())) {
-      Path targetPath = Paths.get("target").resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
-      deployFileProps.setProperty(TerraformDeployParam.file.toString(), targetPath.toString());
-    } else {
-      deployFileProps.setProperty(TerraformDeployParam.file.toString(), properties.getProperty(TerraformDeployParam.file.toString()));
+  @Override
+  public String execute(Properties properties) throws TerraformException {
+    Path file = getBasedir().resolve(properties.getProperty(TerraformDeployParam.file.toString(),
+        getTargetDir().resolve(String.format("%1$s-%2$s.%3$s", project.getArtifactId(), project.getVersion(), PACKAGING)).toString()));
+    if (!file.toFile().isFile()) {
+      throw new TerraformException(String.format("Unable to deploy %1$s; it does not exist", file));
     }
-    
-    deployFileProps.put(TerraformDeployParam.packaging.toString(), PACKAGING);
-    log.info(String.format("Deploying %1$s to %2$s", deployFileProps.getProperty(TerraformDeployParam.file.toString()), deployFileProps.getProperty(TerraformDeployParam.url.toString())));
+    String packaging = properties.getProperty(TerraformDeployParam.packaging.toString(),
+        ExpandableArtifact.getExtension(file.getFileName().toString()).orElse(PACKAGING));
+    String url = properties.getProperty(TerraformDeployParam.url.toString(),
+        String.format("file://%1$s", Paths.get(System.getProperty("user.home"), ".m2", "repository")));
+    ArtifactRepository repository = createRepository(
+        properties.getProperty(TerraformDeployParam.repositoryId.toString(), DEFAULT_REPOSITORY_ID), url);
 
+    Path pomFile;
     if (properties.containsKey(TerraformDeployParam.generatePom.toString())) {
-      deployFileProps.put(TerraformDeployParam.generatePom.toString(), properties.getProperty(TerraformDeployParam.generatePom.toString()));
-      deployFileProps.put(TerraformDeployParam.artifactId.toString(), project.getArtifactId());
-      deployFileProps.put(TerraformDeployParam.groupId.toString(), project.getGroupId());
-      deployFileProps.put(TerraformDeployParam.version.toString(), project.getVersion());
+      pomFile = generatePom(packaging);
       log.info("Using generated POM");
     } else {
-      if (!properties.containsKey(TerraformDeployParam.pomFile.toString())) {
-        Path pomFile = Paths.get(".flattened-pom.xml");
-        deployFileProps.setProperty(TerraformDeployParam.pomFile.toString(), pomFile.toAbsolutePath().toString());
-      } else {
-        deployFileProps.setProperty(TerraformDeployParam.pomFile.toString(), properties.getProperty(TerraformDeployParam.pomFile.toString()));
+      pomFile = getBasedir().resolve(properties.getProperty(TerraformDeployParam.pomFile.toString(), ".flattened-pom.xml")).toAbsolutePath();
+      log.info(String.format("Using POM: %1$s", pomFile));
+    }
+
+    List<Artifact> artifacts = new ArrayList<>();
+    Artifact artifact = addArtifact(artifacts, packaging, null, file);
+    //the POM is deployed with the artifact
+    artifact.addMetadata(new ProjectArtifactMetadata(artifact, pomFile.toFile()));
+    for (Map.Entry<String, Path> attachment : getAttachments(properties).entrySet()) {
+      addArtifact(artifacts, ExpandableArtifact.getExtension(attachment.getValue().getFileName().toString()).orElse(PACKAGING),
+          attachment.getKey(), attachment.getValue());
+    }
+
+    List<String> unchangedFiles;
+    try (Span span = Tracer.getInstance().start("deploy", String.format("compare %1$s", url))) {
+      unchangedFiles = getUnchangedFiles(repository, artifacts, pomFile);
+    }
+    if (unchangedFiles.size() == artifacts.size() + 1) {
+      unchangedFiles.forEach(unchangedFile -> log.info(String.format("Skipped %1$s; it is already deployed to %2$s", unchangedFile, url)));
+      return String.format("Skipped deploying %1$s; identical artifacts are already deployed", file);
+    }
+
+    log.info(String.format("Deploying %1$s to %2$s", artifacts.stream().map(Artifact::getFile).map(File::toString)
+        .collect(Collectors.joining(", ")), url));
+    try (Span span = Tracer.getInstance().start("deploy", String.format("deploy %1$s", file.getFileName()))) {
+      deployer.deploy(session.getProjectBuildingRequest(), repository, artifacts);
+    } catch (ArtifactDeployerException e) {
+      throw new TerraformException("Unable to deploy to Maven repo", e);
+    }
+    return String.format("Successfully deployed %1$s", file);
+  }
+
+  /**
+   * Gets the attachments deployed with the file.
+   * @param properties  Properties with the attachments as comma separated {classifier}:{file} pairs
+   * @return            the files keyed by classifier, in the order they were specified
+   * @throws TerraformException if an attachment isn't a {classifier}:{file} pair, its classifier is repeated or its file doesn't exist
+   */
+  private Map<String, Path> getAttachments(Properties properties) throws TerraformException {
+    Map<String, Path> attachments = new LinkedHashMap<>();
+    for (String attachment : StringUtils.split(properties.getProperty(TerraformDeployParam.attachments.toString(), ""), ',')) {
+      String[] classifierAndFile = attachment.trim().split(":", 2);
+      if (classifierAndFile.length < 2 || StringUtils.isAnyBlank(classifierAndFile)) {
+        throw new TerraformException(String.format("Unable to deploy attachment '%1$s'; it must be {classifier}:{file}", attachment));
+      }
+      Path file = getBasedir().resolve(classifierAndFile[1].trim());
+      if (!file.toFile().isFile()) {
+        throw new TerraformException(String.format("Unable to deploy %1$s; it does not exist", file));
+      }
+      if (attachments.put(classifierAndFile[0].trim(), file) != null) {
+        throw new TerraformException(String.format("Unable to deploy %1$s; classifier '%2$s' is used more than once", file, classifierAndFile[0].trim()));
+      }
+    }
+    return attachments;
+  }
+
+  /**
+   * Adds the artifact for a file and, if tf:package wrote one, the artifact for its SHA-256 sidecar file.
+   * @param artifacts   the artifacts to be deployed
+   * @param packaging   the packaging of the file
+   * @param classifier  the classifier of the file; null for the main artifact
+   * @param file        the file
+   * @return            the artifact for the file
+   */
+  private Artifact addArtifact(List<Artifact> artifacts, String packaging, String classifier, Path file) {
+    Artifact artifact = createArtifact(packaging, classifier, file);
+    artifacts.add(artifact);
+    Path sha256File = Checksums.getSidecarFile(file, Checksums.SHA256);
+    if (sha256File.toFile().isFile()) {
+      artifacts.add(createArtifact(String.format("%1$s.sha256", packaging), classifier, sha256File));
+    }
+    return artifact;
+  }
+
+  /**
+   * Gets the files (and the POM) that are already deployed with the same contents.
+   * @param repository  the Maven repo
+   * @param artifacts   the artifacts to be deployed
+   * @param pomFile     the POM to be deployed
+   * @return            the deployed filenames of the unchanged files
+   */
+  private List<String> getUnchangedFiles(ArtifactRepository repository, List<Artifact> artifacts, Path pomFile) {
+    List<Artifact> deployedArtifacts = new ArrayList<>(artifacts);
+    deployedArtifacts.add(createArtifact("pom", null, pomFile));
+    List<String> unchangedFiles = new ArrayList<>();
+    for (Artifact artifact : deployedArtifacts) {
+      String path = getDeployedPath(repository, artifact);
+      Optional<String> deployedChecksum = getDeployedChecksum(repository, path);
+      if (!deployedChecksum.isPresent()) break;
+      try (InputStream inputStream = Files.newInputStream(artifact.getFile().toPath())) {
+        if (!deployedChecksum.get().equals(Checksums.checksum(inputStream, Checksums.SHA1))) break;
+      } catch (IOException e) {
+        break;
       }
-      log.info(String.format("Using POM: %1$s", deployFileProps.getProperty(TerraformDeployParam.pomFile.toString())));
+      unchangedFiles.add(path.substring(path.lastIndexOf('/') + 1));
     }
+    return unchangedFiles;
+  }
+
+  /**
+   * Gets the path of a deployed artifact in a Maven repo; the path of a SNAPSHOT is the latest deployed SNAPSHOT.
+   * @param repository  the Maven repo
+   * @param artifact    the artifact
+   * @return            the path relative to the Maven repo's url
+   */
+  private String getDeployedPath(ArtifactRepository repository, Artifact artifact) {
+    String path = repository.pathOf(artifact);
+    if (!artifact.isSnapshot()) return path;
+    String metadataPath = String.format("%1$s/maven-metadata.xml", path.substring(0, path.lastIndexOf('/')));
+    try (InputStream inputStream = openDeployedFile(repository, metadataPath)) {
+      Metadata metadata = new MetadataXpp3Reader().read(inputStream);
+      if (metadata.getVersioning() == null) return path;
+      String extension = artifact.getArtifactHandler().getExtension();
+      Optional<String> version = metadata.getVersioning().getSnapshotVersions().stream()
+          .filter(snapshotVersion -> extension.equals(snapshotVersion.getExtension()))
+          .filter(snapshotVersion -> Objects.equals(artifact.getClassifier(), emptyToNull(snapshotVersion.getClassifier())))
+          .map(SnapshotVersion::getVersion)
+          .findFirst();
+      if (!version.isPresent()) return path;
+      Artifact deployedArtifact = new DefaultArtifact(artifact.getGroupId(), artifact.getArtifactId(), version.get(),
+          null, artifact.getType(), artifact.getClassifier(), artifact.getArtifactHandler());
+      return repository.pathOf(deployedArtifact);
+    } catch (IOException | XmlPullParserException e) {
+      //without metadata, the SNAPSHOT is deployed with its -SNAPSHOT version (e.g. installed in a local repo)
+      return path;
+    }
+  }
+
+  /**
+   * Gets the SHA-1 of a deployed file; for a file:// repo, it's the SHA-1 of the deployed copy of the file.
+   * @param repository  the Maven repo
+   * @param path        the path of the file relative to the Maven repo's url
+   * @return            the hex encoded SHA-1, or empty if the file isn't deployed or its SHA-1 can't be read
+   */
+  private Optional<String> getDeployedChecksum(ArtifactRepository repository, String path) {
+    boolean isFileRepository = "file".equals(repository.getProtocol());
+    try (InputStream inputStream = openDeployedFile(repository, isFileRepository ? path : String.format("%1$s.sha1", path))) {
+      if (isFileRepository) return Optional.of(Checksums.checksum(inputStream, Checksums.SHA1));
+      String checksum = IOUtils.toString(inputStream, StandardCharsets.UTF_8).trim();
+      return checksum.isEmpty() ? Optional.empty() : Optional.of(checksum.split("\\s+")[0].toLowerCase());
+    } catch (IOException e) {
+      log.debug(String.format("Unable to read the deployed %1$s: %2$s", path, e.getMessage()));
+      return Optional.empty();
+    }
+  }
+
+  private static InputStream openDeployedFile(ArtifactRepository repository, String path) throws IOException {
+    if ("file".equals(repository.getProtocol())) return Files.newInputStream(Paths.get(repository.getBasedir(), path));
+    URL url = new URL(String.format("%1$s/%2$s", StringUtils.removeEnd(repository.getUrl(), "/"), path));
+    Proxy proxy = repository.getProxy();
+    URLConnection connection = proxy == null
+        ? url.openConnection()
+        : url.openConnection(new java.net.Proxy(StringUtils.startsWithIgnoreCase(proxy.getProtocol(), "socks") ? java.net.Proxy.Type.SOCKS : java.net.Proxy.Type.HTTP,
+            new InetSocketAddress(proxy.getHost(), proxy.getPort())));
+    if (proxy != null && !StringUtils.isEmpty(proxy.getUserName())) {
+      connection.setRequestProperty("Proxy-Authorization", getBasicAuthorization(proxy.getUserName(), proxy.getPassword()));
+    }
+    Authentication authentication = repository.getAuthentication();
+    if (authentication != null && !StringUtils.isEmpty(authentication.getUsername())) {
+      connection.setRequestProperty("Authorization", getBasicAuthorization(authentication.getUsername(), authentication.getPassword()));
+    }
+    connection.setConnectTimeout(TIMEOUT);
+    connection.setReadTimeout(TIMEOUT);
+    return connection.getInputStream();
+  }
+
+  private static String getBasicAuthorization(String username, String password) {
+    return "Basic " + Base64.getEncoder().encodeToString(
+      String.format("%1$s:%2$s", username, StringUtils.defaultString(password)).getBytes(StandardCharsets.UTF_8));
+  }
 
-    request.setGoals(Arrays.asList("deploy:deploy-file"));
-    request.setProperties(deployFileProps);
+  private static String emptyToNull(String value) {
+    return StringUtils.isEmpty(value) ? null : value;
+  }
+
+  private Artifact createArtifact(String type, String classifier, Path file) {
+    Artifact artifact = new DefaultArtifact(project.getGroupId(), project.getArtifactId(), project.getVersion(),
+        null, type, classifier, new DefaultArtifactHandler(type));
+    artifact.setFile(file.toFile());
+    return artifact;
+  }
+
+  /**
+   * Gets the basedir of the project; paths are relative to it (not the working directory), so modules can be deployed concurrently.
+   * @return  the project's basedir, or the working directory if the project has no basedir
+   */
+  private Path getBasedir() {
+    return project.getBasedir() == null ? Paths.get("") : project.getBasedir().toPath();
+  }
+
+  private Path getTargetDir() {
+    return getBasedir().resolve("target");
+  }
+
+  /**
+   * Creates the Maven repo the file is deployed to, with the credentials of the server with the same id and the active
+   * proxy for its url from settings.xml (decrypted by the RepositorySystem).
+   * @param id  the id of the Maven repo
+   * @param url the url of the Maven repo
+   * @return    the Maven repo
+   */
+  private ArtifactRepository createRepository(String id, String url) {
+    ArtifactRepositoryPolicy policy = new ArtifactRepositoryPolicy();
+    ArtifactRepository repository = new MavenArtifactRepository(id, url, new DefaultRepositoryLayout(), policy, policy);
+    Settings settings = session.getSettings();
+    if (repositorySystem != null && settings != null) {
+      List<ArtifactRepository> repositories = Collections.singletonList(repository);
+      repositorySystem.injectAuthentication(repositories, settings.getServers());
+      repositorySystem.injectProxy(repositories, settings.getProxies());
+    }
+    return repository;
+  }
+
+  /**
+   * Generates a POM from the project's coordinates in target/{artifactId}-{version}.pom.
+   * @param packaging the packaging of the artifact
+   * @return          the Path of the generated POM
+   * @throws TerraformException
+   */
+  private Path generatePom(String packaging) throws TerraformException {
+    Model model = new Model();
+    model.setModelVersion("4.0.0");
+    model.setGroupId(project.getGroupId());
+    model.setArtifactId(project.getArtifactId());
+    model.setVersion(project.getVersion());
+    model.setPackaging(packaging);
+    Path pomFile = getTargetDir().resolve(String.format("%1$s-%2$s.pom", project.getArtifactId(), project.getVersion())).toAbsolutePath();
     try {
-      invoker.execute(request);
-      return deployFileProps;
-    } catch (MavenInvocationException e) {
-      throw new TerraformException("Unable to deploy to Maven repo", e);
+      Files.createDirectories(pomFile.getParent());
+      try (Writer writer = Files.newBufferedWriter(pomFile, StandardCharsets.UTF_8)) {
+        new MavenXpp3Writer().write(writer, model);
+      }
+    } catch (IOException e) {
+      throw new TerraformException("Unable to generate POM", e);
     }
+    return pomFile;
   }
 }
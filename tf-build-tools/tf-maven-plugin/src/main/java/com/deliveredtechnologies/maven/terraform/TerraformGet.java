@@ -1,12 +1,25 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.CompressionCodec;
+import com.deliveredtechnologies.maven.io.Expandable;
+import com.deliveredtechnologies.maven.io.ExpandableArtifact;
+import com.deliveredtechnologies.maven.io.ExpandableGZipTarArtifact;
 import com.deliveredtechnologies.maven.io.ExpandableZippedArtifact;
+import com.deliveredtechnologies.maven.io.Fingerprint;
+import com.deliveredtechnologies.maven.io.LockFile;
 
 import com.deliveredtechnologies.maven.logs.Slf4jMavenAdapter;
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformModuleScanner;
 import com.deliveredtechnologies.terraform.TerraformUtils;
 import com.deliveredtechnologies.terraform.api.TerraformOperation;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
 import org.apache.maven.shared.invoker.InvocationRequest;
@@ -15,13 +28,34 @@ import org.apache.maven.shared.invoker.MavenInvocationException;
 import org.codehaus.plexus.util.FileUtils;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Properties;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 /**
@@ -30,9 +64,20 @@ import java.util.stream.Collectors;
 public class TerraformGet implements TerraformOperation<List<Path>> {
 
   private static final String PACKAGING = "zip";
+  private static final Set<String> EXPANDABLE_TYPES = new HashSet<>(Arrays.asList(PACKAGING, "tar.gz", "tgz", "tar.zst", "tar"));
 
   private Path tfModules;
   private Log log;
+  private Optional<MavenProject> project;
+  private Path basedir;
+  private int threads = Runtime.getRuntime().availableProcessors();
+  private Optional<CompressionCodec> codec = Optional.empty();
+
+  enum TerraformGetParams {
+    tfRootDir,
+    lazy,
+    codec;
+  }
 
   /**
    * Constructor.
@@ -40,12 +85,30 @@ public class TerraformGet implements TerraformOperation<List<Path>> {
    * @param tfModules the common modules directory; if null, it's defaulted to src/main/.tfmodules
    */
   public TerraformGet(Log log, String tfModules) throws IOException {
-    this(log, TerraformUtils.getDefaultTfModulesDir());
+    this(log, tfModules, null);
+  }
+
+  /**
+   * Constructor.
+   * When a MavenProject is specified, its resolved (transitive) zip and tar.gz artifacts are expanded in place of
+   * forking a Maven build to copy the dependencies.
+   * @param log       Maven Log
+   * @param tfModules the common modules directory; if null, it's defaulted to src/main/.tfmodules
+   * @param project   the MavenProject whose resolved artifacts are expanded; if null, dependencies are copied by Maven
+   */
+  public TerraformGet(Log log, String tfModules, MavenProject project) throws IOException {
+    this(log, StringUtils.isEmpty(tfModules) ? TerraformUtils.getDefaultTfModulesDir(getBasedir(project)) : getBasedir(project).resolve(tfModules), project);
   }
 
   protected TerraformGet(Log log, Path tfModules) throws IOException {
+    this(log, tfModules, null);
+  }
+
+  protected TerraformGet(Log log, Path tfModules, MavenProject project) throws IOException {
     this.log = log;
     this.tfModules = tfModules;
+    this.project = Optional.ofNullable(project);
+    this.basedir = getBasedir(project);
     if (!this.tfModules.toFile().exists()) FileUtils.forceMkdir(this.tfModules.toFile());
   }
 
@@ -66,10 +129,83 @@ public class TerraformGet implements TerraformOperation<List<Path>> {
     this(new Slf4jMavenAdapter(LoggerFactory.getLogger(TerraformGet.class)), (String)null);
   }
 
+  /**
+   * Gets the Terraform Maven dependencies and expands them into the common modules directory.
+   * <p>
+   *   Valid Properties:<br>
+   *   tfRootDir - the Terraform root module directory; defaults to each root module under src/main/tf<br>
+   *   lazy - if "true", then only the dependencies referenced by the root module(s), directly or through other modules,
+   *   are expanded and the unused dependencies are reported; defaults to "false"<br>
+   *   codec - the compression codec of tar artifacts (valid values are "gzip", "zstd" or "store"); defaults to the codec
+   *   identified by each artifact's type (i.e. tar.gz or tgz for gzip, tar.zst for zstd and tar for store)
+   * </p>
+   * @param properties  property options for getting the Terraform Maven dependencies
+   * @return            a List of the expanded directories
+   * @throws TerraformException
+   */
   @Override
   public List<Path> execute(Properties properties) throws TerraformException {
+    String codecName = properties.getProperty(TerraformGetParams.codec.toString());
+    try {
+      codec = StringUtils.isEmpty(codecName) ? Optional.empty() : Optional.of(CompressionCodec.forName(codecName));
+    } catch (IllegalArgumentException e) {
+      throw new TerraformException(e.getMessage(), e);
+    }
+    if (project.isPresent() && Boolean.valueOf(properties.getProperty(TerraformGetParams.lazy.toString(), "false"))) {
+      return getReferencedDependenciesFromProject(
+        getRootModuleDirs(properties.getProperty(TerraformGetParams.tfRootDir.toString())), project.get().getArtifacts());
+    } else if (project.isPresent()) {
+      return getDependenciesFromProject(project.get().getArtifacts());
+    }
     getDependenciesFromMavenRepo(new DefaultInvoker(), new DefaultInvocationRequest());
-    return expandMavenArtifacts(tfModules);
+    List<Path> modules = expandMavenArtifacts(tfModules);
+    updateModuleSources(modules);
+    return modules;
+  }
+
+  /**
+   * Fingerprints the inputs of getting the dependencies, so that it can be skipped when they're unchanged: the
+   * project's resolved zip and tar artifacts (by their coordinates and contents), the properties and, if the dependencies
+   * are lazily expanded, the Terraform source that references them.
+   * @param properties  property options for getting the Terraform Maven dependencies
+   * @return            the Fingerprint of the inputs
+   * @throws IOException
+   */
+  public Fingerprint getInputs(Properties properties) throws IOException {
+    Fingerprint inputs = new Fingerprint(".terraform", "*.tfstate", "*.tfstate.backup");
+    for (TerraformGetParams param : TerraformGetParams.values()) {
+      inputs.add(param.toString(), properties.getProperty(param.toString()));
+    }
+    for (Artifact artifact : project.map(MavenProject::getArtifacts).orElse(new HashSet<>())) {
+      if (isExpandable(artifact)) inputs.add(artifact.getId(), artifact.getFile().toPath());
+    }
+    if (Boolean.valueOf(properties.getProperty(TerraformGetParams.lazy.toString(), "false"))) {
+      inputs.add("src", TerraformUtils.getTfSourceDir(basedir));
+    }
+    return inputs;
+  }
+
+  /**
+   * Gets the directories the project's resolved zip and tar artifacts are expanded into.
+   * <br>
+   * If the dependencies are lazily expanded, only the directories of the modules referenced by the root module(s) are
+   * returned; they're found by the same scan of module sources that expands them, but nothing is expanded. A referenced
+   * module that isn't expanded yet is returned, but the modules it references aren't.
+   * @param properties  property options for getting the Terraform Maven dependencies
+   * @return            the module directories in the common modules directory
+   * @throws TerraformException
+   */
+  public Path[] getModuleDirs(Properties properties) throws TerraformException {
+    Collection<Artifact> artifacts = project.map(MavenProject::getArtifacts).orElse(new HashSet<>());
+    ArtifactExpander moduleDirs = referencedArtifacts -> referencedArtifacts.stream()
+        .map(artifact -> tfModules.resolve(getModuleName(artifact)))
+        .collect(Collectors.toList());
+    if (Boolean.valueOf(properties.getProperty(TerraformGetParams.lazy.toString(), "false"))) {
+      Map<String, Artifact> unreferencedArtifacts = getArtifactsByModuleName(artifacts);
+      return scanReferencedModules(getRootModuleDirs(properties.getProperty(TerraformGetParams.tfRootDir.toString())),
+        unreferencedArtifacts, moduleDirs).toArray(new Path[0]);
+    }
+    return moduleDirs.expand(mediateArtifacts(artifacts)).toArray(new Path[0]);
   }
 
   /**
@@ -95,6 +231,57 @@ public class TerraformGet implements TerraformOperation<List<Path>> {
     }
   }
 
+  /**
+   * Expands the resolved artifacts concurrently into the common modules directory.
+   * <p>
+   *   The artifacts are expanded directly from their resolved files (i.e. the local Maven repository); they are not
+   *   copied into the common modules directory first.
+   * </p>
+   * <p>
+   *   Each module is expanded into a temporary directory and renamed into place once it's complete, while holding a
+   *   lock on the module that's shared with other threads and processes (e.g. parallel reactor builds or CI jobs that
+   *   share a workspace). A module that was already expanded from the same artifact file is reused.
+   * </p>
+   * <p>
+   *   The artifacts are expected to be the project's resolved (transitive) dependencies, so Maven's nearest-wins
+   *   mediation has already been applied per groupId:artifactId. Artifacts that would still expand into the same
+   *   module directory are mediated down to the highest version.
+   * </p>
+   * @param artifacts the resolved Maven artifacts
+   * @return          a List of the expanded directories
+   * @throws TerraformException
+   */
+  final List<Path> getDependenciesFromProject(Collection<Artifact> artifacts) throws TerraformException {
+    log.info("Getting transitive artifact dependencies from the Maven project");
+    return expandArtifacts(mediateArtifacts(artifacts));
+  }
+
+  /**
+   * Expands only the resolved artifacts that are referenced by the root modules, directly or through other modules.
+   * <p>
+   *   Module sources are scanned from the root modules; sources that resolve into the common modules directory
+   *   have their artifacts expanded (concurrently) and are then scanned in turn, until no new modules are referenced.
+   *   Resolved artifacts that are never referenced are reported as unused.
+   * </p>
+   * @param rootDirs  the Terraform root module directories
+   * @param artifacts the resolved Maven artifacts
+   * @return          a List of the expanded directories
+   * @throws TerraformException
+   */
+  final List<Path> getReferencedDependenciesFromProject(List<Path> rootDirs, Collection<Artifact> artifacts) throws TerraformException {
+    log.info("Getting artifact dependencies referenced by " + rootDirs);
+
+    Map<String, Artifact> unreferencedArtifacts = getArtifactsByModuleName(artifacts);
+    List<Path> result = scanReferencedModules(rootDirs, unreferencedArtifacts, this::expandArtifacts);
+
+    if (!unreferencedArtifacts.isEmpty()) {
+      log.warn("Unused Terraform module dependencies: " + unreferencedArtifacts.values().stream()
+          .map(Artifact::getId)
+          .collect(Collectors.joining(", ")));
+    }
+    return result;
+  }
+
   /**
    * Expands the compressed Maven artifacts under their parent directory.
    * @param directory directory containing the compressed artifacts
@@ -105,18 +292,264 @@ public class TerraformGet implements TerraformOperation<List<Path>> {
     log.info("Expanding artifacts from " + directory.toAbsolutePath());
 
     try {
-      List<Path> result = new ArrayList<>();
-      List<Path> zipFiles = Files.walk(directory, 1)
-          .filter(path -> path.getFileName().toString().endsWith(".zip"))
+      List<Path> artifactFiles = Files.walk(directory, 1)
+          .filter(path -> ExpandableArtifact.isExpandable(path.getFileName().toString()))
           .collect(Collectors.toList());
 
-      for (Path zipFile : zipFiles) {
-        result.add((new ExpandableZippedArtifact(zipFile, log)).expand()
-            .orElseThrow(() -> new TerraformException("unable to extract " + zipFile.getFileName())));
+      List<Callable<Path>> tasks = new ArrayList<>();
+      for (Path artifactFile : artifactFiles) {
+        Expandable expandable = ExpandableArtifact.isTar(artifactFile.getFileName().toString())
+            ? new ExpandableGZipTarArtifact(artifactFile, log, codec.orElse(null))
+            : new ExpandableZippedArtifact(artifactFile, log);
+        tasks.add(() -> {
+          try (Span span = Tracer.getInstance().start("expand", artifactFile.getFileName().toString())) {
+            return expandable.expand()
+                .orElseThrow(() -> new TerraformException("unable to extract " + artifactFile.getFileName()));
+          }
+        });
       }
-      return result;
+      return invokeAll(tasks);
     } catch (IOException e) {
       throw new TerraformException("Unable to extract maven artifacts");
     }
   }
+
+  /**
+   * Selects the zip and tar.gz artifacts to expand, keeping only the highest version of artifacts that expand into the same directory.
+   * @param artifacts the resolved Maven artifacts
+   * @return          the artifacts to be expanded
+   */
+  final Collection<Artifact> mediateArtifacts(Collection<Artifact> artifacts) {
+    Map<String, Artifact> mediatedArtifacts = new LinkedHashMap<>();
+    for (Artifact artifact : artifacts) {
+      if (!isExpandable(artifact)) continue;
+
+      String moduleName = getModuleName(artifact);
+      Artifact mediatedArtifact = mediatedArtifacts.get(moduleName);
+      if (mediatedArtifact == null) {
+        mediatedArtifacts.put(moduleName, artifact);
+        continue;
+      }
+      Artifact selectedArtifact = new ComparableVersion(artifact.getBaseVersion())
+          .compareTo(new ComparableVersion(mediatedArtifact.getBaseVersion())) > 0 ? artifact : mediatedArtifact;
+      log.warn(String.format("Module conflict for %1$s between %2$s and %3$s; using %4$s",
+          moduleName, artifact.getId(), mediatedArtifact.getId(), selectedArtifact.getId()));
+      mediatedArtifacts.put(moduleName, selectedArtifact);
+    }
+    return mediatedArtifacts.values();
+  }
+
+  /**
+   * Updates module sources in the expanded modules that point to the common modules directory (e.g. ../../.tfmodules/module)
+   * so that they resolve relative to where the module was expanded.
+   * @param modules the expanded module directories
+   * @return        the number of files updated
+   * @throws TerraformException
+   */
+  final int updateModuleSources(List<Path> modules) throws TerraformException {
+    Pattern sourcePattern = Pattern.compile(String.format("(source\\s*=\\s*\")(?:\\.\\./)+%1$s/",
+        Pattern.quote(tfModules.getFileName().toString())));
+    int count = 0;
+    try {
+      for (Path module : modules) {
+        List<Path> tfFiles = Files.walk(module)
+            .filter(path -> path.getFileName().toString().endsWith(".tf") && path.toFile().isFile())
+            .collect(Collectors.toList());
+        for (Path tfFile : tfFiles) {
+          String relativeModulesPath = tfFile.toAbsolutePath().getParent().relativize(tfModules.toAbsolutePath())
+              .toString().replace(File.separatorChar, '/');
+          String contents = new String(Files.readAllBytes(tfFile), StandardCharsets.UTF_8);
+          String updatedContents = sourcePattern.matcher(contents)
+              .replaceAll("$1" + Matcher.quoteReplacement(relativeModulesPath + "/"));
+          if (!updatedContents.equals(contents)) {
+            log.debug("Updating module sources in " + tfFile);
+            Files.write(tfFile, updatedContents.getBytes(StandardCharsets.UTF_8));
+            count++;
+          }
+        }
+      }
+      return count;
+    } catch (IOException e) {
+      throw new TerraformException("Unable to update module sources", e);
+    }
+  }
+
+  private Map<String, Artifact> getArtifactsByModuleName(Collection<Artifact> artifacts) {
+    Map<String, Artifact> artifactsByModuleName = new LinkedHashMap<>();
+    for (Artifact artifact : mediateArtifacts(artifacts)) {
+      artifactsByModuleName.put(getModuleName(artifact), artifact);
+    }
+    return artifactsByModuleName;
+  }
+
+  /**
+   * Scans module sources from the root modules; the artifacts of sources that resolve into the common modules directory
+   * are expanded (and removed from unreferencedArtifacts) and the module directories are then scanned in turn, until no
+   * new modules are referenced.
+   * @param rootDirs              the Terraform root module directories
+   * @param unreferencedArtifacts the artifacts by module name that haven't been referenced yet
+   * @param expander              expands the referenced artifacts of each pass of the scan
+   * @return                      the directories returned by the expander
+   * @throws TerraformException
+   */
+  private List<Path> scanReferencedModules(List<Path> rootDirs, Map<String, Artifact> unreferencedArtifacts,
+                                           ArtifactExpander expander) throws TerraformException {
+    Path modulesDir = tfModules.toAbsolutePath().normalize();
+    List<Path> result = new ArrayList<>();
+    Set<Path> scannedDirs = new HashSet<>();
+    Deque<Path> dirsToScan = new ArrayDeque<>();
+    rootDirs.forEach(rootDir -> dirsToScan.add(rootDir.toAbsolutePath().normalize()));
+    try {
+      while (!dirsToScan.isEmpty()) {
+        List<Artifact> referencedArtifacts = new ArrayList<>();
+        Set<Path> referencedModuleDirs = new LinkedHashSet<>();
+        while (!dirsToScan.isEmpty()) {
+          Path dir = dirsToScan.poll();
+          if (!scannedDirs.add(dir)) continue;
+
+          for (String source : TerraformModuleScanner.getModuleSources(dir)) {
+            //only local paths can resolve to a module on disk; registry, git, etc. sources are left to terraform
+            if (!source.startsWith("./") && !source.startsWith("../")) continue;
+
+            Path sourceDir = dir.resolve(source).normalize();
+            if (!sourceDir.startsWith(modulesDir) || sourceDir.equals(modulesDir)) {
+              dirsToScan.add(sourceDir);
+              continue;
+            }
+            Artifact artifact = unreferencedArtifacts.remove(modulesDir.relativize(sourceDir).getName(0).toString());
+            if (artifact != null) referencedArtifacts.add(artifact);
+            referencedModuleDirs.add(sourceDir);
+          }
+        }
+        result.addAll(expander.expand(referencedArtifacts));
+        dirsToScan.addAll(referencedModuleDirs);
+      }
+    } catch (IOException e) {
+      throw new TerraformException("Unable to scan Terraform module sources", e);
+    }
+    return result;
+  }
+
+  private List<Path> expandArtifacts(Collection<Artifact> artifacts) throws TerraformException {
+    List<Callable<Path>> tasks = new ArrayList<>();
+    for (Artifact artifact : artifacts) {
+      tasks.add(() -> {
+        try (Span span = Tracer.getInstance().start("expand", artifact.getId())) {
+          return expandArtifact(artifact);
+        }
+      });
+    }
+    return invokeAll(tasks);
+  }
+
+  private Path expandArtifact(Artifact artifact) throws TerraformException, IOException {
+    String moduleName = getModuleName(artifact);
+    Path moduleDir = tfModules.resolve(moduleName);
+    Path stampFile = tfModules.resolve(String.format(".%1$s.stamp", moduleName));
+    File artifactFile = artifact.getFile();
+    String stamp = String.format("%1$s:%2$d:%3$d", artifactFile.getAbsolutePath(), artifactFile.length(), artifactFile.lastModified());
+
+    try (LockFile lock = LockFile.acquire(tfModules.resolve(String.format(".%1$s.lock", moduleName)))) {
+      if (moduleDir.toFile().isDirectory() && stampFile.toFile().isFile()
+          && stamp.equals(new String(Files.readAllBytes(stampFile), StandardCharsets.UTF_8))) {
+        log.info(String.format("Using %1$s already expanded from %2$s", moduleDir, artifactFile.getName()));
+        return moduleDir;
+      }
+
+      //expand and update the module sources next to the module directory, so the updated sources resolve the same after it's moved
+      Path tmpDir = tfModules.resolve(String.format(".%1$s.%2$s", moduleName, UUID.randomUUID()));
+      try {
+        Expandable expandable = PACKAGING.equals(artifact.getType())
+            ? new ExpandableZippedArtifact(artifactFile.toPath(), tmpDir, log)
+            : new ExpandableGZipTarArtifact(artifactFile.toPath(), tmpDir, log, threads,
+                codec.orElseGet(() -> CompressionCodec.forTarFilename(getArtifactFilename(artifact)).orElse(null)));
+        expandable.expand().orElseThrow(() -> new TerraformException("unable to extract " + artifactFile.getName()));
+        updateModuleSources(Arrays.asList(tmpDir));
+
+        Files.deleteIfExists(stampFile);
+        if (moduleDir.toFile().exists()) {
+          Path staleDir = tfModules.resolve(String.format(".%1$s.%2$s", moduleName, UUID.randomUUID()));
+          Files.move(moduleDir, staleDir, StandardCopyOption.ATOMIC_MOVE);
+          FileUtils.forceDelete(staleDir.toFile());
+        }
+        Files.move(tmpDir, moduleDir, StandardCopyOption.ATOMIC_MOVE);
+        Files.write(stampFile, stamp.getBytes(StandardCharsets.UTF_8));
+      } finally {
+        if (tmpDir.toFile().exists()) FileUtils.forceDelete(tmpDir.toFile());
+      }
+    }
+    return moduleDir;
+  }
+
+  private List<Path> getRootModuleDirs(String tfRootDir) throws TerraformException {
+    try {
+      if (!StringUtils.isEmpty(tfRootDir)) {
+        return Arrays.asList(TerraformUtils.getTerraformRootModuleDir(basedir, tfRootDir));
+      }
+      Path tfSourcePath = TerraformUtils.getTfSourceDir(basedir);
+      if (tfSourcePath.toFile().isDirectory()) {
+        return Files.walk(tfSourcePath, 2)
+          .filter(path -> path.toFile().isDirectory())
+          .filter(path -> Arrays.stream(path.toFile().listFiles()).anyMatch(file -> file.isFile() && file.getName().endsWith(".tf")))
+          .collect(Collectors.toList());
+      }
+      return Arrays.asList(TerraformUtils.getDefaultTerraformRootModuleDir(basedir));
+    } catch (IOException e) {
+      throw new TerraformException("Unable to find the Terraform root modules", e);
+    }
+  }
+
+  /**
+   * Determines if a resolved artifact is a Terraform module that's expanded into the common modules directory.
+   * @param artifact  the resolved Maven artifact
+   * @return          true if the artifact is a zip or tar (e.g. tar.gz) with a resolved file
+   */
+  public static boolean isExpandable(Artifact artifact) {
+    return EXPANDABLE_TYPES.contains(artifact.getType()) && artifact.getFile() != null;
+  }
+
+  /**
+   * Gets the basedir of a project; paths are relative to it (not the working directory), so modules can be built concurrently.
+   * @param project the MavenProject
+   * @return        the project's basedir, or the working directory if there isn't a project (or it has no basedir)
+   */
+  private static Path getBasedir(MavenProject project) {
+    return project == null || project.getBasedir() == null ? Paths.get("") : project.getBasedir().toPath();
+  }
+
+  private List<Path> invokeAll(List<Callable<Path>> tasks) throws TerraformException {
+    if (tasks.isEmpty()) return new ArrayList<>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, tasks.size()));
+    try {
+      List<Path> result = new ArrayList<>();
+      for (Future<Path> future : executor.invokeAll(tasks)) {
+        result.add(future.get());
+      }
+      return result;
+    } catch (ExecutionException e) {
+      throw e.getCause() instanceof TerraformException
+        ? (TerraformException)e.getCause()
+        : new TerraformException("Unable to get maven artifacts", e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TerraformException("Interrupted while getting maven artifacts", e);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  @FunctionalInterface
+  private interface ArtifactExpander {
+    List<Path> expand(Collection<Artifact> artifacts) throws TerraformException;
+  }
+
+  private static String getModuleName(Artifact artifact) {
+    return ExpandableArtifact.getArtifactName(getArtifactFilename(artifact));
+  }
+
+  private static String getArtifactFilename(Artifact artifact) {
+    return String.format("%1$s-%2$s%3$s.%4$s", artifact.getArtifactId(), artifact.getBaseVersion(),
+      StringUtils.isEmpty(artifact.getClassifier()) ? "" : "-" + artifact.getClassifier(), artifact.getType());
+  }
 }
@@ -1,12 +1,21 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.AbstractCompressable;
+import com.deliveredtechnologies.maven.io.Checksums;
 import com.deliveredtechnologies.maven.io.Compressable;
 import com.deliveredtechnologies.maven.io.CompressableGZipTarFile;
 import com.deliveredtechnologies.maven.io.CompressableZipFile;
+import com.deliveredtechnologies.maven.io.CompressionCodec;
+import com.deliveredtechnologies.maven.io.Fingerprint;
+import com.deliveredtechnologies.maven.io.GZipCodec;
+import com.deliveredtechnologies.maven.io.StoreCodec;
 import com.deliveredtechnologies.maven.logs.MavenSlf4jAdapter;
 import com.deliveredtechnologies.terraform.TerraformException;
 import com.deliveredtechnologies.terraform.TerraformUtils;
 import com.deliveredtechnologies.terraform.api.TerraformOperation;
+import com.deliveredtechnologies.terraform.api.TerraformProvidersMirror;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.StringUtils;
@@ -15,20 +24,23 @@ import org.apache.maven.project.MavenProject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileFilter;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 import java.util.stream.Collectors;
 
@@ -39,21 +51,40 @@ public class TerraformPackage implements TerraformOperation<String> {
 
   static final String targetDir = "target";
   static final String targetTfRootDir = "tf-root-module";
+  static final String targetProvidersDir = "tf-providers";
+  static final List<String> hclExtensions = Arrays.asList(".tf", ".tf.json", ".hcl");
   static final List<String> excludedFiles = Arrays.asList(new String[] {".terraform", "terraform.tfstate", "terraform.tfstate.backup", ".terraform.tfstate.lock.info"});
 
   private Logger logger;
   private MavenProject project;
+  private Path basedir;
 
   //TODO: Consider using intsance variables instead.
   enum TerraformPackageParams {
     tfModulesDir,
     tfRootDir,
-    fatTar;
+    fatTar,
+    compressionThreads,
+    stage,
+    incremental,
+    codec,
+    manifest,
+    deduplicate,
+    vendorProviders,
+    providerPlatforms;
   }
 
+  /**
+   * Instantiates TerraformPackage.
+   * <br>
+   * Paths are relative to the project's basedir (not the working directory), so modules can be packaged concurrently.
+   * @param project the MavenProject being packaged
+   * @param logger  the Logger
+   */
   public TerraformPackage(MavenProject project, Logger logger) {
     this.logger = logger;
     this.project = project;
+    this.basedir = project.getBasedir() == null ? Paths.get("") : project.getBasedir().toPath();
   }
 
   public TerraformPackage(MavenProject project, Log log) {
@@ -70,7 +101,29 @@ public class TerraformPackage implements TerraformOperation<String> {
    *   Valid Properties:
    *   tfModulesDir - the directory where Terraform Modules dependencies (i.e. Maven Terraform dependencies) are stored; defaults to src/main/.tfmodules<br>
    *   tfRootDir - the directory containing the Terraform root module configuration; defaults to src/main/tf/{first dir found}<br>
-   *   fatTar - if "true", then tar.gz contains the Terraform code for all Maven dependencies ( valid values are "true" or "false"); defaults to "false"
+   *   fatTar - if "true", then tar.gz contains the Terraform code for all Maven dependencies ( valid values are "true" or "false"); defaults to "false"<br>
+   *   compressionThreads - the number of threads used to compress zip entries or gzip blocks; defaults to the number of available processors<br>
+   *   stage - if "true", then the package contents are staged in target/tf-root-module before they are compressed (for debugging);
+   *   otherwise the source files are streamed into the package; defaults to "false"<br>
+   *   incremental - if "true", then the compressed entries of unchanged files are copied from the previous zip instead of
+   *   being compressed again (using an index written to {zip}.index); fatTar packages are always fully compressed; defaults to "false"<br>
+   *   codec - the compression codec (valid values are "gzip", "zstd" or "store"); a fatTar is compressed with the codec
+   *   (e.g. tar.zst for zstd), and zip entries are deflated unless the codec is "store" or they're already compressed
+   *   (e.g. nested zips and images), in which case they're stored; zstd is only valid for a fatTar; defaults to "gzip"<br>
+   *   manifest - if "true", then the SHA-256 of each file in the package is written to META-INF/SHA256SUMS
+   *   (in sha256sum format) as the last entry of the package; defaults to "false"<br>
+   *   deduplicate - if "true", then files in a fatTar with the same contents as another file (e.g. the same file in
+   *   different module versions) are written once, and the duplicates are written as hard links; defaults to "false"<br>
+   *   vendorProviders - if "true", then the providers required by the root module are downloaded with terraform providers
+   *   mirror (into target/tf-providers) and packaged in the fatTar's terraform.d/plugins directory, so that tf:init can
+   *   initialize the expanded fatTar without reaching a provider registry; only valid for a fatTar; defaults to "false"<br>
+   *   providerPlatforms - a comma delimited list of the platforms providers are vendored for (e.g. linux_amd64,darwin_amd64);
+   *   defaults to the current platform
+   * </p>
+   * <p>
+   *   Packages are reproducible: the same sources always create the same bytes. The SHA-256, SHA-1 and MD5 of the package
+   *   are computed as it's written (without reading it back) and written to {package}.sha256, {package}.sha1 and
+   *   {package}.md5 (in sha256sum format); the SHA-256 is logged, so the package can be identified by its contents.
    * </p>
    * @param properties  property options for packaging a Terraform configuration
    * @return            String message with the zip filename included
@@ -79,24 +132,56 @@ public class TerraformPackage implements TerraformOperation<String> {
   @Override
   public String execute(Properties properties) throws TerraformException {
     try {
-      Path targetPath = Paths.get(targetDir);
+      Path targetPath = basedir.resolve(targetDir);
       Path targetTfRootPath = targetPath.resolve(targetTfRootDir);
       String tfModulesDir = properties.getProperty(TerraformPackageParams.tfModulesDir.toString());
       String tfRootDir = properties.getProperty(TerraformPackageParams.tfRootDir.toString());
       boolean isFatTar = Boolean.valueOf(properties.getProperty(TerraformPackageParams.fatTar.toString(), "false"));
+      int compressionThreads = Integer.parseInt(properties.getProperty(TerraformPackageParams.compressionThreads.toString(),
+          String.valueOf(Runtime.getRuntime().availableProcessors())));
+      boolean isIncremental = Boolean.valueOf(properties.getProperty(TerraformPackageParams.incremental.toString(), "false"));
+      CompressionCodec codec = getCodec(properties.getProperty(TerraformPackageParams.codec.toString(), GZipCodec.NAME), isFatTar);
+      boolean hasManifest = Boolean.valueOf(properties.getProperty(TerraformPackageParams.manifest.toString(), "false"));
+      boolean isDeduplicated = Boolean.valueOf(properties.getProperty(TerraformPackageParams.deduplicate.toString(), "false"));
+      boolean isVendored = Boolean.valueOf(properties.getProperty(TerraformPackageParams.vendorProviders.toString(), "false"));
+      if (isVendored && !isFatTar) throw new TerraformException("Providers can only be vendored in a fatTar");
 
       Path tfModulesPath = !StringUtils.isEmpty(tfModulesDir)
-          ? Paths.get(tfModulesDir)
-          : TerraformUtils.getDefaultTfModulesDir();
+          ? basedir.resolve(tfModulesDir)
+          : TerraformUtils.getDefaultTfModulesDir(basedir);
       logger.debug(String.format("tfModulesPath is %1$s", tfModulesPath.toAbsolutePath().toString()));
 
-      File tfSourceFile = Paths.get("src", "main", "tf").toFile();
+      File tfSourceFile = TerraformUtils.getTfSourceDir(basedir).toFile();
       Path tfRootPath = !StringUtils.isEmpty(tfRootDir)
-          ? TerraformUtils.getTerraformRootModuleDir(tfRootDir)
+          ? TerraformUtils.getTerraformRootModuleDir(basedir, tfRootDir)
           : (tfSourceFile.exists() && tfSourceFile.isDirectory() && tfSourceFile.listFiles().length > 1
               ? tfSourceFile.toPath()
-              : TerraformUtils.getDefaultTerraformRootModuleDir());
+              : TerraformUtils.getDefaultTerraformRootModuleDir(basedir));
       logger.debug(String.format("tfRootPath is %1$s", tfRootPath.toAbsolutePath().toString()));
+      Optional<Path> providersPath = isVendored
+          ? Optional.of(mirrorProviders(tfRootPath, targetPath, properties.getProperty(TerraformPackageParams.providerPlatforms.toString())))
+          : Optional.empty();
+
+      if (!Boolean.valueOf(properties.getProperty(TerraformPackageParams.stage.toString(), "false"))) {
+        FileUtils.forceMkdir(targetPath.toFile());
+        AbstractCompressable compressor = isFatTar
+            ? createTarCompressor(getPackageFilename(targetPath, codec.getTarExtension()), null, compressionThreads, codec, isDeduplicated)
+            : new CompressableZipFile(getPackageFilename(targetPath, "zip"), compressionThreads, isIncremental, codec);
+        compressor.setManifest(hasManifest);
+        addEntries(compressor, tfRootPath, isFatTar ? Optional.of(tfModulesPath) : Optional.empty());
+        if (providersPath.isPresent()) addProviderEntries(compressor, providersPath.get());
+        Path packagePath;
+        try (Span span = Tracer.getInstance().start("package", Paths.get(compressor.getFilename()).getFileName().toString())) {
+          packagePath = compressor.compress();
+        }
+        if (isIncremental && !isFatTar) logReusedEntries((CompressableZipFile)compressor);
+        if (isDeduplicated && isFatTar) logLinkedEntries((CompressableGZipTarFile)compressor);
+        logContentHash(packagePath, compressor);
+        if (isFatTar) {
+          return String.format("Created fatTar %1$s file '%2$s'", codec.getTarDescription(), packagePath);
+        }
+        return String.format("Created zip file '%1$s'", packagePath);
+      }
 
       //copy tfRoot directory to target
       if (targetTfRootPath.toFile().exists()) FileUtils.forceDelete(targetTfRootPath.toFile());
@@ -123,56 +208,290 @@ public class TerraformPackage implements TerraformOperation<String> {
         updateDependenciesInTfRoot(targetTfRootPath, tfModulesPath, tfRootPath);
         //copy tfmodules directory into tfRoot directory; i.e. {targetTfRootDir}/{tfModulesDir} if it exists
         if (tfModulesPath.toFile().exists() && tfModulesPath.toFile().isDirectory()) {
-          FileUtils.copyDirectory(tfModulesPath.toFile(), targetTfRootPath.resolve(tfModulesPath.getFileName().toString()).toFile());
+          //tf:get's lock, stamp and in-progress files are hidden in the tfmodules directory; only the modules are copied
+          File tfModulesFile = tfModulesPath.toFile().getAbsoluteFile();
+          FileUtils.copyDirectory(tfModulesPath.toFile(), targetTfRootPath.resolve(tfModulesPath.getFileName().toString()).toFile(),
+              pathname -> !(pathname.getAbsoluteFile().getParentFile().equals(tfModulesFile) && pathname.getName().startsWith(".")));
         }
-        return String.format("Created fatTar gzipped tar file '%1$s'", createGZippedTar(targetPath, targetTfRootPath));
+        if (providersPath.isPresent()) {
+          FileUtils.copyDirectory(providersPath.get().toFile(), targetTfRootPath.resolve(TerraformUtils.getVendoredProvidersDir()).toFile());
+        }
+        return String.format("Created fatTar %1$s file '%2$s'", codec.getTarDescription(),
+            createTar(targetPath, targetTfRootPath, compressionThreads, codec, hasManifest, isDeduplicated));
       }
-      return String.format("Created zip file '%1$s'", createZip(targetPath, targetTfRootPath));
+      return String.format("Created zip file '%1$s'", createZip(targetPath, targetTfRootPath, compressionThreads, isIncremental, codec, hasManifest));
     } catch (IOException e) {
       throw new TerraformException(e.getMessage(), e);
     }
   }
 
+  /**
+   * Adds the package entries directly from the source directories in a single pass, without staging them.
+   * @param compressor    the package
+   * @param tfRootPath    the Terraform root module directory
+   * @param tfModulesPath if present, the Terraform modules directory to include in the package (i.e. a fatTar)
+   * @throws IOException
+   */
+  private void addEntries(Compressable compressor, Path tfRootPath, Optional<Path> tfModulesPath) throws IOException {
+    Optional<byte[]> tfRootToModulesRelativePath = tfModulesPath.map(path -> getRelativeModulesPath(tfRootPath, path));
+    List<Path> tfRootFiles = new ArrayList<>();
+    Files.walkFileTree(tfRootPath, new SimpleFileVisitor<Path>() {
+      @Override
+      public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+        if (dir.equals(tfRootPath)) return FileVisitResult.CONTINUE;
+        if (isExcluded(tfRootPath, dir)) return FileVisitResult.SKIP_SUBTREE;
+        tfRootFiles.add(dir);
+        return FileVisitResult.CONTINUE;
+      }
+
+      @Override
+      public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+        if (!isExcluded(tfRootPath, file)) tfRootFiles.add(file);
+        return FileVisitResult.CONTINUE;
+      }
+    });
+    int count = 0;
+    for (Path file : tfRootFiles) {
+      String entryName = tfRootPath.relativize(file).toString().replace(File.separatorChar, '/');
+      Optional<byte[]> updatedContents = tfRootToModulesRelativePath.isPresent()
+          ? getUpdatedModuleSources(file, tfRootToModulesRelativePath.get(), tfModulesPath.get().getFileName().toString())
+          : Optional.empty();
+      if (updatedContents.isPresent()) {
+        compressor.addEntry(entryName, updatedContents.get());
+        count++;
+      } else {
+        compressor.addEntry(entryName, file);
+      }
+    }
+    if (tfModulesPath.isPresent()) logger.info(String.format("Updated module sources in %1$d file(s)", count));
+
+    if (tfModulesPath.isPresent() && tfModulesPath.get().toFile().isDirectory()) {
+      Path modulesPath = tfModulesPath.get();
+      String modulesDirName = modulesPath.getFileName().toString();
+      compressor.addEntry(modulesDirName, modulesPath);
+      //tf:get's lock, stamp and in-progress files are hidden in the tfmodules directory; only the modules are added
+      List<Path> moduleFiles = Files.walk(modulesPath)
+          .filter(path -> !path.equals(modulesPath))
+          .filter(path -> !modulesPath.relativize(path).getName(0).toString().startsWith("."))
+          .collect(Collectors.toList());
+      for (Path file : moduleFiles) {
+        compressor.addEntry(String.format("%1$s/%2$s", modulesDirName, modulesPath.relativize(file).toString().replace(File.separatorChar, '/')), file);
+      }
+    }
+  }
+
+  /**
+   * Adds the vendored providers to the package in the terraform.d/plugins directory.
+   * @param compressor    the package
+   * @param providersPath the directory the providers were mirrored into
+   * @throws IOException
+   */
+  private static void addProviderEntries(Compressable compressor, Path providersPath) throws IOException {
+    Path vendoredProvidersDir = TerraformUtils.getVendoredProvidersDir();
+    //directory entries for terraform.d and terraform.d/plugins
+    for (int count = 1; count <= vendoredProvidersDir.getNameCount(); count++) {
+      compressor.addEntry(vendoredProvidersDir.subpath(0, count).toString().replace(File.separatorChar, '/'), providersPath);
+    }
+    String providersDirName = vendoredProvidersDir.toString().replace(File.separatorChar, '/');
+    List<Path> providerFiles = Files.walk(providersPath)
+        .filter(path -> !path.equals(providersPath))
+        .collect(Collectors.toList());
+    for (Path file : providerFiles) {
+      compressor.addEntry(String.format("%1$s/%2$s", providersDirName, providersPath.relativize(file).toString().replace(File.separatorChar, '/')), file);
+    }
+  }
+
+  /**
+   * Downloads the providers required by the root module with terraform providers mirror.
+   * @param tfRootPath  the Terraform root module directory
+   * @param targetPath  the target directory
+   * @param platforms   a comma delimited list of the platforms to download the providers for; if empty, the current platform
+   * @return            the directory the providers were mirrored into, i.e. target/tf-providers
+   * @throws IOException
+   * @throws TerraformException
+   */
+  private Path mirrorProviders(Path tfRootPath, Path targetPath, String platforms) throws IOException, TerraformException {
+    Path providersPath = targetPath.resolve(targetProvidersDir).toAbsolutePath();
+    FileUtils.forceMkdir(providersPath.toFile());
+    Properties mirrorProperties = new Properties();
+    mirrorProperties.setProperty("targetDir", providersPath.toString());
+    if (!StringUtils.isEmpty(platforms)) mirrorProperties.setProperty("platform", platforms);
+    logger.info(String.format("Vendoring the providers required by %1$s", tfRootPath));
+    getProvidersMirror(tfRootPath).execute(mirrorProperties);
+    return providersPath;
+  }
+
+  TerraformOperation<String> getProvidersMirror(Path tfRootPath) throws IOException, TerraformException {
+    return new TerraformProvidersMirror(tfRootPath.toAbsolutePath().toString());
+  }
+
+  private static boolean isExcluded(Path tfRootPath, Path path) {
+    //top level files and directories are excluded by name; nested ones are excluded if their names end with an excluded name
+    String name = path.getFileName().toString();
+    return tfRootPath.relativize(path).getNameCount() == 1
+      ? excludedFiles.contains(name)
+      : excludedFiles.stream().anyMatch(name::endsWith);
+  }
+
+  /**
+   * Fingerprints the inputs of the package, so that packaging can be skipped when they're unchanged: the project's
+   * coordinates and POM, the Terraform source (src/main/tf and tfRootDir), the Terraform module dependencies
+   * (tfModulesDir) and the packaging properties.
+   * @param properties  property options for packaging a Terraform configuration
+   * @return            the Fingerprint of the inputs
+   * @throws IOException
+   */
+  public Fingerprint getInputs(Properties properties) throws IOException {
+    List<String> excludedNames = new ArrayList<>(excludedFiles);
+    //tf:get's bookkeeping files in the modules directory aren't packaged
+    excludedNames.addAll(Arrays.asList(".*.lock", ".*.stamp"));
+    Fingerprint inputs = new Fingerprint(excludedNames.toArray(new String[0]));
+    inputs.add("project", String.format("%1$s:%2$s:%3$s", project.getGroupId(), project.getArtifactId(), project.getVersion()));
+    for (TerraformPackageParams param : TerraformPackageParams.values()) {
+      inputs.add(param.toString(), properties.getProperty(param.toString()));
+    }
+    if (project.getFile() != null) inputs.add("pom", project.getFile().toPath());
+    inputs.add("src", TerraformUtils.getTfSourceDir(basedir));
+    String tfRootDir = properties.getProperty(TerraformPackageParams.tfRootDir.toString(), "");
+    if (tfRootDir.contains("/")) inputs.add("tfRootDir", basedir.resolve(tfRootDir));
+    String tfModulesDir = properties.getProperty(TerraformPackageParams.tfModulesDir.toString());
+    return inputs.add("tfModulesDir", StringUtils.isEmpty(tfModulesDir)
+      ? TerraformUtils.getDefaultTfModulesDir(basedir)
+      : basedir.resolve(tfModulesDir));
+  }
+
+  /**
+   * Gets the package created with the properties specified, i.e. target/{artifactId}-{version}.zip or, for a fatTar,
+   * target/{artifactId}-{version}.tar.gz (or the tar extension of the codec specified).
+   * @param properties  property options for packaging a Terraform configuration
+   * @return            the Path of the package
+   * @throws TerraformException if the codec isn't valid for the package
+   */
+  public Path getPackageFile(Properties properties) throws TerraformException {
+    boolean isFatTar = Boolean.valueOf(properties.getProperty(TerraformPackageParams.fatTar.toString(), "false"));
+    CompressionCodec codec = getCodec(properties.getProperty(TerraformPackageParams.codec.toString(), GZipCodec.NAME), isFatTar);
+    return Paths.get(getPackageFilename(basedir.resolve(targetDir), isFatTar ? codec.getTarExtension() : "zip"));
+  }
+
+  private String getPackageFilename(Path targetDir, String extension) {
+    return targetDir.resolve(String.format("%1$s-%2$s.%3$s", project.getArtifactId(), project.getVersion(), extension)).toString();
+  }
+
   private void updateDependenciesInTfRoot(Path targetTfRootPath, Path tfModulesPath, Path tfRootPath) throws IOException {
     //replace all ../../.tfmodules with .tfmodules
-    String tfRootToModulesRelativePath = tfRootPath.relativize(tfModulesPath).toString();
+    byte[] tfRootToModulesRelativePath = getRelativeModulesPath(tfRootPath, tfModulesPath);
     List<Path> filesInTargetTfRoot = Files.walk(targetTfRootPath)
         .filter(path -> !path.toFile().isDirectory())
         .collect(Collectors.toList());
 
+    int count = 0;
     for (Path file : filesInTargetTfRoot) {
-      try (BufferedReader fileReader = new BufferedReader(new InputStreamReader(new FileInputStream(file.toFile())))) {
-        try (BufferedWriter fileWriter = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file.resolveSibling(file.getFileName().toString() + ".working").toFile())))) {
-          while (fileReader.ready()) {
-            fileWriter.write(fileReader.readLine().replace(tfRootToModulesRelativePath, tfModulesPath.getFileName().toString()));
-            fileWriter.newLine();
-          }
-        }
+      Optional<byte[]> updatedContents = getUpdatedModuleSources(file, tfRootToModulesRelativePath, tfModulesPath.getFileName().toString());
+      if (updatedContents.isPresent()) {
+        Files.write(file, updatedContents.get());
+        count++;
       }
-      Files.delete(file);
-      Files.move(file.resolveSibling(file.getFileName().toString() + ".working"), file);
     }
+    logger.info(String.format("Updated module sources in %1$d file(s)", count));
+  }
+
+  private static byte[] getRelativeModulesPath(Path tfRootPath, Path tfModulesPath) {
+    return tfRootPath.relativize(tfModulesPath).toString().replace(File.separatorChar, '/').getBytes(StandardCharsets.UTF_8);
   }
 
-  private String createZip(Path targetDir, Path targetTfRootPath) throws IOException {
-    String zipFilename = targetDir.resolve(
-        String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion())).toString();
-    Compressable compressor = new CompressableZipFile(zipFilename);
+  /**
+   * Gets the contents of a Terraform file with the module sources relative to the root module (e.g. ../../.tfmodules)
+   * replaced by the modules directory name (e.g. .tfmodules).
+   * <br>
+   * Only Terraform configuration files are considered, and they are only read into memory if a memory mapped search
+   * finds the relative modules path in them.
+   * @param file                        the file
+   * @param tfRootToModulesRelativePath the relative path from the root module to the modules directory
+   * @param tfModulesDirName            the name of the modules directory
+   * @return                            the updated contents, or empty if the file doesn't need to be updated
+   * @throws IOException
+   */
+  static Optional<byte[]> getUpdatedModuleSources(Path file, byte[] tfRootToModulesRelativePath, String tfModulesDirName) throws IOException {
+    String filename = file.getFileName().toString();
+    if (!file.toFile().isFile() || hclExtensions.stream().noneMatch(filename::endsWith)) return Optional.empty();
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      if (channel.size() == 0 || indexOf(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), tfRootToModulesRelativePath) < 0) {
+        return Optional.empty();
+      }
+    }
+    String contents = new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    return Optional.of(contents.replace(new String(tfRootToModulesRelativePath, StandardCharsets.UTF_8), tfModulesDirName)
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static int indexOf(ByteBuffer buffer, byte[] pattern) {
+    int last = buffer.limit() - pattern.length;
+    for (int i = 0; i <= last; i++) {
+      if (buffer.get(i) != pattern[0]) continue;
+      int matched = 1;
+      while (matched < pattern.length && buffer.get(i + matched) == pattern[matched]) matched++;
+      if (matched == pattern.length) return i;
+    }
+    return -1;
+  }
+
+  private static CompressionCodec getCodec(String codecName, boolean isFatTar) throws TerraformException {
+    CompressionCodec codec;
+    try {
+      codec = CompressionCodec.forName(codecName);
+    } catch (IllegalArgumentException e) {
+      throw new TerraformException(e.getMessage(), e);
+    }
+    //zip entries can only be deflated or stored
+    if (!isFatTar && !codec.getName().equals(GZipCodec.NAME) && !codec.getName().equals(StoreCodec.NAME)) {
+      throw new TerraformException(String.format("The %1$s codec can only be used for a fatTar", codec.getName()));
+    }
+    return codec;
+  }
+
+  private String createZip(Path targetDir, Path targetTfRootPath, int compressionThreads, boolean isIncremental,
+                           CompressionCodec codec, boolean hasManifest) throws IOException {
+    String zipFilename = getPackageFilename(targetDir, "zip");
+    CompressableZipFile compressor = new CompressableZipFile(zipFilename, compressionThreads, isIncremental, codec);
+    compressor.setManifest(hasManifest);
     Files.walk(targetTfRootPath, 1)
       .filter(path -> !path.equals(targetTfRootPath))
       .forEach(compressor::addToCompressedFile);
-    compressor.compress();
+    logContentHash(compressor.compress(), compressor);
+    if (isIncremental) logReusedEntries(compressor);
     return zipFilename;
   }
 
-  private String createGZippedTar(Path targetDir, Path targetTfRootPath) throws IOException {
-    String tarFilename = targetDir.resolve(
-        String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion())).toString();
-    Compressable compressor = new CompressableGZipTarFile(tarFilename, targetTfRootPath);
+  private void logReusedEntries(CompressableZipFile compressor) {
+    logger.info(String.format("Reused %1$d unchanged compressed entries from the previous package", compressor.getReusedEntryCount()));
+  }
+
+  private String createTar(Path targetDir, Path targetTfRootPath, int compressionThreads, CompressionCodec codec,
+                           boolean hasManifest, boolean isDeduplicated) throws IOException {
+    String tarFilename = getPackageFilename(targetDir, codec.getTarExtension());
+    CompressableGZipTarFile compressor = createTarCompressor(tarFilename, targetTfRootPath, compressionThreads, codec, isDeduplicated);
+    compressor.setManifest(hasManifest);
     Files.walk(targetTfRootPath, 1)
       .filter(path -> !path.equals(targetTfRootPath))
       .forEach(compressor::addToCompressedFile);
-    compressor.compress();
+    logContentHash(compressor.compress(), compressor);
+    if (isDeduplicated) logLinkedEntries(compressor);
     return tarFilename;
   }
+
+  private static CompressableGZipTarFile createTarCompressor(String tarFilename, Path relativizeFrom, int compressionThreads,
+                                                             CompressionCodec codec, boolean isDeduplicated) {
+    CompressableGZipTarFile compressor = new CompressableGZipTarFile(tarFilename, relativizeFrom, compressionThreads, codec);
+    compressor.setDeduplicate(isDeduplicated);
+    return compressor;
+  }
+
+  private void logLinkedEntries(CompressableGZipTarFile compressor) {
+    logger.info(String.format("Wrote %1$d duplicate file(s) as hard links to identical files", compressor.getLinkedEntryCount()));
+  }
+
+  private void logContentHash(Path packagePath, AbstractCompressable compressor) {
+    logger.info(String.format("Package '%1$s' has SHA-256 %2$s", packagePath.getFileName(), compressor.getChecksums().get(Checksums.SHA256)));
+  }
 }
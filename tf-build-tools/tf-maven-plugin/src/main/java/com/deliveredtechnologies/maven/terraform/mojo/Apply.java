@@ -12,9 +12,9 @@ import java.io.IOException;
 /**
  * Mojo terraform apply goal.
  * <br>
- * Runs 'terraform apply'
+ * Runs 'terraform apply', streaming its output to the log as it's produced.
  */
-@Mojo(name = "apply")
+@Mojo(name = "apply", threadSafe = true)
 public class Apply extends TerraformMojo<String> {
   @Parameter(property = "tfRootDir")
   String tfRootDir;
@@ -22,7 +22,7 @@ public class Apply extends TerraformMojo<String> {
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     try {
-      execute(new TerraformApply(tfRootDir), System.getProperties());
+      execute(new TerraformApply(tfRootDir, getBasedir(), getOutputConsumer(tfRootDir)), getProperties());
     } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
@@ -14,7 +14,7 @@ import java.io.IOException;
  * <br>
  * Deletes all terraform files from terraform configurations along with terraform modules directory.
  */
-@Mojo(name = "clean")
+@Mojo(name = "clean", threadSafe = true)
 public class Clean extends TerraformMojo<String> {
 
   @Parameter(property = "tfRootDir")
@@ -26,7 +26,7 @@ public class Clean extends TerraformMojo<String> {
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     try {
-      execute(new TerraformClean(tfModulesDir, tfRootDir), System.getProperties());
+      execute(new TerraformClean(tfModulesDir, tfRootDir, getBasedir()), getProperties());
     } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
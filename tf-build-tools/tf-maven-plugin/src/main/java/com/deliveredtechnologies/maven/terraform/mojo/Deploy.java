@@ -3,23 +3,32 @@ package com.deliveredtechnologies.maven.terraform.mojo;
 import com.deliveredtechnologies.maven.terraform.TerraformDeploy;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Component;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
+import org.apache.maven.repository.RepositorySystem;
+import org.apache.maven.shared.artifact.deploy.ArtifactDeployer;
 
 /**
  * Mojo terraform:deploy goal.
  *<br>
  * Deploys an artifact to a Maven repo.
  */
-@Mojo(name = "deploy")
+@Mojo(name = "deploy", threadSafe = true)
 public class Deploy extends TerraformMojo<String> {
 
   @Parameter(defaultValue = "${project}", readonly = true, required = true)
   MavenProject project;
 
+  @Component
+  ArtifactDeployer deployer;
+
+  @Component
+  RepositorySystem repositorySystem;
+
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
-    execute(new TerraformDeploy(getLog(), project), System.getProperties());
+    execute(new TerraformDeploy(getLog(), project, session, deployer, repositorySystem), getProperties());
   }
 }
@@ -12,9 +12,9 @@ import java.io.IOException;
 /**
  * Mojo terraform destroy goal.
  * <br>
- * Runs 'terraform destroy'
+ * Runs 'terraform destroy', streaming its output to the log as it's produced.
  */
-@Mojo(name = "destroy")
+@Mojo(name = "destroy", threadSafe = true)
 public class Destroy extends TerraformMojo<String> {
   @Parameter(property = "tfRootDir")
   String tfRootDir;
@@ -23,7 +23,7 @@ public class Destroy extends TerraformMojo<String> {
   public void execute() throws MojoExecutionException, MojoFailureException {
     try {
       getLog().info("tfRootDir is " + tfRootDir);
-      execute(new TerraformDestroy(tfRootDir), System.getProperties());
+      execute(new TerraformDestroy(tfRootDir, getBasedir(), getOutputConsumer(tfRootDir)), getProperties());
     } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
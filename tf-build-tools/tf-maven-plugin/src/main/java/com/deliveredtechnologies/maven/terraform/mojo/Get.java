@@ -1,29 +1,40 @@
 package com.deliveredtechnologies.maven.terraform.mojo;
 
 import com.deliveredtechnologies.maven.terraform.TerraformGet;
+import com.deliveredtechnologies.terraform.TerraformException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
 
 import java.io.IOException;
 import java.nio.file.Path;
 import java.util.List;
+import java.util.Properties;
 
 /**
  * Mojo terraform "get" goal.
  * <br>
- * Gets Terraform Maven dependencies and extracts into a tfModules dir.
+ * Gets Terraform Maven dependencies (including transitive dependencies, but not test scoped dependencies) and extracts
+ * into a tfModules dir; it's skipped if the resolved dependencies and the parameters are unchanged since it last ran and
+ * each module is expanded (with lazy, each module referenced by the root modules).
  */
-@Mojo(name = "get")
+@Mojo(name = "get", threadSafe = true, requiresDependencyResolution = ResolutionScope.RUNTIME)
 public class Get extends TerraformMojo<List<Path>> {
   @Parameter(property = "tfModulesDir")
   private String tfModulesDir;
 
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  MavenProject project;
+
   @Override
   public void execute() throws MojoExecutionException {
     try {
-      execute(new TerraformGet(getLog(), tfModulesDir), System.getProperties());
-    } catch (IOException e) {
+      Properties properties = getProperties();
+      TerraformGet terraformGet = new TerraformGet(getLog(), tfModulesDir, project);
+      execute(terraformGet, properties, "get", terraformGet.getInputs(properties), terraformGet.getModuleDirs(properties));
+    } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
   }
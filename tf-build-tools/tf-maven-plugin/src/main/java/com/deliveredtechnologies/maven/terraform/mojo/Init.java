@@ -1,6 +1,8 @@
 package com.deliveredtechnologies.maven.terraform.mojo;
 
+import com.deliveredtechnologies.maven.io.Fingerprint;
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformUtils;
 import com.deliveredtechnologies.terraform.api.TerraformInit;
 
 import org.apache.maven.plugin.MojoExecutionException;
@@ -10,24 +12,52 @@ import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Properties;
 
 /**
  * Mojo terraform init goal.
  * <br>
- * Runs 'terraform init'
+ * Runs 'terraform init'; it's skipped if the root module, the expanded dependencies and the init parameters are
+ * unchanged since it last ran and the root module's .terraform directory exists.
  */
 @Execute(goal = "get")
-@Mojo(name = "init")
+@Mojo(name = "init", threadSafe = true)
 public class Init extends TerraformMojo<String> {
+  private static final String[] PARAMS = {"pluginDir", "verifyPlugins", "getPlugins", "backendConfig"};
+
   @Parameter(property = "tfRootDir")
   String tfRootDir;
 
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     try {
-      execute(new TerraformInit(tfRootDir), System.getProperties());
+      Properties properties = getProperties();
+      Path tfRootPath = tfRootDir == null
+          ? TerraformUtils.getDefaultTerraformRootModuleDir(getBasedir())
+          : TerraformUtils.getTerraformRootModuleDir(getBasedir(), tfRootDir);
+      execute(new TerraformInit(tfRootDir, getBasedir()), properties, "init", getInputs(tfRootPath, properties),
+          tfRootPath.resolve(".terraform"));
     } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
   }
+
+  /**
+   * Fingerprints the inputs of terraform init; the files terraform init writes into the root module (.terraform and
+   * the dependency lock file, .terraform.lock.hcl) aren't inputs, so running it doesn't change its fingerprint.
+   * @param tfRootPath  the root module directory
+   * @param properties  the properties passed to terraform init
+   * @return            the Fingerprint of the inputs
+   * @throws IOException
+   */
+  Fingerprint getInputs(Path tfRootPath, Properties properties) throws IOException {
+    Fingerprint inputs = new Fingerprint(".terraform", ".terraform.lock.hcl", "*.tfstate", "*.tfstate.backup", ".*.lock", ".*.stamp")
+        .add("tfRootDir", tfRootPath)
+        .add("tfModulesDir", TerraformUtils.getDefaultTfModulesDir(getBasedir()));
+    for (String param : PARAMS) {
+      inputs.add(param, properties.getProperty(param));
+    }
+    return inputs;
+  }
 }
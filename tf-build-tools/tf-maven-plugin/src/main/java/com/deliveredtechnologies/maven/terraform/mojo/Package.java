@@ -1,24 +1,35 @@
 package com.deliveredtechnologies.maven.terraform.mojo;
 
 import com.deliveredtechnologies.maven.terraform.TerraformPackage;
+import com.deliveredtechnologies.terraform.TerraformException;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugins.annotations.Mojo;
 import org.apache.maven.plugins.annotations.Parameter;
 import org.apache.maven.project.MavenProject;
 
+import java.io.IOException;
+import java.util.Properties;
+
 /**
  * Mojo tfn:package goal.
  * <br>
- * Packages terraform artifacts in a zip for deployment.
+ * Packages terraform artifacts in a zip for deployment; it's skipped if the Terraform source, the dependencies, the POM
+ * and the packaging parameters are unchanged since it last ran and the package exists.
  */
-@Mojo(name = "package")
+@Mojo(name = "package", threadSafe = true)
 public class Package extends TerraformMojo<String> {
   @Parameter(defaultValue = "${project}", readonly = true, required = true)
   MavenProject project;
 
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
-    execute(new TerraformPackage(project, getLog()), System.getProperties());
+    Properties properties = getProperties();
+    TerraformPackage terraformPackage = new TerraformPackage(project, getLog());
+    try {
+      execute(terraformPackage, properties, "package", terraformPackage.getInputs(properties), terraformPackage.getPackageFile(properties));
+    } catch (IOException | TerraformException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
   }
 }
@@ -0,0 +1,61 @@
+package com.deliveredtechnologies.maven.terraform.mojo;
+
+import com.deliveredtechnologies.maven.logs.MavenSlf4jAdapter;
+import com.deliveredtechnologies.maven.terraform.TerraformGet;
+import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.api.TerraformPipeline;
+import org.apache.commons.lang3.StringUtils;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Mojo terraform pipeline goal.
+ * <br>
+ * Runs tf:get, 'terraform init', 'terraform plan' and 'terraform apply' as the stages of a single pipeline, without
+ * forking a lifecycle for tf:get. When there is more than one root module, the stages of each root module run
+ * concurrently once the dependencies are expanded. The output of terraform is streamed to the log as it's produced;
+ * when there is more than one root module, each line is prefixed with the name of its root module.
+ */
+@Mojo(name = "pipeline", threadSafe = true, requiresDependencyResolution = ResolutionScope.RUNTIME)
+public class Pipeline extends TerraformMojo<String> {
+  static final String GET = "get";
+
+  @Parameter(property = "tfRootDir")
+  String tfRootDir;
+
+  @Parameter(property = "tfModulesDir")
+  String tfModulesDir;
+
+  @Parameter(defaultValue = "${project}", readonly = true, required = true)
+  MavenProject project;
+
+  @Override
+  public void execute() throws MojoExecutionException, MojoFailureException {
+    try {
+      TerraformPipeline pipeline = new TerraformPipeline(new MavenSlf4jAdapter(getLog()))
+          .addStage(GET, new TerraformGet(getLog(), tfModulesDir, project));
+      if (StringUtils.isEmpty(tfRootDir)) {
+        pipeline.addRootModule("", null, getBasedir(), getOutputConsumer(null), GET);
+      } else {
+        String[] tfRootDirs = StringUtils.split(tfRootDir, ',');
+        for (String dir : tfRootDirs) {
+          //the stages of each root module are prefixed with its name when there's more than one, e.g. network:plan
+          String stagePrefix = tfRootDirs.length > 1 ? String.format("%1$s:", Paths.get(dir.trim()).getFileName()) : "";
+          //the output of root modules run concurrently is interleaved, so each line is prefixed with its root module
+          pipeline.addRootModule(stagePrefix, dir.trim(), getBasedir(),
+              getOutputConsumer(dir.trim(), prefixOutput || tfRootDirs.length > 1), GET);
+        }
+      }
+      execute(pipeline, getProperties());
+    } catch (IOException | TerraformException e) {
+      throw new MojoExecutionException(e.getMessage(), e);
+    }
+  }
+}
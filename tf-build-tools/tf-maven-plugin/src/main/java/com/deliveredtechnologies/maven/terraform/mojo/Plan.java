@@ -12,9 +12,9 @@ import java.io.IOException;
 /**
  * Mojo terraform plan goal.
  * <br>
- * Runs 'terraform plan'
+ * Runs 'terraform plan', streaming its output to the log as it's produced.
  */
-@Mojo(name = "plan")
+@Mojo(name = "plan", threadSafe = true)
 public class Plan extends TerraformMojo<String> {
   @Parameter(property = "tfRootDir")
   String tfRootDir;
@@ -22,7 +22,7 @@ public class Plan extends TerraformMojo<String> {
   @Override
   public void execute() throws MojoExecutionException, MojoFailureException {
     try {
-      execute(new TerraformPlan(tfRootDir), System.getProperties());
+      execute(new TerraformPlan(tfRootDir, getBasedir(), getOutputConsumer(tfRootDir)), getProperties());
     } catch (IOException | TerraformException e) {
       throw new MojoExecutionException(e.getMessage(), e);
     }
@@ -1,18 +1,140 @@
 package com.deliveredtechnologies.maven.terraform.mojo;
 
+import com.deliveredtechnologies.io.AsyncLineAppender;
+import com.deliveredtechnologies.io.AsyncLineAppender.OverflowPolicy;
+import com.deliveredtechnologies.maven.io.Fingerprint;
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.TerraformOutputConsumer;
+import com.deliveredtechnologies.terraform.TerraformUtils;
 import com.deliveredtechnologies.terraform.api.TerraformOperation;
+import com.deliveredtechnologies.trace.Span;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
 import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * Abstract class to invoke TerraformOperations.
+ * <br>
+ * Mojos are thread-safe (i.e. they can run in parallel reactor builds, mvn -T): each execution gets its own snapshot
+ * of the properties and resolves paths relative to its project's basedir rather than the working directory.
+ * <br>
+ * Mojos that declare their inputs and outputs are skipped when their inputs are unchanged since they last ran and their
+ * outputs exist; the fingerprint of their inputs is saved in target/tf-fingerprints/{goal}.sha256.
+ * <br>
+ * Goals that run terraform plan, apply or destroy stream terraform's output to the log line by line as it's produced.
+ * The lines are buffered and logged in batches by another thread, so a slow console doesn't slow terraform down; if
+ * the buffer fills up, outputOverflow decides if terraform waits (block), or if lines are dropped (drop-oldest or
+ * summarize).
+ * <br>
+ * With trace enabled, the goal and the work it does (e.g. terraform commands, expanding artifacts and compressing files)
+ * are traced as spans; when the goal is complete, the module's spans of the build so far are logged as a summary table
+ * and written to target/tf-trace.json as a Chrome trace-event file. The spans are discarded when the next build starts
+ * (e.g. in a long-lived JVM like mvnd), and tracing is disabled when the last traced goal ends.
  * @param <T>
  */
 public abstract class TerraformMojo<T> extends AbstractMojo {
 
+  @Parameter(defaultValue = "${project.basedir}", readonly = true)
+  File basedir;
+
+  @Parameter(defaultValue = "${session}", readonly = true, required = true)
+  MavenSession session;
+
+  @Parameter(property = "force", defaultValue = "false")
+  boolean force;
+
+  @Parameter(property = "trace", defaultValue = "false")
+  boolean trace;
+
+  @Parameter(property = "prefixOutput", defaultValue = "false")
+  boolean prefixOutput;
+
+  @Parameter(property = "progressInterval", defaultValue = "0")
+  int progressInterval;
+
+  @Parameter(property = "outputBuffer", defaultValue = "1024")
+  int outputBuffer;
+
+  @Parameter(property = "outputOverflow", defaultValue = "block")
+  String outputOverflow;
+
+  private final List<AsyncLineAppender> outputAppenders = new ArrayList<>();
+
+  /**
+   * Gets the basedir of the project being built.
+   * @return  the project's basedir, or the working directory if there isn't a project
+   */
+  protected Path getBasedir() {
+    return basedir == null ? Paths.get("") : basedir.toPath();
+  }
+
+  /**
+   * Takes a snapshot of the system properties (e.g. -D options) for an execution.
+   * <br>
+   * The system properties are shared by every module built in the JVM, so operations get a copy; changes made by
+   * one execution, or made to the system properties while it runs, aren't seen by another.
+   * @return  a copy of the system properties
+   */
+  protected static Properties getProperties() {
+    Properties properties = new Properties();
+    //Hashtable.clone() is synchronized, so the copy is consistent even if the system properties are being changed
+    properties.putAll((Properties)System.getProperties().clone());
+    return properties;
+  }
+
+  /**
+   * Creates the consumer terraform's output is streamed to as it's produced; each line is logged at info, prefixed with
+   * [{root module name}] if prefixOutput is true, and the progress lines of each resource are logged at most once every
+   * progressInterval seconds (all of them if it's 0).
+   * @param tfRootDir the root module directory the output is from; if null, the default root module
+   * @return          the consumer
+   * @throws IOException
+   * @throws TerraformException
+   */
+  protected Consumer<String> getOutputConsumer(String tfRootDir) throws IOException, TerraformException {
+    return getOutputConsumer(tfRootDir, prefixOutput);
+  }
+
+  /**
+   * Creates the consumer terraform's output is streamed to as it's produced; each line is logged at info and the
+   * progress lines of each resource are logged at most once every progressInterval seconds (all of them if it's 0).
+   * <br>
+   * The lines are logged asynchronously, in batches, through a buffer of outputBuffer lines; the buffered lines are
+   * logged when the goal's operation is complete.
+   * @param tfRootDir   the root module directory the output is from; if null, the default root module
+   * @param isPrefixed  if true, each line is prefixed with [{root module name}]
+   * @return            the consumer
+   * @throws IOException
+   * @throws TerraformException if outputOverflow isn't block, drop-oldest or summarize
+   */
+  protected Consumer<String> getOutputConsumer(String tfRootDir, boolean isPrefixed) throws IOException, TerraformException {
+    String prefix = "";
+    if (isPrefixed) {
+      Path tfRootPath = tfRootDir == null ? TerraformUtils.getDefaultTerraformRootModuleDir(getBasedir()) : Paths.get(tfRootDir);
+      prefix = String.format("[%1$s] ", tfRootPath.getFileName());
+    }
+    Consumer<String> outputConsumer = new TerraformOutputConsumer(getLog()::info, prefix, TimeUnit.SECONDS.toMillis(progressInterval));
+    AsyncLineAppender appender = new AsyncLineAppender(lines -> lines.forEach(outputConsumer),
+        outputBuffer > 0 ? outputBuffer : AsyncLineAppender.DEFAULT_CAPACITY, getOverflowPolicy());
+    synchronized (outputAppenders) {
+      outputAppenders.add(appender);
+    }
+    return appender;
+  }
+
   /**
    * Invokes a TerraformOperation w/properties.
    *
@@ -21,13 +143,114 @@ public abstract class TerraformMojo<T> extends AbstractMojo {
    * @throws MojoExecutionException
    */
   protected final void execute(TerraformOperation<T> tfOperation, Properties properties) throws MojoExecutionException {
-    try {
+    //the spans are scoped to the build (its execution request is shared by the modules' sessions) and to the module
+    if (trace) Tracer.getInstance().beginGoal(session == null ? this : session.getRequest(), getTraceScope());
+    try (Span span = Tracer.getInstance().start("goal", getGoal())) {
       Object response = tfOperation.execute(properties);
-      if (response instanceof String) {
+      //operations that stream their output as it's produced return an empty String
+      if (response instanceof String && !((String) response).isEmpty()) {
         getLog().info((String) response);
       }
     } catch (TerraformException e) {
       throw new MojoExecutionException("Failed to execute terraform operation", e);
+    } finally {
+      closeOutputAppenders();
+      if (trace) {
+        try {
+          writeTrace();
+        } finally {
+          Tracer.getInstance().endGoal();
+        }
+      }
+    }
+  }
+
+  /**
+   * Invokes a TerraformOperation w/properties, unless its inputs are unchanged since it last ran and its outputs exist.
+   *
+   * @param tfOperation the TerraformOperation to invoke
+   * @param properties  the properties passed to the TerraformOperation
+   * @param goal        the name of the goal, which names the saved fingerprint
+   * @param inputs      the fingerprint of the operation's inputs
+   * @param outputs     the files or directories the operation creates
+   * @throws MojoExecutionException
+   */
+  protected final void execute(TerraformOperation<T> tfOperation, Properties properties, String goal, Fingerprint inputs,
+                               Path... outputs) throws MojoExecutionException {
+    Path fingerprintFile = getBasedir().resolve(Paths.get("target", "tf-fingerprints", String.format("%1$s.sha256", goal)));
+    try {
+      if (isUpToDate(fingerprintFile, inputs, outputs)) {
+        getLog().info(String.format("Skipping tf:%1$s; its inputs are unchanged and its outputs exist (use -Dforce=true to run it anyway)", goal));
+        return;
+      }
+      //a failed run leaves no fingerprint, so it's never skipped the next time
+      Files.deleteIfExists(fingerprintFile);
+      execute(tfOperation, properties);
+      inputs.save(fingerprintFile);
+    } catch (IOException e) {
+      throw new MojoExecutionException(String.format("Unable to fingerprint tf:%1$s", goal), e);
+    }
+  }
+
+  /**
+   * Gets the name of the goal, which names its span when it's traced.
+   * @return  the goal prefixed with tf: (e.g. tf:init for the Init mojo)
+   */
+  protected String getGoal() {
+    return String.format("tf:%1$s", getClass().getSimpleName().toLowerCase());
+  }
+
+  private OverflowPolicy getOverflowPolicy() throws TerraformException {
+    if (outputOverflow == null) return OverflowPolicy.BLOCK;
+    try {
+      return OverflowPolicy.forName(outputOverflow);
+    } catch (IllegalArgumentException e) {
+      throw new TerraformException(String.format(
+          "Invalid outputOverflow '%1$s'; valid values are block, drop-oldest and summarize", outputOverflow), e);
+    }
+  }
+
+  private void closeOutputAppenders() {
+    List<AsyncLineAppender> appenders;
+    synchronized (outputAppenders) {
+      appenders = new ArrayList<>(outputAppenders);
+      outputAppenders.clear();
+    }
+    for (AsyncLineAppender appender : appenders) {
+      try {
+        appender.close();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      if (appender.getDroppedLines() > 0) {
+        getLog().warn(String.format("%1$d line(s) of terraform output were dropped because they were produced faster than "
+            + "they could be logged (outputOverflow=%2$s)", appender.getDroppedLines(), outputOverflow));
+      } else if (appender.getDelayedLines() > 0) {
+        getLog().debug(String.format("%1$d line(s) of terraform output waited for room in the output buffer", appender.getDelayedLines()));
+      }
+    }
+  }
+
+  private String getTraceScope() {
+    return getBasedir().toAbsolutePath().toString();
+  }
+
+  private void writeTrace() {
+    Path traceFile = getBasedir().resolve(Paths.get("target", "tf-trace.json"));
+    try {
+      Tracer.getInstance().writeChromeTrace(traceFile, getTraceScope());
+      getLog().info(Tracer.getInstance().getSummary(getTraceScope()));
+      getLog().info(String.format("Trace written to %1$s (open it in chrome://tracing or ui.perfetto.dev)", traceFile));
+    } catch (IOException e) {
+      getLog().warn(String.format("Unable to write the trace to %1$s", traceFile), e);
+    }
+  }
+
+  private boolean isUpToDate(Path fingerprintFile, Fingerprint inputs, Path... outputs) throws IOException {
+    if (force) return false;
+    for (Path output : outputs) {
+      if (!output.toFile().exists()) return false;
     }
+    return inputs.matches(fingerprintFile);
   }
 }
@@ -0,0 +1,39 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Map;
+
+/**
+ * Tests for ChecksumOutputStream.
+ */
+public class ChecksumOutputStreamTest {
+
+  @Test
+  public void checksumOutputStreamComputesTheChecksumsOfTheBytesWritten() throws IOException {
+    byte[] contents = "terraform {}\nmodule \"s3\" {}\n".getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    ChecksumOutputStream checksumOutputStream = new ChecksumOutputStream(bytes, Checksums.ALGORITHMS);
+
+    try (OutputStream outputStream = checksumOutputStream) {
+      outputStream.write(contents, 0, 10);
+      outputStream.write(contents[10]);
+      outputStream.write(contents, 11, contents.length - 11);
+    }
+
+    Map<String, String> checksums = checksumOutputStream.getChecksums();
+    Assert.assertArrayEquals(contents, bytes.toByteArray());
+    Assert.assertEquals(Checksums.ALGORITHMS, new ArrayList<>(checksums.keySet()));
+    for (String algorithm : Checksums.ALGORITHMS) {
+      Assert.assertEquals(Checksums.toHex(Checksums.newDigest(algorithm).digest(contents)), checksums.get(algorithm));
+    }
+    Assert.assertEquals("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824",
+        Checksums.toHex(Checksums.newDigest(Checksums.SHA256).digest("hello".getBytes(StandardCharsets.UTF_8))));
+  }
+}
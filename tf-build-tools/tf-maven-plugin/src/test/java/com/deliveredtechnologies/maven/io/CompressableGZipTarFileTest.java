@@ -2,13 +2,17 @@ package com.deliveredtechnologies.maven.io;
 
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
@@ -42,4 +46,100 @@ public class CompressableGZipTarFileTest extends CompressableFileTest {
       Assert.assertTrue(tarEntryNames.contains("test2/test2.txt"));
     }
   }
+
+  @Test
+  public void compressableGZipTarFileGZipsTheTarInParallel() throws IOException {
+    Compressable compressable = new CompressableGZipTarFile(uncompressedDir.resolve("Archive.tar.gz").toAbsolutePath().toString(), uncompressedDir, 4);
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .forEach(path -> compressable.addToCompressedFile(path));
+    Path tarFile = compressable.compress();
+
+    try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(tarFile.toFile())))) {
+      Set<String> tarEntryNames = new HashSet<>();
+      TarArchiveEntry entry;
+      while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+        tarEntryNames.add(entry.getName());
+      }
+
+      Assert.assertEquals(6, tarEntryNames.size());
+      Assert.assertTrue(tarEntryNames.contains("test1/test1.1/test1.1.txt"));
+    }
+  }
+
+  @Test
+  public void compressableGZipTarFileCreatesTheSameBytesFromTheSameContents() throws IOException {
+    for (int threads : new int[] {1, 4}) {
+      byte[] first = Files.readAllBytes(compress("First.tar.gz", threads));
+      //neither the timestamps nor the order the files are added in change the tar
+      Files.walk(uncompressedDir).forEach(path -> path.toFile().setLastModified(System.currentTimeMillis() - 86400000L));
+      byte[] second = Files.readAllBytes(compress("Second.tar.gz", threads));
+
+      Assert.assertArrayEquals(first, second);
+    }
+
+    try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(
+        new FileInputStream(uncompressedDir.resolveSibling("First.tar.gz").toFile())))) {
+      TarArchiveEntry entry;
+      while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+        Assert.assertEquals(entry.isDirectory() ? 040755 : 0100644, entry.getMode());
+        Assert.assertEquals(0, entry.getLongUserId());
+        Assert.assertEquals("", entry.getUserName());
+      }
+    }
+  }
+
+  @Test
+  public void compressableGZipTarFileWritesItsChecksumsAndaManifestOfItsEntries() throws IOException {
+    CompressableGZipTarFile compressable = new CompressableGZipTarFile(uncompressedDir.resolveSibling("Manifest.tar.gz").toAbsolutePath().toString(), uncompressedDir);
+    compressable.setManifest(true);
+    compressable.addToCompressedFile(uncompressedDir.resolve("test1"));
+    Path tarFile = compressable.compress();
+
+    try {
+      try (InputStream inputStream = new FileInputStream(tarFile.toFile())) {
+        Assert.assertEquals(Checksums.sha256(inputStream), compressable.getChecksums().get(Checksums.SHA256));
+      }
+      for (String algorithm : Checksums.ALGORITHMS) {
+        Assert.assertEquals(String.format("%1$s  %2$s", compressable.getChecksums().get(algorithm), tarFile.getFileName()),
+            new String(Files.readAllBytes(Checksums.getSidecarFile(tarFile, algorithm)), StandardCharsets.UTF_8).trim());
+      }
+      try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(tarFile.toFile())))) {
+        TarArchiveEntry entry;
+        TarArchiveEntry lastEntry = null;
+        StringBuilder expectedManifest = new StringBuilder();
+        String manifest = null;
+        while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+          lastEntry = entry;
+          if (entry.getName().equals(AbstractCompressable.MANIFEST_NAME)) {
+            manifest = IOUtils.toString(tarArchiveInputStream, StandardCharsets.UTF_8);
+          } else if (entry.isFile()) {
+            expectedManifest.append(Checksums.sha256(tarArchiveInputStream)).append("  ").append(entry.getName()).append('\n');
+          }
+        }
+
+        Assert.assertEquals(AbstractCompressable.MANIFEST_NAME, lastEntry.getName());
+        Assert.assertEquals(expectedManifest.toString(), manifest);
+      }
+    } finally {
+      for (String algorithm : Checksums.ALGORITHMS) {
+        Files.deleteIfExists(Checksums.getSidecarFile(tarFile, algorithm));
+      }
+      Files.deleteIfExists(tarFile);
+    }
+  }
+
+  private Path compress(String archiveName, int threads) throws IOException {
+    Path archive = uncompressedDir.resolveSibling(archiveName);
+    Compressable compressable = new CompressableGZipTarFile(archive.toAbsolutePath().toString(), uncompressedDir, threads);
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .sorted(archiveName.startsWith("First") ? Comparator.naturalOrder() : Comparator.reverseOrder())
+      .forEach(path -> compressable.addToCompressedFile(path));
+    try {
+      return compressable.compress();
+    } finally {
+      archive.toFile().deleteOnExit();
+    }
+  }
 }
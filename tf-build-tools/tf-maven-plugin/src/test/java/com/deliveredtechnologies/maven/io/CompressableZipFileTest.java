@@ -1,15 +1,20 @@
 package com.deliveredtechnologies.maven.io;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Random;
 import java.util.Set;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Tests for CompresseableZipFile.
@@ -40,4 +45,132 @@ public class CompressableZipFileTest extends CompressableFileTest {
       Assert.assertTrue(zipEntryNames.contains("test2/test2.txt"));
     }
   }
+
+  @Test
+  public void compressableZipFileCompressesFilesAndDirectoriesInParallel() throws IOException {
+    byte[] largeFileContents = new byte[512 * 1024];
+    new Random(31).nextBytes(largeFileContents);
+    Files.write(uncompressedDir.resolve("test2").resolve("large.bin"), largeFileContents);
+    Compressable compressable = new CompressableZipFile(uncompressedDir.resolve("Archive.zip").toAbsolutePath().toString(), 4);
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .forEach(path -> compressable.addToCompressedFile(path));
+    Path zipFile = compressable.compress();
+
+    try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+      Assert.assertEquals(7, zip.size());
+      Assert.assertTrue(zip.getEntry("test1/test1.1/").isDirectory());
+      Assert.assertEquals(ZipEntry.DEFLATED, zip.getEntry("test1/test.txt").getMethod());
+      Assert.assertArrayEquals(Files.readAllBytes(uncompressedDir.resolve("test1").resolve("test.txt")),
+          IOUtils.toByteArray(zip.getInputStream(zip.getEntry("test1/test.txt"))));
+      Assert.assertArrayEquals(largeFileContents, IOUtils.toByteArray(zip.getInputStream(zip.getEntry("test2/large.bin"))));
+    }
+  }
+
+  @Test
+  public void compressableZipFileCreatesTheSameBytesFromTheSameContents() throws IOException {
+    byte[] first = Files.readAllBytes(compress("First.zip", 1));
+    //neither the timestamps, the order the files are added in, nor the number of threads change the zip
+    Files.walk(uncompressedDir).forEach(path -> path.toFile().setLastModified(System.currentTimeMillis() - 86400000L));
+    byte[] second = Files.readAllBytes(compress("Second.zip", 4));
+
+    Assert.assertArrayEquals(first, second);
+  }
+
+  @Test
+  public void compressableZipFileReusesUnchangedEntriesFromThePreviousZipWhenIncremental() throws IOException {
+    Path zipFile = uncompressedDir.resolveSibling("Incremental.zip");
+    Path indexFile = uncompressedDir.resolveSibling("Incremental.zip" + CompressableZipFile.INDEX_EXTENSION);
+    try {
+      Assert.assertEquals(0, compressIncrementally(zipFile));
+      Assert.assertTrue(indexFile.toFile().exists());
+      Assert.assertEquals(3, compressIncrementally(zipFile));
+
+      //a changed file is deflated again; a touched file with the same contents is reused
+      Files.write(uncompressedDir.resolve("test2").resolve("test2.txt"), "changed".getBytes(StandardCharsets.UTF_8));
+      uncompressedDir.resolve("test1").resolve("test.txt").toFile().setLastModified(System.currentTimeMillis() - 86400000L);
+      Assert.assertEquals(2, compressIncrementally(zipFile));
+
+      Assert.assertArrayEquals(Files.readAllBytes(compress("Full.zip", 1)), Files.readAllBytes(zipFile));
+      try (ZipFile zip = new ZipFile(zipFile.toFile())) {
+        Assert.assertEquals("changed", IOUtils.toString(zip.getInputStream(zip.getEntry("test2/test2.txt")), StandardCharsets.UTF_8));
+      }
+    } finally {
+      Files.deleteIfExists(zipFile);
+      Files.deleteIfExists(indexFile);
+    }
+  }
+
+  @Test
+  public void compressableZipFileRestoresThePreviousZipAndIndexWhenIncrementalCompressionFails() throws IOException {
+    Path zipFile = uncompressedDir.resolveSibling("Failed.zip");
+    Path indexFile = uncompressedDir.resolveSibling("Failed.zip" + CompressableZipFile.INDEX_EXTENSION);
+    try {
+      compressIncrementally(zipFile);
+      byte[] previousZip = Files.readAllBytes(zipFile);
+      byte[] previousIndex = Files.readAllBytes(indexFile);
+      CompressableZipFile compressable = new CompressableZipFile(zipFile.toAbsolutePath().toString(), 2, true);
+      compressable.addToCompressedFile(uncompressedDir.resolve("test1"));
+      compressable.addEntry("missing.txt", uncompressedDir.resolve("missing.txt"));
+
+      try {
+        compressable.compress();
+        Assert.fail("IOException expected");
+      } catch (IOException expected) { }
+
+      Assert.assertArrayEquals(previousZip, Files.readAllBytes(zipFile));
+      Assert.assertArrayEquals(previousIndex, Files.readAllBytes(indexFile));
+      Assert.assertFalse(uncompressedDir.resolveSibling("Failed.zip.previous").toFile().exists());
+    } finally {
+      Files.deleteIfExists(zipFile);
+      Files.deleteIfExists(indexFile);
+    }
+  }
+
+  @Test
+  public void compressableZipFileStoresEntriesTheCodecDoesntCompress() throws IOException {
+    Files.write(uncompressedDir.resolve("test2").resolve("nested.zip"), "already compressed".getBytes(StandardCharsets.UTF_8));
+    Path gzipZipFile = compressAll(new CompressableZipFile(uncompressedDir.resolveSibling("Gzip.zip").toString(), 2, false, new GZipCodec()));
+    Path storeZipFile = compressAll(new CompressableZipFile(uncompressedDir.resolveSibling("Store.zip").toString(), 2, false, new StoreCodec()));
+
+    try (ZipFile gzipZip = new ZipFile(gzipZipFile.toFile()); ZipFile storeZip = new ZipFile(storeZipFile.toFile())) {
+      Assert.assertEquals(ZipEntry.DEFLATED, gzipZip.getEntry("test2/test2.txt").getMethod());
+      Assert.assertEquals(ZipEntry.STORED, gzipZip.getEntry("test2/nested.zip").getMethod());
+      Assert.assertEquals(ZipEntry.STORED, storeZip.getEntry("test2/test2.txt").getMethod());
+      Assert.assertEquals("already compressed", IOUtils.toString(storeZip.getInputStream(storeZip.getEntry("test2/nested.zip")), StandardCharsets.UTF_8));
+    } finally {
+      Files.delete(gzipZipFile);
+      Files.delete(storeZipFile);
+    }
+  }
+
+  private Path compressAll(Compressable compressable) throws IOException {
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .forEach(path -> compressable.addToCompressedFile(path));
+    return compressable.compress();
+  }
+
+  private int compressIncrementally(Path zipFile) throws IOException {
+    CompressableZipFile compressable = new CompressableZipFile(zipFile.toAbsolutePath().toString(), 2, true);
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .forEach(path -> compressable.addToCompressedFile(path));
+    compressable.compress();
+    return compressable.getReusedEntryCount();
+  }
+
+  private Path compress(String archiveName, int threads) throws IOException {
+    Path archive = uncompressedDir.resolveSibling(archiveName);
+    Compressable compressable = new CompressableZipFile(archive.toAbsolutePath().toString(), threads);
+    Files.walk(uncompressedDir, 1)
+      .filter(path -> !path.equals(uncompressedDir))
+      .sorted(archiveName.startsWith("First") ? Comparator.naturalOrder() : Comparator.reverseOrder())
+      .forEach(path -> compressable.addToCompressedFile(path));
+    try {
+      return compressable.compress();
+    } finally {
+      archive.toFile().deleteOnExit();
+    }
+  }
 }
@@ -0,0 +1,58 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Tests for CompressionCodec.
+ */
+public class CompressionCodecTest {
+
+  @Test
+  public void compressionCodecsCompressAndDecompressTheSameContents() throws IOException {
+    byte[] contents = "resource \"aws_s3_bucket\" \"bucket\" {}\n".getBytes(StandardCharsets.UTF_8);
+    for (String name : new String[] {"gzip", "zstd", "store"}) {
+      for (int threads : new int[] {1, 4}) {
+        CompressionCodec codec = CompressionCodec.forName(name);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (OutputStream outputStream = codec.compress(compressed, threads)) {
+          outputStream.write(contents);
+        }
+
+        Assert.assertEquals(name, codec.getName());
+        Assert.assertArrayEquals(contents, IOUtils.toByteArray(codec.decompress(new ByteArrayInputStream(compressed.toByteArray()))));
+      }
+    }
+  }
+
+  @Test
+  public void compressionCodecsAreFoundByTarFilename() {
+    Assert.assertEquals(GZipCodec.NAME, CompressionCodec.forTarFilename("module-1.0.tar.gz").get().getName());
+    Assert.assertEquals(GZipCodec.NAME, CompressionCodec.forTarFilename("module-1.0.tgz").get().getName());
+    Assert.assertEquals(ZstdCodec.NAME, CompressionCodec.forTarFilename("module-1.0.tar.zst").get().getName());
+    Assert.assertEquals(StoreCodec.NAME, CompressionCodec.forTarFilename("module-1.0.tar").get().getName());
+    Assert.assertFalse(CompressionCodec.forTarFilename("module-1.0.zip").isPresent());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void compressionCodecForAnUnknownNameThrowsIllegalArgumentException() {
+    CompressionCodec.forName("lz4");
+  }
+
+  @Test
+  public void compressionCodecsDontCompressEntriesThatAreAlreadyCompressed() {
+    CompressionCodec codec = CompressionCodec.forName("gzip");
+
+    Assert.assertTrue(codec.isCompressed("main.tf"));
+    Assert.assertFalse(codec.isCompressed("lambda/function.ZIP"));
+    Assert.assertFalse(codec.isCompressed("images/diagram.png"));
+    Assert.assertFalse(CompressionCodec.forName("store").isCompressed("main.tf"));
+  }
+}
@@ -0,0 +1,141 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
+import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Tests for ExpandableGZipTarArtifact.
+ */
+public class ExpandableGZipTarArtifactTest extends CompressableFileTest {
+
+  @Test
+  public void gzipTarArtifactExtractsFilesAndDirectoriesIntoTheSpecifiedDirectory() throws IOException {
+    Log log = Mockito.mock(Log.class);
+    byte[] largeFileContents = new byte[ExpandableGZipTarArtifact.MAX_BUFFERED_ENTRY_SIZE * 2];
+    new Random(7).nextBytes(largeFileContents);
+    Files.write(uncompressedDir.resolve("test2").resolve("large.bin"), largeFileContents);
+    Path script = uncompressedDir.resolve("test1").resolve("script.sh");
+    Files.write(script, "#!/bin/sh\n".getBytes());
+    Assert.assertTrue(script.toFile().setExecutable(true));
+    Path tarFile = createGZipTar("tf-module-my-module4-1.0.tar.gz", "test1", "test2");
+    Path expandedDir = uncompressedDir.resolve("modules").resolve("module4");
+    Expandable expandableArtifact = new ExpandableGZipTarArtifact(tarFile, expandedDir, log, 2);
+
+    Assert.assertEquals(expandedDir, expandableArtifact.expand().get());
+
+    Assert.assertArrayEquals(Files.readAllBytes(uncompressedDir.resolve("test1").resolve("test1.1").resolve("test1.1.txt")),
+        Files.readAllBytes(expandedDir.resolve("test1").resolve("test1.1").resolve("test1.1.txt")));
+    Assert.assertArrayEquals(Files.readAllBytes(uncompressedDir.resolve("test1").resolve("test.txt")),
+        Files.readAllBytes(expandedDir.resolve("test1").resolve("test.txt")));
+    Assert.assertArrayEquals(largeFileContents, Files.readAllBytes(expandedDir.resolve("test2").resolve("large.bin")));
+    Assert.assertTrue(expandedDir.resolve("test1").resolve("script.sh").toFile().canExecute());
+    Assert.assertTrue(tarFile.toFile().exists());
+  }
+
+  @Test
+  public void gzipTarArtifactExtractsIntoaDirectoryNamedForTheArtifact() throws IOException {
+    Path tarFile = createGZipTar("tf-module-my-module4-1.2.3-SNAPSHOT.tar.gz", "test2");
+    Expandable expandableArtifact = new ExpandableGZipTarArtifact(tarFile);
+
+    expandableArtifact.expand();
+
+    Assert.assertTrue(uncompressedDir.resolve("my-module4").resolve("test2").resolve("test2.txt").toFile().isFile());
+    Assert.assertFalse(tarFile.toFile().exists());
+  }
+
+  @Test
+  public void tarArtifactsCompressedWithOtherCodecsAreExpandedByTheirExtension() throws IOException {
+    for (CompressionCodec codec : new CompressionCodec[] {new ZstdCodec(), new StoreCodec()}) {
+      Path tarFile = uncompressedDir.resolve("tf-module-my-module5-1.0." + codec.getTarExtension());
+      Compressable compressable = new CompressableGZipTarFile(tarFile.toString(), uncompressedDir, 2, codec);
+      compressable.addToCompressedFile(uncompressedDir.resolve("test2"));
+      compressable.compress();
+      Path expandedDir = uncompressedDir.resolve(codec.getName());
+
+      Assert.assertTrue(new ExpandableGZipTarArtifact(tarFile, expandedDir, Mockito.mock(Log.class)).expand().isPresent());
+      Assert.assertArrayEquals(Files.readAllBytes(uncompressedDir.resolve("test2").resolve("test2.txt")),
+          Files.readAllBytes(expandedDir.resolve("test2").resolve("test2.txt")));
+      Assert.assertEquals("my-module5", ExpandableArtifact.getArtifactName(tarFile.getFileName().toString()));
+      Assert.assertTrue(ExpandableArtifact.isTar(tarFile.getFileName().toString()));
+    }
+  }
+
+  @Test
+  public void deduplicatedTarWritesIdenticalFilesOnceAndExpandsThemAsCopies() throws IOException {
+    byte[] moduleContents = "resource \"aws_s3_bucket\" \"bucket\" {}\n".getBytes(StandardCharsets.UTF_8);
+    for (String version : new String[] {"1.0", "1.1", "1.2"}) {
+      Files.createDirectories(uncompressedDir.resolve("modules").resolve(version));
+      Files.write(uncompressedDir.resolve("modules").resolve(version).resolve("main.tf"), moduleContents);
+    }
+    //same size, different contents
+    Files.write(uncompressedDir.resolve("modules").resolve("1.2").resolve("other.tf"),
+        "resource \"aws_s3_bucket\" \"object\" {}\n".getBytes(StandardCharsets.UTF_8));
+    Path tarFile = uncompressedDir.resolve("tf-module-my-module6-1.0.tar.gz");
+    CompressableGZipTarFile compressable = new CompressableGZipTarFile(tarFile.toString(), uncompressedDir);
+    compressable.setDeduplicate(true);
+    compressable.addToCompressedFile(uncompressedDir.resolve("modules"));
+    compressable.compress();
+
+    Assert.assertEquals(2, compressable.getLinkedEntryCount());
+    try (TarArchiveInputStream tar = new TarArchiveInputStream(new GZIPInputStream(Files.newInputStream(tarFile)))) {
+      TarArchiveEntry entry;
+      while ((entry = tar.getNextTarEntry()) != null) {
+        if (entry.getName().equals("modules/1.1/main.tf") || entry.getName().equals("modules/1.2/main.tf")) {
+          Assert.assertTrue(entry.isLink());
+          Assert.assertEquals("modules/1.0/main.tf", entry.getLinkName());
+        } else {
+          Assert.assertFalse(entry.isLink());
+        }
+      }
+    }
+
+    Path expandedDir = uncompressedDir.resolve("module6");
+    Assert.assertTrue(new ExpandableGZipTarArtifact(tarFile, expandedDir, Mockito.mock(Log.class), 2).expand().isPresent());
+    for (String version : new String[] {"1.0", "1.1", "1.2"}) {
+      Assert.assertArrayEquals(moduleContents, Files.readAllBytes(expandedDir.resolve("modules").resolve(version).resolve("main.tf")));
+    }
+    Assert.assertArrayEquals(Files.readAllBytes(uncompressedDir.resolve("modules").resolve("1.2").resolve("other.tf")),
+        Files.readAllBytes(expandedDir.resolve("modules").resolve("1.2").resolve("other.tf")));
+  }
+
+  @Test
+  public void gzipTarArtifactReturnsEmptyIfTheTarFileCantBeRead() throws IOException {
+    Log log = Mockito.mock(Log.class);
+    Path tarFile = uncompressedDir.resolve("not-a-tar-1.0.tar.gz");
+    Files.write(tarFile, "not a tar".getBytes());
+    Expandable expandableArtifact = new ExpandableGZipTarArtifact(tarFile, log);
+
+    Assert.assertFalse(expandableArtifact.expand().isPresent());
+    Mockito.verify(log, Mockito.times(1)).error(Mockito.anyString(), Mockito.any(Throwable.class));
+  }
+
+  @Test
+  public void getArtifactNameRemovesTheVersionAndExtension() {
+    Assert.assertEquals("my-module4", ExpandableArtifact.getArtifactName("tf-module-my-module4-1.0.tar.gz"));
+    Assert.assertEquals("my.module2", ExpandableArtifact.getArtifactName("tf-module-my.module2-0.1.tgz"));
+    Assert.assertEquals("my-module1", ExpandableArtifact.getArtifactName("tf-module-my-module1-0.12-rc.zip"));
+    //a single number version is removed, as it was before tar artifacts were supported
+    Assert.assertEquals("s3", ExpandableArtifact.getArtifactName("s3-1.zip"));
+    Assert.assertEquals("s3", ExpandableArtifact.getArtifactName("s3-1.tar.gz"));
+    Assert.assertTrue(ExpandableArtifact.isGZipTar("my-module4-1.0.tar.gz"));
+    Assert.assertFalse(ExpandableArtifact.isGZipTar("my-module1-0.12-rc.zip"));
+  }
+
+  private Path createGZipTar(String filename, String... paths) throws IOException {
+    Compressable compressable = new CompressableGZipTarFile(uncompressedDir.resolve(filename).toString(), uncompressedDir);
+    Arrays.stream(paths).forEach(path -> compressable.addToCompressedFile(uncompressedDir.resolve(path)));
+    return compressable.compress();
+  }
+}
@@ -118,4 +118,29 @@ public class ExpandableZippedArtifactTest {
 
     Assert.assertFalse(zipFile.toFile().exists());
   }
+
+  @Test
+  public void zippedArtifactExtractsIntoTheSpecifiedDirectoryWithoutDeletingTheZipFile() throws IOException {
+    Log log = Mockito.mock(Log.class);
+    Path zipFile = zipFileDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip");
+    Path expandedDir = zipFileDir.resolve("modules").resolve("module3");
+    Expandable expandableArtifact = new ExpandableZippedArtifact(zipFile, expandedDir, log);
+
+    Assert.assertEquals(expandedDir, expandableArtifact.expand().get());
+
+    Assert.assertTrue(expandedDir.resolve("test.file1.txt").toFile().isFile());
+    Assert.assertTrue(expandedDir.resolve("test_dir").resolve("test.file2.txt").toFile().isFile());
+    Assert.assertTrue(zipFile.toFile().exists());
+  }
+
+  @Test
+  public void zippedArtifactReturnsEmptyIfTheZipFileCantBeRead() throws IOException {
+    Log log = Mockito.mock(Log.class);
+    Path zipFile = zipFileDir.resolve("not-a-zip-1.0.zip");
+    Files.write(zipFile, "not a zip".getBytes());
+    Expandable expandableArtifact = new ExpandableZippedArtifact(zipFile, log);
+
+    Assert.assertFalse(expandableArtifact.expand().isPresent());
+    Mockito.verify(log, Mockito.times(1)).error(Mockito.anyString(), Mockito.any(Throwable.class));
+  }
 }
@@ -0,0 +1,65 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Tests for Fingerprint.
+ */
+public class FingerprintTest {
+
+  private Path workingDir;
+
+  @Before
+  public void setup() throws IOException {
+    workingDir = Files.createDirectories(Paths.get("target", "fingerprint-test"));
+  }
+
+  @After
+  public void teardown() throws IOException {
+    FileUtils.forceDelete(workingDir.toFile());
+  }
+
+  @Test
+  public void fingerprintsOfTheSameContentsInDifferentDirectoriesMatch() throws IOException {
+    Path dir1 = writeModule(workingDir.resolve("workspace1"), "resource {}");
+    Path dir2 = writeModule(workingDir.resolve("workspace2"), "resource {}");
+    Files.write(Files.createDirectories(dir2.resolve(".terraform")).resolve("plugin"), new byte[] {1});
+    Files.write(dir2.resolve(".module.lock"), new byte[0]);
+    Path fingerprintFile = workingDir.resolve("tf-fingerprints").resolve("init.sha256");
+
+    new Fingerprint(".terraform", ".*.lock").add("tfRootDir", dir1).add("fatTar", "true").save(fingerprintFile);
+
+    Assert.assertTrue(new Fingerprint(".terraform", ".*.lock").add("tfRootDir", dir2).add("fatTar", "true").matches(fingerprintFile));
+    Assert.assertFalse(new Fingerprint(".terraform", ".*.lock").add("tfRootDir", dir2).add("fatTar", "false").matches(fingerprintFile));
+    Assert.assertFalse(new Fingerprint().add("tfRootDir", dir2).add("fatTar", "true").matches(fingerprintFile));
+  }
+
+  @Test
+  public void fingerprintChangesWhenaFileChangesOrIsMissing() throws IOException {
+    Path dir = writeModule(workingDir.resolve("workspace"), "resource {}");
+    String hash = new Fingerprint().add("tfRootDir", dir).getHash();
+
+    Files.write(dir.resolve("main.tf"), "resource \"s3\" {}".getBytes(StandardCharsets.UTF_8));
+
+    Assert.assertNotEquals(hash, new Fingerprint().add("tfRootDir", dir).getHash());
+    Assert.assertNotEquals(hash, new Fingerprint().add("tfRootDir", workingDir.resolve("missing")).getHash());
+    Assert.assertFalse(new Fingerprint().matches(workingDir.resolve("missing.sha256")));
+  }
+
+  private static Path writeModule(Path dir, String contents) throws IOException {
+    Files.createDirectories(dir.resolve("modules"));
+    Files.write(dir.resolve("main.tf"), contents.getBytes(StandardCharsets.UTF_8));
+    Files.write(dir.resolve("modules").resolve("variables.tf"), "variable \"x\" {}".getBytes(StandardCharsets.UTF_8));
+    return dir;
+  }
+}
@@ -0,0 +1,78 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests for LockFile.
+ */
+public class LockFileTest {
+
+  private Path workingDir;
+
+  @Before
+  public void setup() throws IOException {
+    workingDir = Files.createDirectories(Paths.get("target", "lock-file-test"));
+  }
+
+  @After
+  public void teardown() throws IOException {
+    FileUtils.forceDelete(workingDir.toFile());
+  }
+
+  @Test
+  public void lockFileIsLeftInPlaceAndItsThreadLockIsDiscardedWhenItsReleased() throws IOException {
+    Path lockFile = workingDir.resolve(".module.lock");
+
+    try (LockFile lock = LockFile.acquire(lockFile)) {
+      Assert.assertTrue(LockFile.LOCKS.containsKey(lockFile.toAbsolutePath().normalize()));
+    }
+
+    Assert.assertTrue(lockFile.toFile().isFile());
+    Assert.assertFalse(LockFile.LOCKS.containsKey(lockFile.toAbsolutePath().normalize()));
+  }
+
+  @Test
+  public void lockFileIsHeldByOneThreadAtATimeAndItsThreadLockIsDiscardedAfterTheLastThread()
+      throws InterruptedException, ExecutionException {
+    Path lockFile = workingDir.resolve(".module.lock");
+    AtomicInteger holders = new AtomicInteger();
+    AtomicInteger maxHolders = new AtomicInteger();
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<?>> acquisitions = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        acquisitions.add(executor.submit(() -> {
+          try (LockFile lock = LockFile.acquire(lockFile)) {
+            maxHolders.accumulateAndGet(holders.incrementAndGet(), Math::max);
+            holders.decrementAndGet();
+          }
+          return null;
+        }));
+      }
+      for (Future<?> acquisition : acquisitions) {
+        acquisition.get();
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Assert.assertEquals(1, maxHolders.get());
+    Assert.assertFalse(LockFile.LOCKS.containsKey(lockFile.toAbsolutePath().normalize()));
+  }
+}
@@ -0,0 +1,72 @@
+package com.deliveredtechnologies.maven.io;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Tests for ParallelGZipOutputStream.
+ */
+public class ParallelGZipOutputStreamTest {
+
+  @Test
+  public void parallelGZipOutputStreamWritesaStandardGZipStream() throws IOException {
+    byte[] contents = createContents(10 * 1024 + 17);
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+
+    try (OutputStream outputStream = new ParallelGZipOutputStream(gzip, 4, 1024, Deflater.DEFAULT_COMPRESSION)) {
+      outputStream.write(contents, 0, 5000);
+      outputStream.write(contents[5000]);
+      outputStream.flush();
+      outputStream.write(contents, 5001, contents.length - 5001);
+    }
+
+    Assert.assertArrayEquals(contents, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))));
+  }
+
+  @Test
+  public void parallelGZipOutputStreamUsesThePreviousBlockAsaDictionary() throws IOException {
+    byte[] contents = createContents(ParallelGZipOutputStream.DEFAULT_BLOCK_SIZE * 4);
+    ByteArrayOutputStream parallelGzip = new ByteArrayOutputStream();
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+
+    try (OutputStream outputStream = new ParallelGZipOutputStream(parallelGzip, 4)) {
+      outputStream.write(contents);
+    }
+    try (OutputStream outputStream = new GZIPOutputStream(gzip)) {
+      outputStream.write(contents);
+    }
+
+    Assert.assertArrayEquals(contents, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(parallelGzip.toByteArray()))));
+    //blocks that don't share a dictionary would compress repeated text far worse than a single gzip stream
+    Assert.assertTrue(parallelGzip.size() < gzip.size() * 1.1);
+  }
+
+  @Test
+  public void parallelGZipOutputStreamWritesAnEmptyGZipStream() throws IOException {
+    ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+
+    new ParallelGZipOutputStream(gzip, 2).close();
+
+    Assert.assertEquals(0, IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))).length);
+  }
+
+  private byte[] createContents(int length) {
+    Random random = new Random(11);
+    StringBuilder contents = new StringBuilder();
+    while (contents.length() < length) {
+      contents.append("resource \"aws_s3_bucket\" \"bucket").append(random.nextInt(1000)).append("\" {\n  acl = \"private\"\n}\n");
+    }
+    return contents.substring(0, length).getBytes(StandardCharsets.UTF_8);
+  }
+}
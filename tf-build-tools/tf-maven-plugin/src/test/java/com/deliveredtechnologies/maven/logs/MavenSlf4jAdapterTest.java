@@ -0,0 +1,71 @@
+package com.deliveredtechnologies.maven.logs;
+
+import com.deliveredtechnologies.terraform.TerraformException;
+import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.slf4j.Logger;
+import org.slf4j.MarkerFactory;
+
+/**
+ * Tests for MavenSlf4jAdapter.
+ */
+public class MavenSlf4jAdapterTest {
+
+  @Test
+  public void mavenSlf4jAdapterFormatsMessagesWithAnchorsAndLogsTraceAtDebug() {
+    Exception exception = new TerraformException("boom!");
+    Log mavenLog = Mockito.mock(Log.class);
+    Mockito.when(mavenLog.isDebugEnabled()).thenReturn(true);
+    Mockito.when(mavenLog.isInfoEnabled()).thenReturn(true);
+    Mockito.when(mavenLog.isWarnEnabled()).thenReturn(true);
+    Mockito.when(mavenLog.isErrorEnabled()).thenReturn(true);
+    Logger logger = new MavenSlf4jAdapter(mavenLog);
+
+    logger.trace("Expanding {}", "network");
+    logger.trace(MarkerFactory.getMarker("tf"), "Expanded {} in {}ms", "network", 12);
+    logger.debug("Compressing {} of {} ({})", 1, 2, "main.tf");
+    logger.info(MarkerFactory.getMarker("tf"), "Failed", exception);
+    logger.info("Failed to expand {}", "network", exception);
+    logger.warn("Failed", exception);
+    logger.warn(MarkerFactory.getMarker("tf"), "Failed to expand {} and {}", "network", "app");
+    logger.error("Failed to expand {} and {}", "network", "app", exception);
+
+    Assert.assertTrue(logger.isTraceEnabled());
+    Mockito.verify(mavenLog).debug("Expanding network");
+    Mockito.verify(mavenLog).debug("Expanded network in 12ms");
+    Mockito.verify(mavenLog).debug("Compressing 1 of 2 (main.tf)");
+    Mockito.verify(mavenLog).info("Failed", exception);
+    Mockito.verify(mavenLog).info("Failed to expand network", exception);
+    Mockito.verify(mavenLog).warn("Failed", exception);
+    Mockito.verify(mavenLog).warn("Failed to expand network and app");
+    Mockito.verify(mavenLog).error("Failed to expand network and app", exception);
+  }
+
+  @Test
+  public void messagesOfDisabledLevelsAreNotFormatted() {
+    Log mavenLog = Mockito.mock(Log.class);
+    Logger logger = new MavenSlf4jAdapter(mavenLog);
+    Object argument = new Object() {
+      @Override
+      public String toString() {
+        throw new AssertionError("the message of a disabled level was formatted");
+      }
+    };
+
+    logger.trace("{}", argument);
+    logger.debug("{} {}", argument, argument);
+    logger.info("{} {} {}", argument, argument, argument);
+    logger.warn("{}", argument);
+    logger.error("{} {}", argument, argument);
+
+    Assert.assertFalse(logger.isTraceEnabled());
+    //only the levels are checked; nothing is formatted or logged at a disabled level
+    Mockito.verify(mavenLog, Mockito.times(3)).isDebugEnabled();
+    Mockito.verify(mavenLog).isInfoEnabled();
+    Mockito.verify(mavenLog).isWarnEnabled();
+    Mockito.verify(mavenLog).isErrorEnabled();
+    Mockito.verifyNoMoreInteractions(mavenLog);
+  }
+}
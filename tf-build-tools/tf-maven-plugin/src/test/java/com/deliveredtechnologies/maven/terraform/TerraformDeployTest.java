@@ -1,21 +1,45 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.Checksums;
 import com.deliveredtechnologies.maven.terraform.TerraformDeploy.TerraformDeployParam;
 
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.metadata.ArtifactMetadata;
+import org.apache.maven.artifact.repository.ArtifactRepository;
+import org.apache.maven.artifact.repository.Authentication;
+import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.DefaultProjectBuildingRequest;
 import org.apache.maven.project.MavenProject;
-import org.apache.maven.shared.invoker.InvocationRequest;
-import org.apache.maven.shared.invoker.Invoker;
-import org.apache.maven.shared.invoker.MavenInvocationException;
+import org.apache.maven.project.ProjectBuildingRequest;
+import org.apache.maven.project.artifact.ProjectArtifactMetadata;
+import org.apache.maven.repository.RepositorySystem;
+import org.apache.maven.settings.Settings;
+import org.apache.maven.shared.artifact.deploy.ArtifactDeployer;
+import org.apache.maven.shared.artifact.deploy.ArtifactDeployerException;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.util.Arrays;
+import java.nio.file.StandardCopyOption;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Properties;
 
 /**
@@ -24,101 +48,270 @@ import java.util.Properties;
 public class TerraformDeployTest {
 
   private MavenProject project;
+  private MavenSession session;
   private Log log;
   private Properties properties;
   private TerraformDeploy terraformDeploy;
-  private Invoker invoker;
-  private InvocationRequest request;
+  private Path workingDir;
+  private Path repositoryDir;
 
   /**
    * sets up objects and mocks.
+   * @throws IOException
    */
   @Before
-  public void setup() {
-    this.properties = Mockito.spy(Properties.class);
-    this.invoker = Mockito.mock(Invoker.class);
-    this.request = Mockito.mock(InvocationRequest.class);
+  public void setup() throws IOException {
+    this.properties = new Properties();
     this.project = new MavenProject();
+    this.project.setGroupId("com.deliveredtechnologies");
+    this.project.setArtifactId("my-module");
+    this.project.setVersion("1.0");
+    this.session = Mockito.mock(MavenSession.class);
+    Mockito.when(session.getProjectBuildingRequest()).thenReturn(new DefaultProjectBuildingRequest());
     this.log = Mockito.mock(Log.class);
-    this.terraformDeploy = new TerraformDeploy(log, project);
+    this.terraformDeploy = new TerraformDeploy(log, project, session, new FileRepositoryDeployer());
+    this.workingDir = Paths.get("target", "deploy-test");
+    this.repositoryDir = workingDir.resolve("repository").toAbsolutePath();
+    Files.createDirectories(workingDir);
+    properties.put(TerraformDeployParam.url.toString(), repositoryDir.toUri().toString());
+  }
+
+  @After
+  public void teardown() throws IOException {
+    FileUtils.forceDelete(workingDir.toFile());
+  }
+
+  @Test
+  public void deployDeploysTheFileItsPomAndItsSha256ToTheRepository() throws TerraformException, IOException {
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    Path sha256File = Files.write(workingDir.resolve("file1.zip.sha256"), "sha256".getBytes(StandardCharsets.UTF_8));
+    Path pom = Files.write(workingDir.resolve("mypom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.pomFile.toString(), pom.toString());
 
+    String response = terraformDeploy.execute(properties);
+
+    Path versionDir = repositoryDir.resolve(Paths.get("com", "deliveredtechnologies", "my-module", "1.0"));
+    Assert.assertEquals(String.format("Successfully deployed %1$s", file), response);
+    Assert.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(versionDir.resolve("my-module-1.0.zip")));
+    Assert.assertArrayEquals(Files.readAllBytes(sha256File), Files.readAllBytes(versionDir.resolve("my-module-1.0.zip.sha256")));
+    Assert.assertArrayEquals(Files.readAllBytes(pom), Files.readAllBytes(versionDir.resolve("my-module-1.0.pom")));
   }
 
   @Test
-  public void deployFileToMavenRepoDeploysWithPomAndFileSpecified() throws TerraformException, MavenInvocationException {
-    String filename = "file1.txt";
-    String pom = "mypom.xml";
-    String url = "http://someurl.com";
+  public void deployDeploysaTarWithaGeneratedPom() throws TerraformException, IOException {
+    Path file = Files.write(workingDir.resolve("file1.tar.gz"), "tar".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.generatePom.toString(), "true");
 
-    properties.put(TerraformDeployParam.url.toString(), url);
-    properties.put(TerraformDeployParam.file.toString(), filename);
-    properties.put(TerraformDeployParam.pomFile.toString(), pom);
+    terraformDeploy.execute(properties);
 
-    Properties deployFileProps = terraformDeploy.deployFileToMavenRepo(invoker, request, properties);
+    Path versionDir = repositoryDir.resolve(Paths.get("com", "deliveredtechnologies", "my-module", "1.0"));
+    Assert.assertTrue(versionDir.resolve("my-module-1.0.tar.gz").toFile().isFile());
+    Assert.assertFalse(versionDir.resolve("my-module-1.0.tar.gz.sha256").toFile().exists());
+    String pom = new String(Files.readAllBytes(versionDir.resolve("my-module-1.0.pom")), StandardCharsets.UTF_8);
+    Assert.assertTrue(pom.contains("<groupId>com.deliveredtechnologies</groupId>"));
+    Assert.assertTrue(pom.contains("<artifactId>my-module</artifactId>"));
+    Assert.assertTrue(pom.contains("<packaging>tar.gz</packaging>"));
+    Files.deleteIfExists(Paths.get("target", "my-module-1.0.pom"));
+  }
+
+  @SuppressWarnings("unchecked")
+  @Test
+  public void deployDeploysThePackagedZipToTheRepositoryInaSingleRequest() throws TerraformException, IOException, ArtifactDeployerException {
+    ArtifactDeployer deployer = Mockito.mock(ArtifactDeployer.class);
+    Path file = Files.write(Paths.get("target", "my-module-1.0.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.repositoryId.toString(), "releases");
 
-    for (String key : properties.stringPropertyNames()) {
-      Assert.assertEquals(properties.getProperty(key), deployFileProps.getProperty(key));
+    try {
+      new TerraformDeploy(log, project, session, deployer).execute(properties);
+    } finally {
+      Files.delete(file);
     }
 
-    Mockito.verify(request, Mockito.times(1)).setProperties(Mockito.any());
-    Mockito.verify(request, Mockito.times(1)).setGoals(Arrays.asList("deploy:deploy-file"));
-    Mockito.verify(invoker, Mockito.times(1)).execute(request);
+    Mockito.verify(deployer, Mockito.times(1)).deploy(
+        Mockito.eq(session.getProjectBuildingRequest()),
+        Mockito.argThat(repository -> repository.getId().equals("releases")),
+        (Collection<Artifact>)Mockito.argThat(artifacts -> ((Collection<Artifact>)artifacts).size() == 1));
   }
 
   @Test
-  public void deployFileToMavenRepoDeploysWithGeneratedPom() throws TerraformException, MavenInvocationException {
-    String url = "http://someurl.com";
-    String groupId = "com.somegroup";
-    String artifactId = "artifactId";
-    String version = "0.1-SNAPSHOT";
+  public void deployDeploysAttachmentsWithTheirClassifiersInTheSameRequest() throws TerraformException, IOException, ArtifactDeployerException {
+    ArtifactDeployer deployer = Mockito.spy(new FileRepositoryDeployer());
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    Path fatTar = Files.write(workingDir.resolve("file1-fat.tar.gz"), "fat tar".getBytes(StandardCharsets.UTF_8));
+    Path fatTarSha256 = Files.write(workingDir.resolve("file1-fat.tar.gz.sha256"), "sha256".getBytes(StandardCharsets.UTF_8));
+    Path other = Files.write(workingDir.resolve("other.zip"), "other zip".getBytes(StandardCharsets.UTF_8));
+    Path pom = Files.write(workingDir.resolve("mypom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.pomFile.toString(), pom.toString());
+    properties.put(TerraformDeployParam.attachments.toString(), String.format("fat:%1$s, other:%2$s", fatTar, other));
 
-    properties.put(TerraformDeployParam.url.toString(), url);
-    properties.put(TerraformDeployParam.generatePom.toString(), "true");
-    properties.put(TerraformDeployParam.groupId, groupId);
-    properties.put(TerraformDeployParam.artifactId, artifactId);
-    properties.put(TerraformDeployParam.version, version);
+    new TerraformDeploy(log, project, session, deployer).execute(properties);
 
-    Properties deployFileProps = terraformDeploy.deployFileToMavenRepo(invoker, request, properties);
+    Path versionDir = repositoryDir.resolve(Paths.get("com", "deliveredtechnologies", "my-module", "1.0"));
+    Assert.assertArrayEquals(Files.readAllBytes(file), Files.readAllBytes(versionDir.resolve("my-module-1.0.zip")));
+    Assert.assertArrayEquals(Files.readAllBytes(fatTar), Files.readAllBytes(versionDir.resolve("my-module-1.0-fat.tar.gz")));
+    Assert.assertArrayEquals(Files.readAllBytes(fatTarSha256), Files.readAllBytes(versionDir.resolve("my-module-1.0-fat.tar.gz.sha256")));
+    Assert.assertArrayEquals(Files.readAllBytes(other), Files.readAllBytes(versionDir.resolve("my-module-1.0-other.zip")));
+    Mockito.verify(deployer, Mockito.times(1)).deploy(Mockito.any(), Mockito.any(), Mockito.any());
+  }
 
-    for (String key : properties.stringPropertyNames()) {
-      Assert.assertEquals(properties.getProperty(key), deployFileProps.getProperty(key));
-    }
+  @Test(expected = TerraformException.class)
+  public void deployThrowsTerraformExceptionIfAnAttachmentHasNoClassifier() throws TerraformException, IOException {
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.attachments.toString(), file.toString());
+
+    terraformDeploy.execute(properties);
+  }
+
+  @Test(expected = TerraformException.class)
+  public void deployThrowsTerraformExceptionIfaClassifierIsRepeated() throws TerraformException, IOException {
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.attachments.toString(), String.format("fat:%1$s,fat:%1$s", file));
+
+    terraformDeploy.execute(properties);
+  }
+
+  @Test
+  public void deploySkipsArtifactsThatAreAlreadyDeployedWithTheSameContents() throws TerraformException, IOException, ArtifactDeployerException {
+    ArtifactDeployer deployer = Mockito.spy(new FileRepositoryDeployer());
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    Path pom = Files.write(workingDir.resolve("mypom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.pomFile.toString(), pom.toString());
+    TerraformDeploy deploy = new TerraformDeploy(log, project, session, deployer);
 
-    Mockito.verify(request, Mockito.times(1)).setProperties(Mockito.any());
-    Mockito.verify(request, Mockito.times(1)).setGoals(Arrays.asList("deploy:deploy-file"));
-    Mockito.verify(invoker, Mockito.times(1)).execute(request);
+    deploy.execute(properties);
+    String response = deploy.execute(properties);
+    Files.write(file, "changed zip".getBytes(StandardCharsets.UTF_8));
+    deploy.execute(properties);
+
+    Assert.assertEquals(String.format("Skipped deploying %1$s; identical artifacts are already deployed", file), response);
+    Mockito.verify(log, Mockito.times(1)).info(String.format("Skipped my-module-1.0.zip; it is already deployed to %1$s",
+        properties.getProperty(TerraformDeployParam.url.toString())));
+    Mockito.verify(log, Mockito.times(1)).info(String.format("Skipped my-module-1.0.pom; it is already deployed to %1$s",
+        properties.getProperty(TerraformDeployParam.url.toString())));
+    Mockito.verify(deployer, Mockito.times(2)).deploy(Mockito.any(), Mockito.any(), Mockito.any());
   }
 
   @Test
-  public void deployFileToMavenRepoDeploysWithPomAndFileOmitted() throws TerraformException, MavenInvocationException {
-    String url = "http://someurl.com";
-    Path targetPath = Paths.get("target")
-        .resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
+  public void deploySkipsaSnapshotThatIsTheSameAsTheLatestDeployedSnapshot() throws TerraformException, IOException, ArtifactDeployerException {
+    project.setVersion("1.0-SNAPSHOT");
+    ArtifactDeployer deployer = Mockito.mock(ArtifactDeployer.class);
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    Path pom = Files.write(workingDir.resolve("mypom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+    Path versionDir = repositoryDir.resolve(Paths.get("com", "deliveredtechnologies", "my-module", "1.0-SNAPSHOT"));
+    Files.createDirectories(versionDir);
+    Files.write(versionDir.resolve("maven-metadata.xml"), String.join("\n",
+        "<metadata><groupId>com.deliveredtechnologies</groupId><artifactId>my-module</artifactId><version>1.0-SNAPSHOT</version>",
+        "<versioning><snapshotVersions>",
+        "<snapshotVersion><extension>zip</extension><value>1.0-20200101.120000-2</value></snapshotVersion>",
+        "<snapshotVersion><extension>pom</extension><value>1.0-20200101.120000-2</value></snapshotVersion>",
+        "</snapshotVersions></versioning></metadata>").getBytes(StandardCharsets.UTF_8));
+    Files.copy(file, versionDir.resolve("my-module-1.0-20200101.120000-2.zip"));
+    Files.copy(pom, versionDir.resolve("my-module-1.0-20200101.120000-2.pom"));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.pomFile.toString(), pom.toString());
+
+    String response = new TerraformDeploy(log, project, session, deployer).execute(properties);
 
-    properties.put(TerraformDeployParam.url.toString(), url);
+    Assert.assertEquals(String.format("Skipped deploying %1$s; identical artifacts are already deployed", file), response);
+    Mockito.verify(deployer, Mockito.never()).deploy(Mockito.any(), Mockito.any(), Mockito.any());
+  }
 
-    Properties deployFileProps = terraformDeploy.deployFileToMavenRepo(invoker, request, properties);
+  @Test
+  public void deployReadsTheDeployedChecksumsWithTheRepositorysCredentials() throws TerraformException, IOException, ArtifactDeployerException {
+    ArtifactDeployer deployer = Mockito.mock(ArtifactDeployer.class);
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    Path pom = Files.write(workingDir.resolve("mypom.xml"), "<project/>".getBytes(StandardCharsets.UTF_8));
+    Map<String, String> checksums = new HashMap<>();
+    try (InputStream fileStream = Files.newInputStream(file); InputStream pomStream = Files.newInputStream(pom)) {
+      checksums.put("/com/deliveredtechnologies/my-module/1.0/my-module-1.0.zip.sha1", Checksums.checksum(fileStream, Checksums.SHA1));
+      checksums.put("/com/deliveredtechnologies/my-module/1.0/my-module-1.0.pom.sha1", Checksums.checksum(pomStream, Checksums.SHA1));
+    }
+    String authorization = "Basic " + Base64.getEncoder().encodeToString("deployer:secret".getBytes(StandardCharsets.UTF_8));
+    HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/", exchange -> {
+      String checksum = checksums.get(exchange.getRequestURI().getPath());
+      int status = !authorization.equals(exchange.getRequestHeaders().getFirst("Authorization")) ? 401 : checksum == null ? 404 : 200;
+      byte[] body = status == 200 ? checksum.getBytes(StandardCharsets.UTF_8) : new byte[0];
+      exchange.sendResponseHeaders(status, body.length == 0 ? -1 : body.length);
+      exchange.getResponseBody().write(body);
+      exchange.close();
+    });
+    RepositorySystem repositorySystem = Mockito.mock(RepositorySystem.class);
+    Mockito.doAnswer(invocation -> {
+      List<ArtifactRepository> repositories = invocation.getArgument(0);
+      repositories.forEach(repository -> repository.setAuthentication(new Authentication("deployer", "secret")));
+      return null;
+    }).when(repositorySystem).injectAuthentication(Mockito.anyList(), Mockito.anyList());
+    Mockito.when(session.getSettings()).thenReturn(new Settings());
+    properties.put(TerraformDeployParam.url.toString(), String.format("http://localhost:%1$d", server.getAddress().getPort()));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
+    properties.put(TerraformDeployParam.pomFile.toString(), pom.toString());
 
-    Assert.assertEquals(String.format(targetPath.toString()), deployFileProps.getProperty(TerraformDeployParam.file.toString()));
-    Assert.assertEquals(String.format(Paths.get(".flattened-pom.xml").toAbsolutePath().toString(), targetPath.toAbsolutePath().toString()), deployFileProps.getProperty(TerraformDeployParam.pomFile.toString()));
-    Assert.assertEquals("zip", deployFileProps.getProperty("packaging"));
+    server.start();
+    try {
+      String response = new TerraformDeploy(log, project, session, deployer, repositorySystem).execute(properties);
 
-    Mockito.verify(request, Mockito.times(1)).setProperties(Mockito.any());
-    Mockito.verify(request, Mockito.times(1)).setGoals(Arrays.asList("deploy:deploy-file"));
-    Mockito.verify(invoker, Mockito.times(1)).execute(request);
+      Assert.assertEquals(String.format("Skipped deploying %1$s; identical artifacts are already deployed", file), response);
+      Mockito.verify(deployer, Mockito.never()).deploy(Mockito.any(), Mockito.any(), Mockito.any());
+    } finally {
+      server.stop(0);
+    }
   }
 
-  public void deployFileToMavenRepoDeploysWithUrlOmitted() throws TerraformException, MavenInvocationException {
-    terraformDeploy.deployFileToMavenRepo(invoker, request, properties);
+  @Test(expected = TerraformException.class)
+  public void deployThrowsTerraformExceptionIfTheFileDoesNotExist() throws TerraformException {
+    properties.put(TerraformDeployParam.file.toString(), workingDir.resolve("missing.zip").toString());
+
+    terraformDeploy.execute(properties);
   }
 
   @Test(expected = TerraformException.class)
-  public void deployFileToMavenRepoErrorResultsInTerraformException() throws TerraformException, MavenInvocationException {
-    String url = "http://someurl.com";
-    properties.put(TerraformDeployParam.url.toString(), url);
+  public void deployErrorResultsInTerraformException() throws TerraformException, IOException, ArtifactDeployerException {
+    ArtifactDeployer deployer = Mockito.mock(ArtifactDeployer.class);
+    Mockito.doThrow(new ArtifactDeployerException("boom!", new IOException())).when(deployer)
+        .deploy(Mockito.any(), Mockito.any(), Mockito.any());
+    Path file = Files.write(workingDir.resolve("file1.zip"), "zip".getBytes(StandardCharsets.UTF_8));
+    properties.put(TerraformDeployParam.file.toString(), file.toString());
 
-    Mockito.when(invoker.execute(request)).thenThrow(new MavenInvocationException("boom!"));
+    new TerraformDeploy(log, project, session, deployer).execute(properties);
+  }
 
-    terraformDeploy.deployFileToMavenRepo(invoker, request, properties);
+  /**
+   * Stands in for the repository system by copying artifacts (and their POMs) into a file:// repository.
+   */
+  static class FileRepositoryDeployer implements ArtifactDeployer {
+    @Override
+    public void deploy(ProjectBuildingRequest request, Collection<Artifact> artifacts) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void deploy(ProjectBuildingRequest request, ArtifactRepository repository, Collection<Artifact> artifacts)
+        throws ArtifactDeployerException {
+      Path basedir = Paths.get(repository.getBasedir());
+      try {
+        for (Artifact artifact : artifacts) {
+          copy(artifact.getFile().toPath(), basedir.resolve(repository.pathOf(artifact)));
+          for (ArtifactMetadata metadata : artifact.getMetadataList()) {
+            if (metadata instanceof ProjectArtifactMetadata) {
+              copy(((ProjectArtifactMetadata)metadata).getFile().toPath(), basedir.resolve(repository.pathOfRemoteRepositoryMetadata(metadata)));
+            }
+          }
+        }
+      } catch (IOException e) {
+        throw new ArtifactDeployerException(e.getMessage(), e);
+      }
+    }
+
+    private static void copy(Path source, Path target) throws IOException {
+      Files.createDirectories(target.getParent());
+      Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+    }
   }
 }
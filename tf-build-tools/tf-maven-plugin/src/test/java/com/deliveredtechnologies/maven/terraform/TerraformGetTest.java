@@ -1,8 +1,15 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.CompressableGZipTarFile;
+import com.deliveredtechnologies.maven.io.CompressableZipFile;
+import com.deliveredtechnologies.maven.io.ZstdCodec;
 import com.deliveredtechnologies.terraform.TerraformException;
 import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
 import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
 import org.apache.maven.shared.invoker.InvocationRequest;
 import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
@@ -14,12 +21,19 @@ import org.mockito.Mockito;
 
 import java.io.IOException;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 /**
@@ -27,6 +41,7 @@ import java.util.stream.Collectors;
  */
 public class TerraformGetTest {
 
+  private Path zipsDir;
   private Path tfModules;
 
   /**
@@ -36,7 +51,7 @@ public class TerraformGetTest {
    */
   @Before
   public void setup() throws URISyntaxException, IOException {
-    Path zipsDir = Paths.get(this.getClass().getResource("/zips").toURI());
+    zipsDir = Paths.get(this.getClass().getResource("/zips").toURI());
     tfModules  = zipsDir.resolveSibling(".tfmodules");
     FileUtils.forceMkdir(tfModules.toFile());
     List<Path> zipFiles = Files.walk(zipsDir, 1)
@@ -127,4 +142,228 @@ public class TerraformGetTest {
 
     Assert.assertNotNull(terraformGet);
   }
+
+  @Test
+  public void executeWithProjectExpandsTheProjectsResolvedZipArtifacts() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path modulesDir = tfModules.resolve("project_modules");
+    MavenProject project = new MavenProject();
+    project.setArtifacts(new HashSet<>(Arrays.asList(
+        createArtifact("my.module2", "0.1", zipsDir.resolve("tf-module-my.module2-0.1.zip")),
+        createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip")))));
+    TerraformGet terraformGet = new TerraformGet(log, modulesDir, project);
+
+    List<Path> modules = terraformGet.execute(new Properties());
+
+    Assert.assertEquals(2, modules.size());
+    Assert.assertTrue(modulesDir.resolve("my.module2").resolve("test.file1.txt").toFile().exists());
+    Assert.assertTrue(modulesDir.resolve("my-module3").resolve("test_dir").resolve("test.file2.txt").toFile().exists());
+    Assert.assertTrue(zipsDir.resolve("tf-module-my.module2-0.1.zip").toFile().exists());
+    Assert.assertEquals(2, Files.list(modulesDir).filter(path -> !path.getFileName().toString().startsWith(".")).count());
+  }
+
+  @Test
+  public void mediateArtifactsSelectsTheHighestVersionOfConflictingModules() throws IOException {
+    Log log = Mockito.mock(Log.class);
+    TerraformGet terraformGet = new TerraformGet(log, tfModules);
+    Path zipFile = zipsDir.resolve("tf-module-my.module2-0.1.zip");
+    Artifact lowerVersion = createArtifact("my.module2", "0.1", zipFile);
+    Artifact higherVersion = createArtifact("my.module2", "0.10", zipFile);
+    Artifact pom = new DefaultArtifact("com.deliveredtechnologies", "parent", "1.0", "compile", "pom", null, new DefaultArtifactHandler("pom"));
+    pom.setFile(zipFile.toFile());
+
+    Collection<Artifact> artifacts = terraformGet.mediateArtifacts(Arrays.asList(lowerVersion, higherVersion, pom));
+
+    Assert.assertEquals(1, artifacts.size());
+    Assert.assertSame(higherVersion, artifacts.iterator().next());
+    Mockito.verify(log, Mockito.times(1)).warn(Mockito.anyString());
+  }
+
+  @Test
+  public void updateModuleSourcesRewritesNestedModuleReferencesRelativeToTheModulesDirectory() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path module = tfModules.resolve("nested");
+    FileUtils.forceMkdir(module.resolve("root").toFile());
+    Files.write(module.resolve("main.tf"), "module \"s3\" {\n  source = \"../../.tfmodules/s3\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(module.resolve("root").resolve("main.tf"), "module \"s3\" {\n  source=\"../../../.tfmodules/s3/sub\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(module.resolve("other.tf"), "module \"vpc\" {\n  source = \"git::https://example.com/vpc.git\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    TerraformGet terraformGet = new TerraformGet(log, tfModules);
+
+    int count = terraformGet.updateModuleSources(Arrays.asList(module));
+
+    Assert.assertEquals(2, count);
+    Assert.assertTrue(new String(Files.readAllBytes(module.resolve("main.tf")), StandardCharsets.UTF_8).contains("source = \"../s3\""));
+    Assert.assertTrue(new String(Files.readAllBytes(module.resolve("root").resolve("main.tf")), StandardCharsets.UTF_8).contains("source=\"../../s3/sub\""));
+  }
+
+  @Test
+  public void getDependenciesFromProjectExpandsNestedModulesSoTheyResolveInTheModulesDirectory() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path moduleSource = tfModules.resolve("nested_src");
+    FileUtils.forceMkdir(moduleSource.toFile());
+    Files.write(moduleSource.resolve("main.tf"), "module \"dep\" {\n  source = \"../../.tfmodules/my-module3\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    CompressableZipFile zipFile = new CompressableZipFile(tfModules.resolveSibling("nested-1.0.zip").toString());
+    zipFile.addToCompressedFile(moduleSource.resolve("main.tf"));
+    Path nestedZip = zipFile.compress();
+    MavenProject project = new MavenProject();
+    project.setArtifacts(new HashSet<>(Arrays.asList(
+        createArtifact("nested", "1.0", nestedZip),
+        createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip")))));
+    TerraformGet terraformGet = new TerraformGet(log, tfModules, project);
+
+    terraformGet.execute(new Properties());
+    Files.delete(nestedZip);
+
+    Path nestedMainTf = tfModules.resolve("nested").resolve("main.tf");
+    Assert.assertTrue(new String(Files.readAllBytes(nestedMainTf), StandardCharsets.UTF_8).contains("source = \"../my-module3\""));
+    Assert.assertTrue(nestedMainTf.getParent().resolve("../my-module3").toFile().isDirectory());
+  }
+
+  @Test
+  public void executeLazilyExpandsOnlyTheModulesReferencedByTheRootModule() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path moduleSource = tfModules.resolve("nested_src");
+    FileUtils.forceMkdir(moduleSource.toFile());
+    Files.write(moduleSource.resolve("main.tf"), "module \"dep\" {\n  source = \"../../.tfmodules/my-module3\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    CompressableZipFile zipFile = new CompressableZipFile(tfModules.resolveSibling("nested-1.0.zip").toString());
+    zipFile.addToCompressedFile(moduleSource.resolve("main.tf"));
+    Path nestedZip = zipFile.compress();
+    Path rootDir = tfModules.resolveSibling("lazy_tf").resolve("root");
+    FileUtils.forceMkdir(rootDir.toFile());
+    Files.write(rootDir.resolve("main.tf"), "module \"nested\" {\n  source = \"../../.tfmodules/nested\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    MavenProject project = new MavenProject();
+    project.setArtifacts(new HashSet<>(Arrays.asList(
+        createArtifact("nested", "1.0", nestedZip),
+        createArtifact("my.module2", "0.1", zipsDir.resolve("tf-module-my.module2-0.1.zip")),
+        createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip")))));
+    Properties properties = new Properties();
+    properties.setProperty("lazy", "true");
+    properties.setProperty("tfRootDir", rootDir.toString());
+    TerraformGet terraformGet = new TerraformGet(log, tfModules, project);
+
+    try {
+      List<Path> modules = terraformGet.execute(properties);
+
+      Assert.assertEquals(Arrays.asList(tfModules.resolve("nested"), tfModules.resolve("my-module3")), modules);
+      Assert.assertFalse(tfModules.resolve("my.module2").toFile().exists());
+      Assert.assertTrue(new String(Files.readAllBytes(tfModules.resolve("nested").resolve("main.tf")), StandardCharsets.UTF_8)
+          .contains("source = \"../my-module3\""));
+      Mockito.verify(log, Mockito.times(1)).warn("Unused Terraform module dependencies: com.deliveredtechnologies:my.module2:zip:0.1");
+    } finally {
+      Files.delete(nestedZip);
+      FileUtils.forceDelete(rootDir.getParent().toFile());
+    }
+  }
+
+  @Test
+  public void getDependenciesFromProjectExpandsGZipTarArtifacts() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path moduleSource = tfModules.resolve("fat_src");
+    FileUtils.forceMkdir(moduleSource.resolve("sub").toFile());
+    Files.write(moduleSource.resolve("main.tf"), "variable \"name\" {}\n".getBytes(StandardCharsets.UTF_8));
+    Files.write(moduleSource.resolve("sub").resolve("sub.tf"), "variable \"sub\" {}\n".getBytes(StandardCharsets.UTF_8));
+    CompressableGZipTarFile tarFile = new CompressableGZipTarFile(tfModules.resolveSibling("fat-1.0.tar.gz").toString(), moduleSource);
+    tarFile.addToCompressedFile(moduleSource.resolve("main.tf"));
+    tarFile.addToCompressedFile(moduleSource.resolve("sub"));
+    Path fatTar = tarFile.compress();
+    TerraformGet terraformGet = new TerraformGet(log, tfModules);
+
+    try {
+      List<Path> modules = terraformGet.getDependenciesFromProject(Arrays.asList(
+          createArtifact("fat", "1.0", "tar.gz", fatTar),
+          createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip"))));
+
+      Assert.assertEquals(Arrays.asList(tfModules.resolve("fat"), tfModules.resolve("my-module3")), modules);
+      Assert.assertTrue(tfModules.resolve("fat").resolve("main.tf").toFile().isFile());
+      Assert.assertTrue(tfModules.resolve("fat").resolve("sub").resolve("sub.tf").toFile().isFile());
+      Assert.assertTrue(tfModules.resolve("my-module3").resolve("test.file1.txt").toFile().isFile());
+      Assert.assertTrue(fatTar.toFile().exists());
+    } finally {
+      Files.delete(fatTar);
+    }
+  }
+
+  @Test
+  public void getDependenciesFromProjectExpandsZstdTarArtifacts() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path moduleSource = tfModules.resolve("zstd_src");
+    FileUtils.forceMkdir(moduleSource.toFile());
+    Files.write(moduleSource.resolve("main.tf"), "variable \"name\" {}\n".getBytes(StandardCharsets.UTF_8));
+    CompressableGZipTarFile tarFile = new CompressableGZipTarFile(tfModules.resolveSibling("zstd-1.0.tar.zst").toString(),
+        moduleSource, 2, new ZstdCodec());
+    tarFile.addToCompressedFile(moduleSource.resolve("main.tf"));
+    Path zstdTar = tarFile.compress();
+    TerraformGet terraformGet = new TerraformGet(log, tfModules);
+
+    try {
+      List<Path> modules = terraformGet.getDependenciesFromProject(Arrays.asList(createArtifact("zstd", "1.0", "tar.zst", zstdTar)));
+
+      Assert.assertEquals(Arrays.asList(tfModules.resolve("zstd")), modules);
+      Assert.assertTrue(tfModules.resolve("zstd").resolve("main.tf").toFile().isFile());
+    } finally {
+      Files.delete(zstdTar);
+    }
+  }
+
+  @Test(expected = TerraformException.class)
+  public void getWithAnUnknownCodecThrowsTerraformException() throws IOException, TerraformException {
+    Properties properties = new Properties();
+    properties.setProperty(TerraformGet.TerraformGetParams.codec.toString(), "lz4");
+
+    new TerraformGet(Mockito.mock(Log.class), tfModules).execute(properties);
+  }
+
+  @Test
+  public void concurrentGetsExpandEachModuleOnceAndReuseTheExpandedModule() throws Exception {
+    Log log = Mockito.mock(Log.class);
+    Collection<Artifact> artifacts = Arrays.asList(
+        createArtifact("my.module2", "0.1", zipsDir.resolve("tf-module-my.module2-0.1.zip")),
+        createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip")));
+    Callable<List<Path>> get = () -> new TerraformGet(log, tfModules).getDependenciesFromProject(artifacts);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    try {
+      List<Future<List<Path>>> gets = executor.invokeAll(Arrays.asList(get, get, get, get));
+      for (Future<List<Path>> result : gets) {
+        Assert.assertEquals(Arrays.asList(tfModules.resolve("my.module2"), tfModules.resolve("my-module3")), result.get());
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    Mockito.verify(log, Mockito.times(2)).info(Mockito.startsWith("Expanding"));
+    Mockito.verify(log, Mockito.times(6)).info(Mockito.startsWith("Using"));
+    Assert.assertTrue(tfModules.resolve("my-module3").resolve("test_dir").resolve("test.file2.txt").toFile().isFile());
+    Assert.assertTrue(Files.list(tfModules).noneMatch(path -> path.getFileName().toString().matches("\\..*\\.[0-9a-f-]{36}")));
+  }
+
+  @Test
+  public void getDependenciesFromProjectReplacesaModuleExpandedFromaDifferentArtifact() throws IOException, TerraformException {
+    Log log = Mockito.mock(Log.class);
+    Path zipFile = tfModules.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip");
+    Artifact artifact = createArtifact("my-module3", "1.2.3-SNAPSHOT", zipFile);
+    TerraformGet terraformGet = new TerraformGet(log, tfModules);
+    terraformGet.getDependenciesFromProject(Arrays.asList(artifact));
+    Path staleFile = Files.write(tfModules.resolve("my-module3").resolve("stale.txt"), new byte[0]);
+
+    terraformGet.getDependenciesFromProject(Arrays.asList(artifact));
+    Assert.assertTrue(staleFile.toFile().exists());
+
+    Assert.assertTrue(zipFile.toFile().setLastModified(zipFile.toFile().lastModified() - 60000));
+    terraformGet.getDependenciesFromProject(Arrays.asList(artifact));
+
+    Assert.assertFalse(staleFile.toFile().exists());
+    Assert.assertTrue(tfModules.resolve("my-module3").resolve("test.file1.txt").toFile().isFile());
+    Mockito.verify(log, Mockito.times(2)).info(Mockito.startsWith("Expanding"));
+  }
+
+  private Artifact createArtifact(String artifactId, String version, Path file) {
+    return createArtifact(artifactId, version, "zip", file);
+  }
+
+  private Artifact createArtifact(String artifactId, String version, String type, Path file) {
+    Artifact artifact = new DefaultArtifact("com.deliveredtechnologies", artifactId, version, "compile", type, null, new DefaultArtifactHandler(type));
+    artifact.setFile(file.toFile());
+    return artifact;
+  }
 }
@@ -1,13 +1,19 @@
 package com.deliveredtechnologies.maven.terraform;
 
+import com.deliveredtechnologies.maven.io.AbstractCompressable;
+import com.deliveredtechnologies.maven.io.Checksums;
 import com.deliveredtechnologies.maven.io.IterableZipInputStream;
+import com.deliveredtechnologies.maven.io.ZstdCodec;
 import com.deliveredtechnologies.maven.terraform.TerraformPackage.TerraformPackageParams;
 
 import com.deliveredtechnologies.terraform.TerraformException;
+import com.deliveredtechnologies.terraform.api.TerraformOperation;
 import org.apache.commons.compress.archivers.tar.TarArchiveEntry;
 import org.apache.commons.compress.archivers.tar.TarArchiveInputStream;
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.maven.project.MavenProject;
+import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -15,17 +21,22 @@ import org.junit.Test;
 import java.io.BufferedReader;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 /**
  * Tests for TerraformPackage.
@@ -53,10 +64,19 @@ public class TerraformPackageTest {
     this.properties.put(TerraformPackageParams.tfModulesDir.toString(), tfModules.toString());
   }
 
+  @After
+  public void destroy() {
+    //some tests package the default root module dir, which is relative to the working directory
+    FileUtils.deleteQuietly(Paths.get("src", "main", "tf").toFile());
+  }
+
   @Test
   public void packageWithFatTarPackagesTfModulesInsideTfRootInTheTargetDir() throws IOException, TerraformException {
+    properties.put(TerraformPackageParams.stage.toString(), "true");
     properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    Path lockFile = Files.write(tfModules.resolve(".test-module.lock"), new byte[0]);
     String response = this.terraformPackage.execute(properties);
+    Files.delete(lockFile);
     Path tarFilePath = Paths.get(TerraformPackage.targetDir)
         .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
 
@@ -100,8 +120,44 @@ public class TerraformPackageTest {
     }
   }
 
+  @Test
+  public void packageInputsAndPackageFileDependOnThePackagingProperties() throws TerraformException, IOException {
+    String hash = terraformPackage.getInputs(properties).getHash();
+    Assert.assertEquals(hash, terraformPackage.getInputs(properties).getHash());
+    Assert.assertEquals(Paths.get(TerraformPackage.targetDir, String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion())),
+        terraformPackage.getPackageFile(properties));
+
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    properties.put(TerraformPackageParams.codec.toString(), "zstd");
+
+    Assert.assertNotEquals(hash, terraformPackage.getInputs(properties).getHash());
+    Assert.assertEquals(Paths.get(TerraformPackage.targetDir, String.format("%1$s-%2$s.tar.zst", project.getArtifactId(), project.getVersion())),
+        terraformPackage.getPackageFile(properties));
+  }
+
+  @Test
+  public void packagePathsAreRelativeToTheProjectBasedir() throws TerraformException, IOException {
+    Path basedir = Paths.get("target", "basedir-test").toAbsolutePath();
+    FileUtils.copyDirectory(tfRoot.toFile(), basedir.resolve(Paths.get("src", "main", "tf", "root")).toFile());
+    MavenProject basedirProject = new MavenProject();
+    basedirProject.setFile(basedir.resolve("pom.xml").toFile());
+
+    try {
+      new TerraformPackage(basedirProject).execute(new Properties());
+
+      Path zipFilePath = basedir.resolve(TerraformPackage.targetDir)
+          .resolve(String.format("%1$s-%2$s.zip", basedirProject.getArtifactId(), basedirProject.getVersion()));
+      try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+        Assert.assertNotNull(zipFile.getEntry("main.tf"));
+      }
+    } finally {
+      FileUtils.forceDelete(basedir.toFile());
+    }
+  }
+
   @Test
   public void packageGoalWithNoFatZipPackagesOnlyTfRootContentsInTheTargetDir() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.stage.toString(), "true");
     Path zipFilePath = Paths.get(TerraformPackage.targetDir)
         .resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
     String response = this.terraformPackage.execute(properties);
@@ -129,6 +185,7 @@ public class TerraformPackageTest {
 
   @Test
   public void packageGoalWithNoFatZipAndMultipleModulesPackagesBothTfSourceModulesInTheTargetDir() throws TerraformException, IOException, URISyntaxException {
+    properties.put(TerraformPackageParams.stage.toString(), "true");
     properties.remove(TerraformPackageParams.tfRootDir.toString());
     this.tfRoot = Paths.get(this.getClass().getResource("/tf_initialized").toURI());
     FileUtils.copyDirectory(this.tfRoot.toFile(), Paths.get("src", "main", "tf").toFile());
@@ -156,4 +213,258 @@ public class TerraformPackageTest {
       Assert.assertTrue(zipEntryNames.contains("other/main.tf"));
     }
   }
+
+  @Test
+  public void packageWithFatTarStreamsTfRootAndTfModulesIntoThePackageWithoutStaging() throws IOException, TerraformException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    Path lockFile = Files.write(tfModules.resolve(".test-module.lock"), new byte[0]);
+    if (targetTfRootModule.toFile().exists()) FileUtils.forceDelete(targetTfRootModule.toFile());
+    String response = this.terraformPackage.execute(properties);
+    Files.delete(lockFile);
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
+
+    Assert.assertEquals(response, String.format("Created fatTar gzipped tar file '%1$s'", tarFilePath.toString()));
+    Assert.assertFalse(targetTfRootModule.toFile().exists());
+    Assert.assertTrue(new String(Files.readAllBytes(tfRoot.resolve("main.tf")), StandardCharsets.UTF_8).contains("\"../../tfmodules/"));
+
+    try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(tarFilePath.toString())))) {
+      Set<String> tarEntryNames = new HashSet<>();
+      TarArchiveEntry entry;
+      while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+        tarEntryNames.add(entry.getName());
+        if (entry.getName().equals("main.tf")) {
+          String mainTf = IOUtils.toString(tarArchiveInputStream, StandardCharsets.UTF_8);
+          Assert.assertTrue(mainTf.contains("source = \"tfmodules/test-module\""));
+        }
+      }
+
+      Assert.assertEquals(new HashSet<>(Arrays.asList(
+          "main.tf", "tfmodules/", "tfmodules/test-module/", "tfmodules/test-module/main.tf", "tfmodules/test-module/variables.tf")),
+          tarEntryNames);
+    }
+  }
+
+  @Test
+  public void packageGoalWithNoFatZipStreamsTfSourceModulesIntoThePackageWithoutStaging() throws TerraformException, IOException, URISyntaxException {
+    properties.remove(TerraformPackageParams.tfRootDir.toString());
+    FileUtils.copyDirectory(Paths.get(this.getClass().getResource("/tf_initialized").toURI()).toFile(), Paths.get("src", "main", "tf").toFile());
+    if (targetTfRootModule.toFile().exists()) FileUtils.forceDelete(targetTfRootModule.toFile());
+    Path zipFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
+    String response = this.terraformPackage.execute(properties);
+
+    Assert.assertEquals(response, String.format("Created zip file '%1$s'", zipFilePath.toString()));
+    Assert.assertFalse(targetTfRootModule.toFile().exists());
+
+    try (IterableZipInputStream zipStream = new IterableZipInputStream(new FileInputStream(zipFilePath.toFile()))) {
+      Set<String> zipEntryNames = new HashSet<>();
+      for (ZipEntry entry : zipStream) {
+        zipEntryNames.add(entry.getName());
+      }
+
+      Assert.assertEquals(new HashSet<>(Arrays.asList("root/", "other/", "root/main.tf", "other/main.tf")), zipEntryNames);
+    }
+  }
+
+  @Test
+  public void packageGoalCreatesTheSamePackageFromTheSameSourcesAndWritesItsSha256() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
+    Path hashFilePath = Paths.get(tarFilePath.toString() + ".sha256");
+
+    this.terraformPackage.execute(properties);
+    byte[] first = Files.readAllBytes(tarFilePath);
+    Files.walk(tfRoot).forEach(path -> path.toFile().setLastModified(System.currentTimeMillis() - 86400000L));
+    this.terraformPackage.execute(properties);
+
+    Assert.assertArrayEquals(first, Files.readAllBytes(tarFilePath));
+    try (InputStream inputStream = new FileInputStream(tarFilePath.toFile())) {
+      Assert.assertEquals(String.format("%1$s  %2$s", Checksums.sha256(inputStream), tarFilePath.getFileName()),
+          new String(Files.readAllBytes(hashFilePath), StandardCharsets.UTF_8).trim());
+    }
+    Assert.assertTrue(Checksums.getSidecarFile(tarFilePath, Checksums.SHA1).toFile().isFile());
+    Assert.assertTrue(Checksums.getSidecarFile(tarFilePath, Checksums.MD5).toFile().isFile());
+  }
+
+  @Test
+  public void packageGoalCreatesTheSameFatTarNoMatterHowManyCompressionThreadsAreUsed() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
+
+    properties.put(TerraformPackageParams.compressionThreads.toString(), "1");
+    this.terraformPackage.execute(properties);
+    String singleThreadSha256;
+    try (InputStream inputStream = new FileInputStream(tarFilePath.toFile())) {
+      singleThreadSha256 = Checksums.sha256(inputStream);
+    }
+    properties.put(TerraformPackageParams.compressionThreads.toString(), "4");
+    this.terraformPackage.execute(properties);
+
+    try (InputStream inputStream = new FileInputStream(tarFilePath.toFile())) {
+      Assert.assertEquals(singleThreadSha256, Checksums.sha256(inputStream));
+    }
+  }
+
+  @Test
+  public void packageGoalWithManifestAddsTheSha256OfEachFileAsTheLastEntry() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.manifest.toString(), "true");
+    Path zipFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
+
+    this.terraformPackage.execute(properties);
+
+    try (ZipFile zipFile = new ZipFile(zipFilePath.toFile())) {
+      List<? extends ZipEntry> entries = Collections.list(zipFile.entries());
+      ZipEntry manifestEntry = entries.get(entries.size() - 1);
+      Assert.assertEquals(AbstractCompressable.MANIFEST_NAME, manifestEntry.getName());
+      String manifest = IOUtils.toString(zipFile.getInputStream(manifestEntry), StandardCharsets.UTF_8);
+      try (InputStream inputStream = zipFile.getInputStream(zipFile.getEntry("main.tf"))) {
+        Assert.assertTrue(manifest.contains(Checksums.sha256(inputStream) + "  main.tf\n"));
+      }
+    }
+  }
+
+  @Test
+  public void packageGoalWithIncrementalCreatesTheSameZipAndItsIndex() throws TerraformException, IOException {
+    Path zipFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.zip", project.getArtifactId(), project.getVersion()));
+    this.terraformPackage.execute(properties);
+    byte[] fullZip = Files.readAllBytes(zipFilePath);
+
+    properties.put(TerraformPackageParams.incremental.toString(), "true");
+    this.terraformPackage.execute(properties);
+    this.terraformPackage.execute(properties);
+
+    Assert.assertArrayEquals(fullZip, Files.readAllBytes(zipFilePath));
+    Assert.assertTrue(Paths.get(zipFilePath.toString() + ".index").toFile().exists());
+  }
+
+  @Test
+  public void packageGoalWithFatTarAndZstdCodecCreatesaZstdCompressedTar() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    properties.put(TerraformPackageParams.codec.toString(), "zstd");
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.zst", project.getArtifactId(), project.getVersion()));
+
+    String response = this.terraformPackage.execute(properties);
+
+    Assert.assertEquals(String.format("Created fatTar zstd compressed tar file '%1$s'", tarFilePath), response);
+    try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new ZstdCodec().decompress(new FileInputStream(tarFilePath.toFile())))) {
+      Assert.assertEquals("main.tf", tarArchiveInputStream.getNextTarEntry().getName());
+    }
+  }
+
+  @Test
+  public void packageGoalWithFatTarAndDeduplicateWritesIdenticalModuleFilesAsHardLinks() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    properties.put(TerraformPackageParams.deduplicate.toString(), "true");
+    Path moduleCopy = tfModules.resolve("test-module-copy");
+    FileUtils.copyDirectory(tfModules.resolve("test-module").toFile(), moduleCopy.toFile());
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
+
+    try {
+      this.terraformPackage.execute(properties);
+
+      try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(tarFilePath.toFile())))) {
+        Set<String> linkedEntryNames = new HashSet<>();
+        TarArchiveEntry entry;
+        while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+          //entries are sorted by name, so test-module-copy/ is written before test-module/
+          if (entry.isLink()) {
+            Assert.assertEquals(entry.getName().replace("test-module/", "test-module-copy/"), entry.getLinkName());
+            linkedEntryNames.add(entry.getName());
+          }
+        }
+        Assert.assertEquals(new HashSet<>(Arrays.asList("tfmodules/test-module/main.tf", "tfmodules/test-module/variables.tf")),
+            linkedEntryNames);
+      }
+    } finally {
+      FileUtils.forceDelete(moduleCopy.toFile());
+    }
+  }
+
+  @Test
+  public void packageGoalWithFatTarAndVendorProvidersPackagesTheMirroredProviders() throws TerraformException, IOException {
+    properties.put(TerraformPackageParams.fatTar.toString(), "true");
+    properties.put(TerraformPackageParams.vendorProviders.toString(), "true");
+    properties.put(TerraformPackageParams.providerPlatforms.toString(), "linux_amd64");
+    String provider = "registry.terraform.io/hashicorp/null/terraform-provider-null_3.2.1_linux_amd64.zip";
+    Properties mirrorProperties = new Properties();
+    TerraformPackage vendoringPackage = new TerraformPackage(project) {
+      @Override
+      TerraformOperation<String> getProvidersMirror(Path tfRootPath) {
+        return properties -> {
+          mirrorProperties.putAll(properties);
+          try {
+            Path providerFile = Paths.get(properties.getProperty("targetDir")).resolve(provider);
+            Files.createDirectories(providerFile.getParent());
+            Files.write(providerFile, "provider".getBytes(StandardCharsets.UTF_8));
+          } catch (IOException e) {
+            throw new TerraformException(e);
+          }
+          return "";
+        };
+      }
+    };
+    Path tarFilePath = Paths.get(TerraformPackage.targetDir)
+        .resolve(String.format("%1$s-%2$s.tar.gz", project.getArtifactId(), project.getVersion()));
+
+    try {
+      vendoringPackage.execute(properties);
+
+      Assert.assertEquals("linux_amd64", mirrorProperties.getProperty("platform"));
+      try (TarArchiveInputStream tarArchiveInputStream = new TarArchiveInputStream(new GZIPInputStream(new FileInputStream(tarFilePath.toFile())))) {
+        Set<String> tarEntryNames = new HashSet<>();
+        TarArchiveEntry entry;
+        while ((entry = tarArchiveInputStream.getNextTarEntry()) != null) {
+          tarEntryNames.add(entry.getName());
+        }
+        Assert.assertTrue(tarEntryNames.contains("terraform.d/"));
+        Assert.assertTrue(tarEntryNames.contains("terraform.d/plugins/"));
+        Assert.assertTrue(tarEntryNames.contains("terraform.d/plugins/" + provider));
+        Assert.assertTrue(tarEntryNames.contains("tfmodules/test-module/main.tf"));
+      }
+    } finally {
+      FileUtils.forceDelete(Paths.get(TerraformPackage.targetDir, TerraformPackage.targetProvidersDir).toFile());
+    }
+  }
+
+  @Test(expected = TerraformException.class)
+  public void packageGoalWithVendorProvidersAndNoFatTarThrowsTerraformException() throws TerraformException {
+    properties.put(TerraformPackageParams.vendorProviders.toString(), "true");
+
+    this.terraformPackage.execute(properties);
+  }
+
+  @Test(expected = TerraformException.class)
+  public void packageGoalWithZstdCodecAndNoFatTarThrowsTerraformException() throws TerraformException {
+    properties.put(TerraformPackageParams.codec.toString(), "zstd");
+
+    this.terraformPackage.execute(properties);
+  }
+
+  @Test
+  public void getUpdatedModuleSourcesOnlyUpdatesTerraformFilesThatReferenceTheModulesDirectory() throws IOException {
+    Path workingDir = Paths.get(TerraformPackage.targetDir, "module-sources");
+    FileUtils.forceMkdir(workingDir.toFile());
+    byte[] relativePath = "../../.tfmodules".getBytes(StandardCharsets.UTF_8);
+    Path mainTf = Files.write(workingDir.resolve("main.tf"), "module \"s3\" {\r\n  source = \"../../.tfmodules/s3\"\r\n}".getBytes(StandardCharsets.UTF_8));
+    Path otherTf = Files.write(workingDir.resolve("other.tf"), "variable \"name\" {}\n".getBytes(StandardCharsets.UTF_8));
+    Path emptyTf = Files.write(workingDir.resolve("empty.tf"), new byte[0]);
+    Path policy = Files.write(workingDir.resolve("policy.json"), "{\"path\": \"../../.tfmodules/s3\"}".getBytes(StandardCharsets.UTF_8));
+
+    try {
+      Assert.assertEquals("module \"s3\" {\r\n  source = \".tfmodules/s3\"\r\n}",
+          new String(TerraformPackage.getUpdatedModuleSources(mainTf, relativePath, ".tfmodules").get(), StandardCharsets.UTF_8));
+      Assert.assertFalse(TerraformPackage.getUpdatedModuleSources(otherTf, relativePath, ".tfmodules").isPresent());
+      Assert.assertFalse(TerraformPackage.getUpdatedModuleSources(emptyTf, relativePath, ".tfmodules").isPresent());
+      Assert.assertFalse(TerraformPackage.getUpdatedModuleSources(policy, relativePath, ".tfmodules").isPresent());
+    } finally {
+      FileUtils.forceDelete(workingDir.toFile());
+    }
+  }
 }
@@ -0,0 +1,69 @@
+package com.deliveredtechnologies.maven.terraform.mojo;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.maven.artifact.Artifact;
+import org.apache.maven.artifact.DefaultArtifact;
+import org.apache.maven.artifact.handler.DefaultArtifactHandler;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.logging.Log;
+import org.apache.maven.project.MavenProject;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.HashSet;
+
+/**
+ * Tests for Get.
+ */
+public class GetTest {
+
+  @Test
+  public void lazyGetIsSkippedWhenItsInputsAreUnchangedAndTheReferencedModulesAreExpanded()
+      throws IOException, URISyntaxException, MojoExecutionException {
+    Path zipsDir = Paths.get(this.getClass().getResource("/zips").toURI());
+    Path basedir = Paths.get("target", "get-mojo-test").toAbsolutePath();
+    Path rootDir = Files.createDirectories(basedir.resolve(Paths.get("src", "main", "tf", "root")));
+    Files.write(rootDir.resolve("main.tf"), "module \"dep\" {\n  source = \"../../.tfmodules/my-module3\"\n}\n".getBytes(StandardCharsets.UTF_8));
+    MavenProject project = new MavenProject();
+    project.setFile(basedir.resolve("pom.xml").toFile());
+    project.setArtifacts(new HashSet<>(Arrays.asList(
+        createArtifact("my.module2", "0.1", zipsDir.resolve("tf-module-my.module2-0.1.zip")),
+        createArtifact("my-module3", "1.2.3-SNAPSHOT", zipsDir.resolve("tf-module-my-module3-1.2.3-SNAPSHOT.zip")))));
+    Log log = Mockito.mock(Log.class);
+    Get get = new Get() {
+      @Override
+      public Log getLog() {
+        return log;
+      }
+    };
+    get.project = project;
+    get.basedir = basedir.toFile();
+
+    System.setProperty("lazy", "true");
+    try {
+      get.execute();
+      Assert.assertTrue(basedir.resolve(Paths.get("src", "main", ".tfmodules", "my-module3")).toFile().isDirectory());
+      Assert.assertFalse(basedir.resolve(Paths.get("src", "main", ".tfmodules", "my.module2")).toFile().exists());
+
+      get.execute();
+      Mockito.verify(log, Mockito.times(1)).info(Mockito.startsWith("Skipping tf:get;"));
+    } finally {
+      System.clearProperty("lazy");
+      FileUtils.deleteDirectory(basedir.toFile());
+    }
+  }
+
+  private Artifact createArtifact(String artifactId, String version, Path file) {
+    Artifact artifact = new DefaultArtifact("com.deliveredtechnologies", artifactId, version, "compile", "zip", null, new DefaultArtifactHandler("zip"));
+    artifact.setFile(file.toFile());
+    return artifact;
+  }
+}
@@ -0,0 +1,40 @@
+package com.deliveredtechnologies.maven.terraform.mojo;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Properties;
+
+/**
+ * Tests for Init.
+ */
+public class InitTest {
+
+  @Test
+  public void initInputsAreUnchangedByTheFilesTerraformInitWrites() throws IOException {
+    Path basedir = Paths.get("target", "init-mojo-test").toAbsolutePath();
+    Path rootDir = Files.createDirectories(basedir.resolve(Paths.get("src", "main", "tf", "root")));
+    Files.write(rootDir.resolve("main.tf"), "variable \"name\" {}\n".getBytes(StandardCharsets.UTF_8));
+    Init init = new Init();
+    init.basedir = basedir.toFile();
+    Properties properties = new Properties();
+
+    try {
+      String hash = init.getInputs(rootDir, properties).getHash();
+      Files.write(rootDir.resolve(".terraform.lock.hcl"), "provider \"registry.terraform.io/hashicorp/aws\" {}\n".getBytes(StandardCharsets.UTF_8));
+      Files.write(Files.createDirectories(rootDir.resolve(".terraform")).resolve("terraform.tfstate"), new byte[0]);
+      Assert.assertEquals(hash, init.getInputs(rootDir, properties).getHash());
+
+      Files.write(rootDir.resolve("main.tf"), "variable \"names\" {}\n".getBytes(StandardCharsets.UTF_8));
+      Assert.assertNotEquals(hash, init.getInputs(rootDir, properties).getHash());
+    } finally {
+      FileUtils.deleteDirectory(basedir.toFile());
+    }
+  }
+}
@@ -1,14 +1,24 @@
 package com.deliveredtechnologies.maven.terraform.mojo;
 
+import com.deliveredtechnologies.maven.io.Fingerprint;
 import com.deliveredtechnologies.terraform.TerraformException;
 import com.deliveredtechnologies.terraform.api.TerraformOperation;
+import com.deliveredtechnologies.trace.Tracer;
+import org.apache.commons.io.FileUtils;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugin.MojoFailureException;
 import org.apache.maven.plugin.logging.Log;
+import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mockito;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Properties;
 
 /**
@@ -86,4 +96,154 @@ public class TerraformMojoTest {
 
     terraformMojo.execute();
   }
+
+  @Test
+  public void propertiesAreaSnapshotOfTheSystemProperties() {
+    System.setProperty("tfMojoTest", "before");
+    try {
+      Properties snapshot = TerraformMojo.getProperties();
+      System.setProperty("tfMojoTest", "after");
+
+      Assert.assertEquals("before", snapshot.getProperty("tfMojoTest"));
+      Assert.assertEquals(System.getProperty("java.version"), snapshot.getProperty("java.version"));
+      snapshot.setProperty("tfMojoTest", "changed");
+      Assert.assertEquals("after", System.getProperty("tfMojoTest"));
+    } finally {
+      System.clearProperty("tfMojoTest");
+    }
+  }
+
+  @Test
+  public void basedirIsTheProjectBasedirOrTheWorkingDirectory() {
+    TerraformMojo<String> terraformMojo = new TerraformMojo<String>() {
+      @Override
+      public void execute() { }
+    };
+
+    Assert.assertEquals(Paths.get(""), terraformMojo.getBasedir());
+    terraformMojo.basedir = new File("module");
+    Assert.assertEquals(Paths.get("module"), terraformMojo.getBasedir());
+  }
+
+  @Test
+  public void executeSkipsTheOperationIfItsInputsAreUnchangedAndItsOutputsExist() throws TerraformException, IOException, MojoExecutionException, MojoFailureException {
+    Path basedir = Files.createDirectories(Paths.get("target", "mojo-test"));
+    Path output = basedir.resolve("output");
+    Mockito.when(terraformOperation.execute(Mockito.any())).then(invocation -> Files.write(output, new byte[0]).toString());
+    TerraformMojo<String> terraformMojo = new TerraformMojo<String>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void execute() throws MojoExecutionException {
+        execute((TerraformOperation<String>)terraformOperation, properties, "test", new Fingerprint().add("input", "1"), output);
+      }
+
+      @Override
+      public Log getLog() {
+        return log;
+      }
+    };
+    terraformMojo.basedir = basedir.toFile();
+
+    try {
+      terraformMojo.execute();
+      terraformMojo.execute();
+      Mockito.verify(terraformOperation, Mockito.times(1)).execute(properties);
+      Mockito.verify(log, Mockito.times(1)).info(Mockito.startsWith("Skipping tf:test;"));
+      Assert.assertTrue(basedir.resolve(Paths.get("target", "tf-fingerprints", "test.sha256")).toFile().isFile());
+
+      Files.delete(output);
+      terraformMojo.execute();
+      Mockito.verify(terraformOperation, Mockito.times(2)).execute(properties);
+
+      terraformMojo.force = true;
+      terraformMojo.execute();
+      Mockito.verify(terraformOperation, Mockito.times(3)).execute(properties);
+    } finally {
+      FileUtils.forceDelete(basedir.toFile());
+    }
+  }
+
+  @Test
+  public void executeWithTraceLogsTheSummaryAndWritesTheChromeTrace() throws TerraformException, IOException, MojoExecutionException, MojoFailureException {
+    Path basedir = Files.createDirectories(Paths.get("target", "trace-mojo-test"));
+    Mockito.when(terraformOperation.execute(Mockito.any())).then(invocation -> {
+      Tracer.getInstance().start("command", "terraform plan").close();
+      return "planned";
+    });
+    TerraformMojo<String> terraformMojo = new TerraformMojo<String>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void execute() throws MojoExecutionException {
+        execute((TerraformOperation<String>)terraformOperation, properties);
+      }
+
+      @Override
+      protected String getGoal() {
+        return "tf:test";
+      }
+
+      @Override
+      public Log getLog() {
+        return log;
+      }
+    };
+    terraformMojo.basedir = basedir.toFile();
+    terraformMojo.trace = true;
+
+    try {
+      terraformMojo.execute();
+
+      Mockito.verify(log, Mockito.times(1)).info(Mockito.matches("(?s)Build timings:.*goal .*tf:test.*command .*terraform plan.*"));
+      String trace = new String(Files.readAllBytes(basedir.resolve(Paths.get("target", "tf-trace.json"))), StandardCharsets.UTF_8);
+      Assert.assertTrue(trace.contains("{\"name\":\"tf:test\",\"cat\":\"goal\",\"ph\":\"X\""));
+      Assert.assertTrue(trace.contains("{\"name\":\"terraform plan\",\"cat\":\"command\",\"ph\":\"X\""));
+      Assert.assertFalse(Tracer.getInstance().isEnabled());
+    } finally {
+      Tracer.getInstance().clear();
+      FileUtils.forceDelete(basedir.toFile());
+    }
+  }
+
+  @Test
+  public void outputConsumerLogsEachLineWithTheRootModulePrefix() throws IOException, TerraformException, MojoExecutionException, MojoFailureException {
+    Mockito.when(terraformOperation.execute(Mockito.any())).thenReturn("");
+    TerraformMojo<String> terraformMojo = new TerraformMojo<String>() {
+      @Override
+      @SuppressWarnings("unchecked")
+      public void execute() throws MojoExecutionException {
+        execute((TerraformOperation<String>)terraformOperation, properties);
+      }
+
+      @Override
+      public Log getLog() {
+        return log;
+      }
+    };
+
+    terraformMojo.getOutputConsumer("src/main/tf/network").accept("Plan: 1 to add");
+    terraformMojo.prefixOutput = true;
+    terraformMojo.getOutputConsumer("src/main/tf/network").accept("Plan: 2 to add");
+    terraformMojo.execute();
+
+    Mockito.verify(log, Mockito.times(1)).info("Plan: 1 to add");
+    Mockito.verify(log, Mockito.times(1)).info("[network] Plan: 2 to add");
+    //the output was already streamed, so the empty response isn't logged
+    Mockito.verify(log, Mockito.never()).info("");
+  }
+
+  @Test
+  public void outputConsumerWithAnInvalidOverflowPolicyThrowsTerraformException() throws IOException {
+    TerraformMojo<String> terraformMojo = new TerraformMojo<String>() {
+      @Override
+      public void execute() { }
+    };
+    terraformMojo.outputOverflow = "discard";
+
+    try {
+      terraformMojo.getOutputConsumer(null);
+      Assert.fail("TerraformException expected");
+    } catch (TerraformException e) {
+      Assert.assertTrue(e.getMessage().contains("block, drop-oldest and summarize"));
+    }
+  }
 }